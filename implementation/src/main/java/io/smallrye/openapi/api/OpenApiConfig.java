@@ -17,6 +17,7 @@
 package io.smallrye.openapi.api;
 
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
 import org.eclipse.microprofile.config.Config;
@@ -31,6 +32,8 @@ import org.eclipse.microprofile.openapi.OASConfig;
  */
 public class OpenApiConfig {
 
+    private static final long DEFAULT_INDEX_CACHE_MAX_SIZE = 256L * 1024 * 1024;
+
     private Config config;
 
     private String modelReader;
@@ -43,6 +46,14 @@ public class OpenApiConfig {
     private Set<String> servers;
     private Boolean scanDependenciesDisable;
     private Set<String> scanDependenciesJars;
+    private String staticFileWatch;
+    private String indexCacheDir;
+    private Long indexCacheMaxSize;
+    private Integer indexParallelism;
+    private Boolean pregeneratedDisable;
+    private Initialization initialization;
+    private Boolean scanPrefilter;
+    private Boolean scanPrune;
 
     public OpenApiConfig(Config config) {
         this.config = config;
@@ -142,6 +153,102 @@ public class OpenApiConfig {
         return scanDependenciesJars;
     }
 
+    /**
+     * @return the path of a static file (on the local filesystem) to watch for changes, or null
+     */
+    public String staticFileWatch() {
+        if (staticFileWatch == null) {
+            staticFileWatch = getConfig().getOptionalValue(OpenApiConstants.STATIC_FILE_WATCH, String.class).orElse(null);
+        }
+        return staticFileWatch;
+    }
+
+    /**
+     * @return the directory in which the jandex indexes of dependency JARs are cached, or null
+     */
+    public String indexCacheDir() {
+        if (indexCacheDir == null) {
+            indexCacheDir = getConfig().getOptionalValue(OpenApiConstants.INDEX_CACHE_DIR, String.class).orElse(null);
+        }
+        return indexCacheDir;
+    }
+
+    /**
+     * @return the maximum total size (in bytes) of the index cache directory
+     */
+    public long indexCacheMaxSize() {
+        if (indexCacheMaxSize == null) {
+            indexCacheMaxSize = getConfig().getOptionalValue(OpenApiConstants.INDEX_CACHE_MAX_SIZE, Long.class).orElse(DEFAULT_INDEX_CACHE_MAX_SIZE);
+        }
+        return indexCacheMaxSize;
+    }
+
+    /**
+     * @return the number of threads the deployment and its dependency JARs are indexed on,
+     *         by default the number of available processors
+     */
+    public int indexParallelism() {
+        if (indexParallelism == null) {
+            indexParallelism = getConfig().getOptionalValue(OpenApiConstants.INDEX_PARALLELISM, Integer.class)
+                    .orElse(Runtime.getRuntime().availableProcessors());
+        }
+        return indexParallelism;
+    }
+
+    /**
+     * @return true if a document pre-generated at build time should be ignored (and the
+     *         deployment scanned instead)
+     */
+    public boolean pregeneratedDisable() {
+        if (pregeneratedDisable == null) {
+            pregeneratedDisable = getConfig().getOptionalValue(OpenApiConstants.PREGENERATED_DISABLE, Boolean.class).orElse(false);
+        }
+        return pregeneratedDisable;
+    }
+
+    /**
+     * @return when the document is built (eager, lazy or background), eager by default
+     */
+    public Initialization initialization() {
+        if (initialization == null) {
+            String value = getConfig().getOptionalValue(OpenApiConstants.INITIALIZATION, String.class).orElse(null);
+            initialization = value == null ? Initialization.EAGER : Initialization.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+        return initialization;
+    }
+
+    /**
+     * @return true if the classes should be prefiltered by their constant pool, so that only
+     *         those with JAX-RS or OpenAPI annotations (and the classes they reference) are indexed
+     */
+    public boolean scanPrefilter() {
+        if (scanPrefilter == null) {
+            scanPrefilter = getConfig().getOptionalValue(OpenApiConstants.SCAN_PREFILTER, Boolean.class).orElse(false);
+        }
+        return scanPrefilter;
+    }
+
+    /**
+     * @return true if the index should be reduced to the classes reachable from the JAX-RS
+     *         application and resource classes before scanning it
+     */
+    public boolean scanPrune() {
+        if (scanPrune == null) {
+            scanPrune = getConfig().getOptionalValue(OpenApiConstants.SCAN_PRUNE, Boolean.class).orElse(false);
+        }
+        return scanPrune;
+    }
+
+    /**
+     * Returns the resource classes and packages (of resource classes) configured as belonging
+     * to the given JAX-RS Application, which is empty if none are configured.
+     * @param applicationClassName
+     */
+    public Set<String> applicationResources(String applicationClassName) {
+        return asCsvSet(getConfig().getOptionalValue(OpenApiConstants.APPLICATION_RESOURCES_PREFIX + applicationClassName,
+                String.class).orElse(null));
+    }
+
 
     private static Set<String> asCsvSet(String items) {
         Set<String> rval = new HashSet<>();
@@ -154,4 +261,17 @@ public class OpenApiConfig {
         return rval;
     }
 
+    /**
+     * When the {@link OpenApiDocument} is built.
+     */
+    public enum Initialization {
+        /** During {@link OpenApiDocument#initialize()}. */
+        EAGER,
+        /** On the first request for the document. */
+        LAZY,
+        /** On a low priority background thread started by {@link OpenApiDocument#initialize()},
+         * or on the first request for the document if that comes first. */
+        BACKGROUND
+    }
+
 }
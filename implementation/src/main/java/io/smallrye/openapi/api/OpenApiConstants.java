@@ -65,9 +65,25 @@ public final class OpenApiConstants {
 
     public static final String SCAN_DEPENDENCIES_DISABLE = "mp.openapi.extensions.scan-dependencies.disable";
     public static final String SCAN_DEPENDENCIES_JARS = "mp.openapi.extensions.scan-dependencies.jars";
+    public static final String STATIC_FILE_WATCH = "mp.openapi.extensions.static-file.watch";
+    public static final String INDEX_CACHE_DIR = "mp.openapi.extensions.index-cache.dir";
+    public static final String INDEX_CACHE_MAX_SIZE = "mp.openapi.extensions.index-cache.max-size";
+    public static final String INDEX_PARALLELISM = "mp.openapi.extensions.index.parallelism";
+    public static final String PREGENERATED_DISABLE = "mp.openapi.extensions.pregenerated.disable";
+    public static final String INITIALIZATION = "mp.openapi.extensions.initialization";
+    public static final String SCAN_PREFILTER = "mp.openapi.extensions.scan.prefilter";
+    public static final String SCAN_PRUNE = "mp.openapi.extensions.scan.prune";
+    // Followed by the fully qualified name of a JAX-RS Application class
+    public static final String APPLICATION_RESOURCES_PREFIX = "mp.openapi.extensions.application-resources.";
+
+    // Written at build time by the maven plugin
+    public static final String PREGENERATED_JSON = "META-INF/openapi-generated.json";
+    public static final String PREGENERATED_YAML = "META-INF/openapi-generated.yaml";
+    public static final String PREGENERATED_SNAPSHOT = "META-INF/openapi-generated.bin";
 
     public static final String CLASS_SUFFIX = ".class";
     public static final String JAR_SUFFIX = ".jar";
+    public static final String JSON_SUFFIX = ".json";
     public static final String WEB_ARCHIVE_CLASS_PREFIX = "/WEB-INF/classes/";
 
     public static final String EXTENSION_PROPERTY_PREFIX = "x-";
@@ -15,9 +15,23 @@
  */
 package io.smallrye.openapi.api;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
 import org.eclipse.microprofile.openapi.OASFilter;
 import org.eclipse.microprofile.openapi.models.OpenAPI;
 
+import io.smallrye.openapi.api.OpenApiConfig.Initialization;
+import io.smallrye.openapi.api.instrumentation.Instrumentation;
+import io.smallrye.openapi.api.instrumentation.InstrumentationRecorder;
+import io.smallrye.openapi.api.instrumentation.Phase;
 import io.smallrye.openapi.api.models.OpenAPIImpl;
 import io.smallrye.openapi.api.models.PathsImpl;
 import io.smallrye.openapi.api.models.info.InfoImpl;
@@ -32,6 +46,37 @@ import io.smallrye.openapi.api.util.ServersUtil;
  * Note that the model must be initialized first!
  * </p>
  *
+ * <p>
+ * Depending on the configured {@link Initialization}, the document is either built by
+ * {@link #initialize()}, or later: on the first {@link #get()}, or on a background thread.
+ * To make the most of that, the models may be given as suppliers (e.g.
+ * {@code modelFromAnnotations(() -> OpenApiProcessor.modelFromAnnotations(config, archive))}),
+ * which are only invoked when the document is built.  Concurrent first callers of
+ * {@link #get()} wait for a single build.
+ * </p>
+ *
+ * <p>
+ * The reader, static file and annotations suppliers are invoked concurrently, so that
+ * building the document takes as long as the slowest of them rather than all of them.
+ * They may run user code (e.g. the {@code OASModelReader}) and block on I/O, so they are
+ * invoked on dedicated threads rather than a shared pool, all with the context class
+ * loader of the thread that initialized the document.
+ * </p>
+ *
+ * <p>
+ * A document pre-generated at build time must be set explicitly, via
+ * {@link #modelFromPregenerated(OpenAPI)} (e.g. with the result of
+ * {@code OpenApiProcessor.modelFromPregeneratedFile(config, archive)}).  If it is set,
+ * the reader, static file and annotations models are ignored, and their suppliers are
+ * never invoked.
+ * </p>
+ *
+ * <p>
+ * Once initialized, the document may be replaced (e.g. when a watched static file
+ * changes) via {@link #publish(OpenAPI, Map)}.  Readers never block: the current
+ * model and its rendered forms are swapped atomically.
+ * </p>
+ *
  * @author Martin Kouba
  */
 public class OpenApiDocument {
@@ -42,29 +87,39 @@ public class OpenApiDocument {
 
     // These are used during init only
     private transient OpenApiConfig config;
-    private transient OpenAPI annotationsModel;
-    private transient OpenAPI readerModel;
-    private transient OpenAPI staticFileModel;
+    private transient Supplier<? extends OpenAPI> annotationsModel;
+    private transient Supplier<? extends OpenAPI> readerModel;
+    private transient Supplier<? extends OpenAPI> staticFileModel;
+    private transient OpenAPI pregeneratedModel;
     private transient OASFilter filter;
     private transient String archiveName;
 
-    private transient OpenAPI model;
+    private volatile Document document;
+    private volatile PendingBuild pending;
+    private volatile InstrumentationRecorder recorder;
 
     private OpenApiDocument() {
     }
 
     /**
+     * Returns the final OpenAPI document, building it first if it has not been built yet.
      *
      * @return the final OpenAPI document produced during the startup of the app
      * @throws IllegalStateException If the final model is not initialized yet
      */
     public OpenAPI get() {
-        synchronized (INSTANCE) {
-            if (model == null) {
-                throw new IllegalStateException("Model not initialized yet");
-            }
-            return model;
-        }
+        return current().model;
+    }
+
+    /**
+     * Returns the final OpenAPI document already rendered in the given format (e.g.
+     * "application/json"), or null if it has not been rendered.
+     *
+     * @param mimeType
+     * @throws IllegalStateException If the final model is not initialized yet
+     */
+    public byte[] getRendered(String mimeType) {
+        return current().rendered.get(mimeType);
     }
 
     /**
@@ -74,28 +129,49 @@ public class OpenApiDocument {
      */
     public void set(OpenAPI model) {
         synchronized (INSTANCE) {
-            this.model = model;
+            this.pending = null;
+            this.recorder = null;
+            this.document = model == null ? null : new Document(model, null);
             //LOGGER.info("OpenAPI document set: " + model);
         }
     }
 
+    /**
+     * Replaces the (already initialized) final OpenAPI document along with its rendered
+     * forms, keyed by mime type.  Readers will either see the previous document or this
+     * one, never a mix of both.
+     *
+     * @param model
+     * @param rendered
+     */
+    public void publish(OpenAPI model, Map<String, byte[]> rendered) {
+        // A document still to be built must not replace this one later
+        current();
+        synchronized (INSTANCE) {
+            if (document == null) {
+                throw new IllegalStateException("Model not initialized yet");
+            }
+            this.document = new Document(model, rendered);
+        }
+    }
+
     /**
      * Reset the holder.
      */
     public void reset() {
         synchronized (INSTANCE) {
-            model = null;
+            document = null;
+            pending = null;
+            recorder = null;
             clear();
         }
     }
 
     /**
-     * @param {{@code true} if model initialized
+     * @param {{@code true} if model initialized (although it may not be built yet)
      */
     public boolean isSet() {
-        synchronized (INSTANCE) {
-            return model != null;
-        }
+        return document != null || pending != null;
     }
 
     public synchronized void config(OpenApiConfig config) {
@@ -103,17 +179,55 @@ public class OpenApiDocument {
     }
 
     public void modelFromAnnotations(OpenAPI model) {
+        modelFromAnnotations(() -> model);
+    }
+
+    /**
+     * Sets the annotations model, to be obtained when the document is built.
+     *
+     * @param model
+     */
+    public void modelFromAnnotations(Supplier<? extends OpenAPI> model) {
         set(() -> this.annotationsModel = model);
     }
 
     public void modelFromReader(OpenAPI model) {
+        modelFromReader(() -> model);
+    }
+
+    /**
+     * Sets the reader model, to be obtained when the document is built.
+     *
+     * @param model
+     */
+    public void modelFromReader(Supplier<? extends OpenAPI> model) {
         set(() -> this.readerModel = model);
     }
 
     public void modelFromStaticFile(OpenAPI model) {
+        modelFromStaticFile(() -> model);
+    }
+
+    /**
+     * Sets the static file model, to be obtained when the document is built.
+     *
+     * @param model
+     */
+    public void modelFromStaticFile(Supplier<? extends OpenAPI> model) {
         set(() -> this.staticFileModel = model);
     }
 
+    /**
+     * Sets the document pre-generated at build time.  It already includes the reader,
+     * static file and annotations models, so if it is set those are ignored; the filter,
+     * the defaults and the configured servers are still applied to it.
+     *
+     * @param model
+     */
+    public void modelFromPregenerated(OpenAPI model) {
+        set(() -> this.pregeneratedModel = model);
+    }
+
     public void filter(OASFilter filter) {
         set(() -> this.filter = filter);
     }
@@ -124,71 +238,136 @@ public class OpenApiDocument {
 
     public void initialize() {
         synchronized (INSTANCE) {
-            if (model != null) {
-                modelAlreadyInitialized();
+            PendingBuild build = prepare();
+            Initialization initialization = config.initialization();
+            if (initialization == Initialization.EAGER) {
+                document = build.build();
+                //LOGGER.info("OpenAPI document initialized: " + model);
+            } else {
+                pending = build;
+                if (initialization == Initialization.BACKGROUND) {
+                    Thread thread = new Thread(build::run, "OpenAPI document builder");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    thread.start();
+                }
             }
-            // Check all the required parts are set
-            if (config == null) {
-                throw new IllegalStateException("OpenApiConfig must be set before init");
-            }
-
-            // Phase 1: Use OASModelReader
-            OpenAPI merged = readerModel;
-
-            // Phase 2: Merge any static OpenAPI file packaged in the app
-            merged = MergeUtil.mergeObjects(merged, staticFileModel);
+            initialized();
+        }
+    }
 
-            // Phase 3: Merge annotations
-            merged = MergeUtil.mergeObjects(merged, annotationsModel);
+    /**
+     * Initializes the document, which is then built by the given executor (regardless of
+     * the configured {@link Initialization}).  The calling thread does not wait for the
+     * build: readers may use {@link #getIfReady()} to avoid waiting for it either, while
+     * {@link #get()} waits (or builds the document itself, if the executor did not start
+     * yet).
+     *
+     * @param executor
+     * @return completes with the final document when it is built
+     */
+    public CompletionStage<OpenAPI> initializeAsync(Executor executor) {
+        PendingBuild build;
+        synchronized (INSTANCE) {
+            build = prepare();
+            pending = build;
+            initialized();
+        }
+        executor.execute(build::run);
+        return build.result.thenApply(built -> built.model);
+    }
 
-            // Phase 4: Filter model via OASFilter
-            merged = filterModel(merged);
+    /**
+     * Returns what was measured while building the document (so far, if it is still being
+     * built).  The {@link Instrumentation} is JVM wide, so whatever else is measured while
+     * the document is built (e.g. the document of another deployment) is included.
+     *
+     * @return the recorder of the build, or null if the document was not initialized
+     */
+    public InstrumentationRecorder getRecorder() {
+        return recorder;
+    }
 
-            // Phase 5: Default empty document if model == null
-            if (merged == null) {
-                merged = new OpenAPIImpl();
-                merged.setOpenapi(OpenApiConstants.OPEN_API_VERSION);
-            }
+    /**
+     * Returns the final OpenAPI document if it is built, without waiting or building it.
+     *
+     * @return the final OpenAPI document, or null if it is not built (or not initialized) yet
+     */
+    public OpenAPI getIfReady() {
+        Document current = document;
+        return current == null ? null : current.model;
+    }
 
-            // Phase 6: Provide missing required elements
-            if (merged.getPaths() == null) {
-                merged.setPaths(new PathsImpl());
-            }
-            if (merged.getInfo() == null) {
-                merged.setInfo(new InfoImpl());
-            }
-            if (merged.getInfo().getTitle() == null) {
-                merged.getInfo().setTitle((archiveName == null ? "Generated" : archiveName) + " API");
-            }
-            if (merged.getInfo().getVersion() == null) {
-                merged.getInfo().setVersion("1.0");
-            }
+    /**
+     * Builds a new final OpenAPI document from the given models, using the config, filter
+     * and archive name the document was initialized with.  The current document is not
+     * modified; see {@link #publish(OpenAPI, Map)}.  Note that the given models may be
+     * modified while merging them.
+     *
+     * @param readerModel
+     * @param staticFileModel
+     * @param annotationsModel
+     * @throws IllegalStateException If the document was not initialized with a watched static file
+     */
+    public OpenAPI build(OpenAPI readerModel, OpenAPI staticFileModel, OpenAPI annotationsModel) {
+        OpenApiConfig initConfig = config;
+        if (!isSet() || initConfig == null || initConfig.staticFileWatch() == null) {
+            throw new IllegalStateException("Model not initialized with a watched static file");
+        }
+        return new Builder(initConfig, filter, archiveName).build(readerModel, staticFileModel, annotationsModel);
+    }
 
-            // Phase 7: Use Config values to add Servers (global, pathItem, operation)
-            ServersUtil.configureServers(config, merged);
+    /**
+     * Checks that the document can be initialized, and returns the build of the document
+     * from what was set.
+     */
+    private PendingBuild prepare() {
+        if (isSet()) {
+            modelAlreadyInitialized();
+        }
+        // Check all the required parts are set
+        if (config == null) {
+            throw new IllegalStateException("OpenApiConfig must be set before init");
+        }
+        PendingBuild build = new PendingBuild(new Builder(config, filter, archiveName),
+                readerModel, staticFileModel, annotationsModel, pregeneratedModel);
+        recorder = build.recorder;
+        return build;
+    }
 
-            model = merged;
-            //LOGGER.info("OpenAPI document initialized: " + model);
+    /**
+     * Forgets what was set to initialize the document (the build has it now).
+     */
+    private void initialized() {
+        // Keep what's needed to build the document again if the static file is watched
+        if (config.staticFileWatch() != null) {
+            annotationsModel = null;
+            readerModel = null;
+            staticFileModel = null;
+            pregeneratedModel = null;
+        } else {
             clear();
         }
     }
 
     /**
-     * Filter the final model using a {@link OASFilter} configured by the app. If no filter has been configured, this will simply return the model unchanged.
-     *
-     * @param model
+     * Returns the current document, building it first if it is pending.
      */
-    private OpenAPI filterModel(OpenAPI model) {
-        if (model == null || filter == null) {
-            return model;
+    private Document current() {
+        Document current = document;
+        if (current == null) {
+            PendingBuild build = pending;
+            if (build == null) {
+                throw new IllegalStateException("Model not initialized yet");
+            }
+            current = build.await();
         }
-        //LOGGER.info("Filtering OpenAPI model using: " + filter);
-        return FilterUtil.applyFilter(filter, model);
+        return current;
     }
 
     private void set(Runnable action) {
         synchronized (INSTANCE) {
-            if (model != null) {
+            if (isSet()) {
                 modelAlreadyInitialized();
             }
             action.run();
@@ -204,8 +383,258 @@ public class OpenApiDocument {
         annotationsModel = null;
         readerModel = null;
         staticFileModel = null;
+        pregeneratedModel = null;
         filter = null;
         archiveName = null;
     }
 
+    private static OpenAPI obtain(Supplier<? extends OpenAPI> model) {
+        return model == null ? null : model.get();
+    }
+
+    /**
+     * Obtains the given model on a thread of its own, with the given context class loader.
+     * @param model
+     * @param contextClassLoader
+     */
+    private static CompletableFuture<OpenAPI> obtainAsync(Supplier<? extends OpenAPI> model, ClassLoader contextClassLoader) {
+        if (model == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<OpenAPI> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(model.get());
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        }, "OpenAPI model loader");
+        thread.setDaemon(true);
+        thread.setContextClassLoader(contextClassLoader);
+        thread.start();
+        return result;
+    }
+
+    /**
+     * Waits for the given future, throwing what it failed with as is.
+     * @param future
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs all phases required to produce the final OpenAPI document, with the config,
+     * filter and archive name it was created with.
+     */
+    private static final class Builder {
+
+        private final OpenApiConfig config;
+        private final OASFilter filter;
+        private final String archiveName;
+
+        /**
+         * Constructor.
+         * @param config
+         * @param filter
+         * @param archiveName
+         */
+        private Builder(OpenApiConfig config, OASFilter filter, String archiveName) {
+            this.config = config;
+            this.filter = filter;
+            this.archiveName = archiveName;
+        }
+
+        /**
+         * Runs all phases required to produce the final OpenAPI document.
+         *
+         * @param readerModel
+         * @param staticFileModel
+         * @param annotationsModel
+         */
+        private OpenAPI build(OpenAPI readerModel, OpenAPI staticFileModel, OpenAPI annotationsModel) {
+            OpenAPI merged;
+            try (Instrumentation.Measurement m = Instrumentation.start(Phase.MERGE)) {
+                // Phase 1: Use OASModelReader
+                merged = readerModel;
+
+                // Phase 2: Merge any static OpenAPI file packaged in the app
+                merged = MergeUtil.mergeObjects(merged, staticFileModel);
+
+                // Phase 3: Merge annotations
+                merged = MergeUtil.mergeObjects(merged, annotationsModel);
+            }
+
+            // Phase 4: Filter model via OASFilter
+            try (Instrumentation.Measurement m = Instrumentation.start(Phase.FILTER)) {
+                merged = filterModel(merged);
+            }
+
+            try (Instrumentation.Measurement m = Instrumentation.start(Phase.DEFAULTS)) {
+                // Phase 5: Default empty document if model == null
+                if (merged == null) {
+                    merged = new OpenAPIImpl();
+                    merged.setOpenapi(OpenApiConstants.OPEN_API_VERSION);
+                }
+
+                // Phase 6: Provide missing required elements
+                if (merged.getPaths() == null) {
+                    merged.setPaths(new PathsImpl());
+                }
+                if (merged.getInfo() == null) {
+                    merged.setInfo(new InfoImpl());
+                }
+                if (merged.getInfo().getTitle() == null) {
+                    merged.getInfo().setTitle((archiveName == null ? "Generated" : archiveName) + " API");
+                }
+                if (merged.getInfo().getVersion() == null) {
+                    merged.getInfo().setVersion("1.0");
+                }
+            }
+
+            // Phase 7: Use Config values to add Servers (global, pathItem, operation)
+            try (Instrumentation.Measurement m = Instrumentation.start(Phase.SERVERS)) {
+                ServersUtil.configureServers(config, merged);
+            }
+
+            return merged;
+        }
+
+        /**
+         * Filter the final model using a {@link OASFilter} configured by the app. If no filter has been configured, this will simply return the model unchanged.
+         *
+         * @param model
+         */
+        private OpenAPI filterModel(OpenAPI model) {
+            if (model == null || filter == null) {
+                return model;
+            }
+            //LOGGER.info("Filtering OpenAPI model using: " + filter);
+            return FilterUtil.applyFilter(filter, model);
+        }
+    }
+
+    /**
+     * A document that is initialized but not built yet.  It is built only once, by the
+     * first thread to need it; other threads wait for that build.  If the build fails,
+     * all callers get the failure.
+     */
+    private final class PendingBuild {
+
+        private final Builder builder;
+        private final Supplier<? extends OpenAPI> readerModel;
+        private final Supplier<? extends OpenAPI> staticFileModel;
+        private final Supplier<? extends OpenAPI> annotationsModel;
+        private final OpenAPI pregeneratedModel;
+        private final ClassLoader contextClassLoader;
+        private final InstrumentationRecorder recorder = new InstrumentationRecorder();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CompletableFuture<Document> result = new CompletableFuture<>();
+
+        /**
+         * Constructor.
+         * @param builder
+         * @param readerModel
+         * @param staticFileModel
+         * @param annotationsModel
+         * @param pregeneratedModel
+         */
+        private PendingBuild(Builder builder, Supplier<? extends OpenAPI> readerModel,
+                Supplier<? extends OpenAPI> staticFileModel, Supplier<? extends OpenAPI> annotationsModel,
+                OpenAPI pregeneratedModel) {
+            this.builder = builder;
+            this.readerModel = readerModel;
+            this.staticFileModel = staticFileModel;
+            this.annotationsModel = annotationsModel;
+            this.pregeneratedModel = pregeneratedModel;
+            // The models are obtained with the class loader of the initializing thread, wherever the build runs
+            this.contextClassLoader = Thread.currentThread().getContextClassLoader();
+        }
+
+        /**
+         * Builds the document in the calling thread.  The models are independent of each
+         * other, so the reader and static file models are obtained on threads of their own
+         * while the calling thread obtains the annotations model.  They are still merged in
+         * the order required by the spec.
+         */
+        private Document build() {
+            Thread thread = Thread.currentThread();
+            ClassLoader previous = thread.getContextClassLoader();
+            thread.setContextClassLoader(contextClassLoader);
+            Instrumentation.addListener(recorder);
+            try (Instrumentation.Measurement m = Instrumentation.start(Phase.INITIALIZE)) {
+                if (pregeneratedModel != null) {
+                    return new Document(builder.build(pregeneratedModel, null, null), null);
+                }
+                CompletableFuture<OpenAPI> reader = obtainAsync(readerModel, contextClassLoader);
+                CompletableFuture<OpenAPI> staticFile = obtainAsync(staticFileModel, contextClassLoader);
+                OpenAPI annotations = obtain(annotationsModel);
+                return new Document(builder.build(join(reader), join(staticFile), annotations), null);
+            } finally {
+                Instrumentation.removeListener(recorder);
+                thread.setContextClassLoader(previous);
+            }
+        }
+
+        /**
+         * Builds the document and makes it the current one, unless the build was already
+         * started by another thread.
+         */
+        private void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                Document built = build();
+                synchronized (INSTANCE) {
+                    // Unless the holder was reset in the meantime
+                    if (pending == this) {
+                        document = built;
+                        pending = null;
+                    }
+                }
+                result.complete(built);
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Returns the document, building it or waiting for it to be built.
+         */
+        private Document await() {
+            run();
+            return join(result);
+        }
+    }
+
+    /**
+     * An immutable snapshot of the final document and its rendered forms.
+     */
+    private static final class Document {
+
+        private final OpenAPI model;
+        private final Map<String, byte[]> rendered;
+
+        /**
+         * Constructor.
+         * @param model
+         * @param rendered
+         */
+        private Document(OpenAPI model, Map<String, byte[]> rendered) {
+            this.model = model;
+            this.rendered = rendered == null ? Collections.<String, byte[]>emptyMap() : Collections.unmodifiableMap(new HashMap<>(rendered));
+        }
+    }
+
 }
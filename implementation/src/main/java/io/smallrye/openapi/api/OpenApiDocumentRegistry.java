@@ -0,0 +1,84 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.api;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+
+/**
+ * Holds one OpenAPI document per JAX-RS Application of a deployment (e.g. a public and an
+ * admin API packaged in the same WAR), keyed by the fully qualified name of the Application
+ * class.  The resources of a deployment without any Application class are held under
+ * {@link #DEFAULT_APPLICATION}.  The registry cannot be modified, and is safe to use from
+ * any thread.
+ */
+public class OpenApiDocumentRegistry {
+
+    public static final String DEFAULT_APPLICATION = "";
+
+    private final Map<String, OpenAPI> documents;
+
+    /**
+     * Constructor.
+     * @param documents the documents by application class name, in the order they should be listed
+     */
+    public OpenApiDocumentRegistry(Map<String, ? extends OpenAPI> documents) {
+        this.documents = Collections.unmodifiableMap(new LinkedHashMap<>(documents));
+    }
+
+    /**
+     * Returns the document of the given application, or null if there is none.
+     * @param applicationClassName
+     */
+    public OpenAPI get(String applicationClassName) {
+        return documents.get(applicationClassName);
+    }
+
+    /**
+     * Returns the document of the given application, or null if there is none.
+     * @param applicationClass
+     */
+    public OpenAPI get(Class<?> applicationClass) {
+        return get(applicationClass.getName());
+    }
+
+    /**
+     * @return the names of the application classes that have a document
+     */
+    public Set<String> getApplications() {
+        return documents.keySet();
+    }
+
+    /**
+     * @return all documents, by application class name
+     */
+    public Map<String, OpenAPI> getDocuments() {
+        return documents;
+    }
+
+    /**
+     * @return the number of documents
+     */
+    public int size() {
+        return documents.size();
+    }
+
+}
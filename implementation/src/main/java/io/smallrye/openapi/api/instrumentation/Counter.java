@@ -0,0 +1,41 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.api.instrumentation;
+
+/**
+ * The things counted while building the OpenAPI document.
+ */
+public enum Counter {
+
+    /** Classes in the index of the deployment. */
+    CLASSES_INDEXED,
+    /** JAX-RS resource classes scanned. */
+    RESOURCE_CLASSES,
+    /** Operations created from JAX-RS resource methods. */
+    OPERATIONS,
+    /** Schemas generated from data object classes. */
+    SCHEMAS_GENERATED,
+    /** Data object classes whose schema was already generated. */
+    REGISTRY_HITS,
+    /** Schemas of generic and array types taken from the type schema cache. */
+    TYPE_SCHEMA_HITS,
+    /** Schemas of generic and array types generated (and added to the type schema cache). */
+    TYPE_SCHEMA_MISSES,
+    /** Bytes of JSON or YAML written, encoded in UTF-8. */
+    BYTES_SERIALIZED
+
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.api.instrumentation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Reports the phases and counts of building the OpenAPI document to the listeners: those
+ * found with the {@link ServiceLoader}, and those added (e.g. the recorder of each build of
+ * the {@link io.smallrye.openapi.api.OpenApiDocument}, for as long as it runs).
+ *
+ * <pre>
+ * try (Instrumentation.Measurement m = Instrumentation.start(Phase.FILTER)) {
+ *     // ...
+ * }
+ * Instrumentation.count(Counter.OPERATIONS, 1);
+ * </pre>
+ */
+public final class Instrumentation {
+
+    private static final List<InstrumentationListener> listeners = new CopyOnWriteArrayList<>();
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private static final boolean allocationSupported = isAllocationSupported();
+
+    static {
+        for (InstrumentationListener listener : ServiceLoader.load(InstrumentationListener.class,
+                Instrumentation.class.getClassLoader())) {
+            listeners.add(listener);
+        }
+    }
+
+    /**
+     * Constructor.
+     */
+    private Instrumentation() {
+    }
+
+    /**
+     * Adds a listener.
+     * @param listener
+     */
+    public static void addListener(InstrumentationListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     * @param listener
+     */
+    public static void removeListener(InstrumentationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts measuring a phase, which ends when the returned measurement is closed.
+     * @param phase
+     */
+    public static Measurement start(Phase phase) {
+        return new Measurement(phase);
+    }
+
+    /**
+     * Counts something.
+     * @param counter
+     * @param amount
+     */
+    public static void count(Counter counter, long amount) {
+        for (InstrumentationListener listener : listeners) {
+            listener.counted(counter, amount);
+        }
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or -1.
+     */
+    private static long allocatedBytes() {
+        if (!allocationSupported) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static boolean isAllocationSupported() {
+        try {
+            return threads instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+                    && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemoryEnabled();
+        } catch (LinkageError e) {
+            // Not a HotSpot based JVM
+            return false;
+        }
+    }
+
+    /**
+     * A phase being measured.  Only the allocations of the thread that started the
+     * measurement are counted, so the allocations of work it hands off to other threads
+     * are missed.
+     */
+    public static final class Measurement implements AutoCloseable {
+
+        private final Phase phase;
+        private final long startNanos;
+        private final long startBytes;
+
+        /**
+         * Constructor.
+         * @param phase
+         */
+        private Measurement(Phase phase) {
+            this.phase = phase;
+            this.startBytes = allocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Ends the phase.
+         * @see java.lang.AutoCloseable#close()
+         */
+        @Override
+        public void close() {
+            long nanos = System.nanoTime() - startNanos;
+            long bytes = startBytes < 0 ? -1 : allocatedBytes() - startBytes;
+            for (InstrumentationListener listener : listeners) {
+                listener.phaseCompleted(phase, nanos, bytes);
+            }
+        }
+    }
+
+}
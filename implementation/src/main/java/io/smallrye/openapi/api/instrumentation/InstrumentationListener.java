@@ -0,0 +1,44 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.api.instrumentation;
+
+/**
+ * Notified of the phases and counts of building the OpenAPI document.  Implementations
+ * are found with the {@link java.util.ServiceLoader}, or can be added with
+ * {@link Instrumentation#addListener(InstrumentationListener)}.  Listeners are called
+ * from whatever thread does the work (possibly several at once), so they must be
+ * thread safe, and they should be quick.
+ */
+public interface InstrumentationListener {
+
+    /**
+     * Called when a phase ends.
+     * @param phase
+     * @param nanos the wall time of the phase
+     * @param allocatedBytes the bytes allocated by the thread running the phase, or -1
+     *        if the JVM does not measure them
+     */
+    void phaseCompleted(Phase phase, long nanos, long allocatedBytes);
+
+    /**
+     * Called when something was counted.
+     * @param counter
+     * @param amount
+     */
+    void counted(Counter counter, long amount);
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.api.instrumentation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A listener that keeps the totals of each phase and counter in memory.
+ */
+public class InstrumentationRecorder implements InstrumentationListener {
+
+    private final LongAdder[] invocations = adders(Phase.values().length);
+    private final LongAdder[] nanos = adders(Phase.values().length);
+    private final LongAdder[] allocatedBytes = adders(Phase.values().length);
+    private final LongAdder[] counts = adders(Counter.values().length);
+
+    private static LongAdder[] adders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * @see io.smallrye.openapi.api.instrumentation.InstrumentationListener#phaseCompleted(io.smallrye.openapi.api.instrumentation.Phase, long, long)
+     */
+    @Override
+    public void phaseCompleted(Phase phase, long nanos, long allocatedBytes) {
+        this.invocations[phase.ordinal()].increment();
+        this.nanos[phase.ordinal()].add(nanos);
+        if (allocatedBytes > 0) {
+            this.allocatedBytes[phase.ordinal()].add(allocatedBytes);
+        }
+    }
+
+    /**
+     * @see io.smallrye.openapi.api.instrumentation.InstrumentationListener#counted(io.smallrye.openapi.api.instrumentation.Counter, long)
+     */
+    @Override
+    public void counted(Counter counter, long amount) {
+        counts[counter.ordinal()].add(amount);
+    }
+
+    /**
+     * @param phase
+     * @return the number of times the phase completed
+     */
+    public long getInvocations(Phase phase) {
+        return invocations[phase.ordinal()].sum();
+    }
+
+    /**
+     * @param phase
+     * @param unit
+     * @return the total wall time of the phase
+     */
+    public long getTime(Phase phase, TimeUnit unit) {
+        return unit.convert(nanos[phase.ordinal()].sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param phase
+     * @return the total bytes allocated by the threads running the phase
+     */
+    public long getAllocatedBytes(Phase phase) {
+        return allocatedBytes[phase.ordinal()].sum();
+    }
+
+    /**
+     * @param counter
+     * @return the total count
+     */
+    public long getCount(Counter counter) {
+        return counts[counter.ordinal()].sum();
+    }
+
+    /**
+     * Sets everything back to zero.
+     */
+    public void reset() {
+        for (LongAdder[] adders : new LongAdder[][] { invocations, nanos, allocatedBytes, counts }) {
+            for (LongAdder adder : adders) {
+                adder.reset();
+            }
+        }
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            if (getInvocations(phase) > 0) {
+                summary.append(phase).append(": ").append(getTime(phase, TimeUnit.MILLISECONDS)).append(" ms, ")
+                        .append(getAllocatedBytes(phase)).append(" bytes allocated\n");
+            }
+        }
+        for (Counter counter : Counter.values()) {
+            summary.append(counter).append(": ").append(getCount(counter)).append('\n');
+        }
+        return summary.toString();
+    }
+
+}
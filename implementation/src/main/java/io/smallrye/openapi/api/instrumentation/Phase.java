@@ -0,0 +1,44 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.api.instrumentation;
+
+/**
+ * The measured phases of building the OpenAPI document.  Phases may be nested (e.g.
+ * {@link #DATA_OBJECTS} happens during {@link #SCAN}), so their times do not add up.
+ */
+public enum Phase {
+
+    /** Indexing the classes of the deployment. */
+    INDEX,
+    /** Scanning the index for JAX-RS and OpenAPI annotations. */
+    SCAN,
+    /** Introspecting the data object classes into schemas, during the scan. */
+    DATA_OBJECTS,
+    /** Merging the reader, static file and annotations models. */
+    MERGE,
+    /** Applying the OASFilter. */
+    FILTER,
+    /** Providing the required elements missing from the document. */
+    DEFAULTS,
+    /** Adding the servers from the config. */
+    SERVERS,
+    /** Serializing the document into JSON or YAML. */
+    SERIALIZE,
+    /** All of {@link io.smallrye.openapi.api.OpenApiDocument#initialize()}. */
+    INITIALIZE
+
+}
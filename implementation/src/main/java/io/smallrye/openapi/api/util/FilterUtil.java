@@ -18,9 +18,12 @@ package io.smallrye.openapi.api.util;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 
 import org.eclipse.microprofile.openapi.OASFilter;
 import org.eclipse.microprofile.openapi.models.Components;
@@ -67,11 +70,14 @@ public class FilterUtil {
     }
 
     /**
-     * Apply the given filter to the given model.
+     * Apply the given filter to the given model.  A model instance that appears in several
+     * places (e.g. a schema read from a YAML alias) is passed to the filter only once, and
+     * the result of that call applies to every place it appears in.
      * @param filter
      * @param model
      */
     public static final OpenAPI applyFilter(OASFilter filter, OpenAPI model) {
+        filter = new OncePerInstanceFilter(filter);
         filterComponents(filter, model.getComponents());
         filterExtensions(filter, model.getExtensions());
         filterExternalDocs(filter, model.getExternalDocs());
@@ -881,4 +887,106 @@ public class FilterUtil {
         filterExternalDocs(filter, model.getExternalDocs());
     }
 
+    /**
+     * Calls the filter it wraps at most once per model instance, and returns the result of
+     * that first call for every later one.
+     */
+    private static class OncePerInstanceFilter implements OASFilter {
+
+        private final OASFilter delegate;
+        private final Map<Object, Optional<?>> results = new IdentityHashMap<>();
+
+        /**
+         * Constructor.
+         * @param delegate
+         */
+        OncePerInstanceFilter(OASFilter delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Returns the result of the given filter method for the given model, calling it
+         * only if it has not been called for that model instance yet.
+         * @param model
+         * @param method
+         */
+        @SuppressWarnings("unchecked")
+        private <T> T once(T model, Function<T, T> method) {
+            if (model == null) {
+                return method.apply(null);
+            }
+            Optional<?> result = results.get(model);
+            if (result == null) {
+                result = Optional.ofNullable(method.apply(model));
+                results.put(model, result);
+            }
+            return (T) result.orElse(null);
+        }
+
+        @Override
+        public PathItem filterPathItem(PathItem pathItem) {
+            return once(pathItem, delegate::filterPathItem);
+        }
+
+        @Override
+        public Operation filterOperation(Operation operation) {
+            return once(operation, delegate::filterOperation);
+        }
+
+        @Override
+        public Parameter filterParameter(Parameter parameter) {
+            return once(parameter, delegate::filterParameter);
+        }
+
+        @Override
+        public Header filterHeader(Header header) {
+            return once(header, delegate::filterHeader);
+        }
+
+        @Override
+        public RequestBody filterRequestBody(RequestBody requestBody) {
+            return once(requestBody, delegate::filterRequestBody);
+        }
+
+        @Override
+        public APIResponse filterAPIResponse(APIResponse apiResponse) {
+            return once(apiResponse, delegate::filterAPIResponse);
+        }
+
+        @Override
+        public Schema filterSchema(Schema schema) {
+            return once(schema, delegate::filterSchema);
+        }
+
+        @Override
+        public SecurityScheme filterSecurityScheme(SecurityScheme securityScheme) {
+            return once(securityScheme, delegate::filterSecurityScheme);
+        }
+
+        @Override
+        public Server filterServer(Server server) {
+            return once(server, delegate::filterServer);
+        }
+
+        @Override
+        public Tag filterTag(Tag tag) {
+            return once(tag, delegate::filterTag);
+        }
+
+        @Override
+        public Link filterLink(Link link) {
+            return once(link, delegate::filterLink);
+        }
+
+        @Override
+        public Callback filterCallback(Callback callback) {
+            return once(callback, delegate::filterCallback);
+        }
+
+        @Override
+        public void filterOpenAPI(OpenAPI openAPI) {
+            delegate.filterOpenAPI(openAPI);
+        }
+    }
+
 }
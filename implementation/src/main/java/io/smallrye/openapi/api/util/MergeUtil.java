@@ -68,7 +68,9 @@ public class MergeUtil {
     }
 
     /**
-     * Generic merge of two objects of the same type.
+     * Generic merge of two objects of the same type.  The second object is merged into the
+     * first one, in place.  A model instance shared by several parts of the first object (e.g.
+     * one read from a YAML alias) stays shared, so what is merged into it shows in all of them.
      * @param object1
      * @param object2
      */
@@ -216,6 +218,9 @@ public class MergeUtil {
         if (values1 == null && values2 != null) {
             return values2;
         }
+        if (values1.isEmpty()) {
+            return values2;
+        }
 
         if (values1.get(0) instanceof String) {
             return mergeStringLists(values1, values2);
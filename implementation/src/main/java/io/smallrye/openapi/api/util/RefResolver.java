@@ -0,0 +1,378 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.api.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.eclipse.microprofile.openapi.models.Components;
+import org.eclipse.microprofile.openapi.models.Constructible;
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+import org.eclipse.microprofile.openapi.models.Operation;
+import org.eclipse.microprofile.openapi.models.PathItem;
+import org.eclipse.microprofile.openapi.models.Reference;
+import org.eclipse.microprofile.openapi.models.headers.Header;
+import org.eclipse.microprofile.openapi.models.info.Info;
+import org.eclipse.microprofile.openapi.models.links.Link;
+import org.eclipse.microprofile.openapi.models.media.Encoding;
+import org.eclipse.microprofile.openapi.models.media.MediaType;
+import org.eclipse.microprofile.openapi.models.media.Schema;
+import org.eclipse.microprofile.openapi.models.parameters.Parameter;
+import org.eclipse.microprofile.openapi.models.parameters.RequestBody;
+import org.eclipse.microprofile.openapi.models.responses.APIResponse;
+import org.eclipse.microprofile.openapi.models.responses.APIResponses;
+import org.eclipse.microprofile.openapi.models.security.OAuthFlows;
+import org.eclipse.microprofile.openapi.models.security.SecurityScheme;
+import org.eclipse.microprofile.openapi.models.servers.Server;
+import org.eclipse.microprofile.openapi.models.tags.Tag;
+
+/**
+ * Resolves local JSON Pointer references (e.g. "#/components/schemas/Pet") against
+ * an OAI data model.  Every node of the model is indexed once by its JSON Pointer so
+ * that resolving a $ref is a single hash lookup rather than a walk from the root.
+ *
+ * When part of the model changes, only the affected subtree needs to be re-indexed
+ * by calling {@link #invalidate(String)} with the pointer of the changed node.
+ *
+ * A model that contains itself (e.g. read from a YAML document with a recursive alias)
+ * cannot be indexed, and a chain of $refs that leads back to itself cannot be resolved;
+ * both fail with an {@link IllegalArgumentException} rather than recursing forever.
+ *
+ * This class is not thread safe.
+ */
+public class RefResolver {
+
+    private static final String ROOT = "";
+
+    private final OpenAPI model;
+    private final Map<String, Object> index = new HashMap<>();
+    private final NavigableSet<String> pointers = new TreeSet<>();
+
+    /**
+     * Constructor.
+     * @param model
+     */
+    public RefResolver(OpenAPI model) {
+        this.model = model;
+        indexNode(ROOT, model, newPath());
+    }
+
+    /**
+     * Resolves the given local reference and returns the model node it points to, or
+     * null if the reference is external or cannot be resolved.
+     * @param ref
+     */
+    public Object resolve(String ref) {
+        if (ref == null || !ref.startsWith("#")) {
+            return null;
+        }
+        return index.get(ref.substring(1));
+    }
+
+    /**
+     * Resolves the given local reference, returning null if the node it points to
+     * is not of the expected type.
+     * @param ref
+     * @param type
+     */
+    public <T> T resolve(String ref, Class<T> type) {
+        Object node = resolve(ref);
+        if (type.isInstance(node)) {
+            return type.cast(node);
+        }
+        return null;
+    }
+
+    /**
+     * Resolves the given local reference, following the $ref of the node it points to (and
+     * so on) until reaching a node that is not itself a reference.  Returns null if any
+     * reference along the way is external or cannot be resolved.
+     * @param ref
+     * @throws IllegalArgumentException if the references form a cycle
+     */
+    public Object resolveReference(String ref) {
+        Set<String> visited = new LinkedHashSet<>();
+        Object node = null;
+        while (ref != null) {
+            if (!visited.add(ref)) {
+                throw new IllegalArgumentException("Cyclic $ref: " + String.join(" -> ", visited) + " -> " + ref);
+            }
+            node = resolve(ref);
+            ref = node instanceof Reference ? ((Reference<?>) node).getRef() : null;
+        }
+        return node;
+    }
+
+    /**
+     * Returns all indexed nodes, keyed by JSON Pointer (without the leading '#').
+     */
+    public Map<String, Object> nodes() {
+        return Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * Returns the JSON Pointers (without the leading '#') of all nodes that are currently
+     * indexed, in sorted order.
+     */
+    public List<String> pointers() {
+        return new ArrayList<>(pointers);
+    }
+
+    /**
+     * Re-indexes the subtree found at the given JSON Pointer (without the leading '#').
+     * This should be called whenever the node at that location (or anything below it)
+     * has been added, replaced or removed.  If the node no longer exists, its stale
+     * entries are simply dropped.
+     * @param pointer
+     */
+    public void invalidate(String pointer) {
+        if (pointer.startsWith("#")) {
+            pointer = pointer.substring(1);
+        }
+        index.remove(pointer);
+        pointers.remove(pointer);
+        // All descendants have a key of the form <pointer>/...
+        SortedSet<String> descendants = pointers.subSet(pointer + "/", pointer + "0");
+        for (String descendant : descendants) {
+            index.remove(descendant);
+        }
+        descendants.clear();
+
+        Object node = navigate(pointer);
+        if (node != null) {
+            indexNode(pointer, node, newPath());
+        }
+    }
+
+    /**
+     * Escapes a single reference token as per RFC 6901.
+     * @param token
+     */
+    public static String escape(String token) {
+        if (token.indexOf('~') == -1 && token.indexOf('/') == -1) {
+            return token;
+        }
+        return token.replace("~", "~0").replace("/", "~1");
+    }
+
+    /**
+     * Unescapes a single reference token as per RFC 6901.
+     * @param token
+     */
+    public static String unescape(String token) {
+        if (token.indexOf('~') == -1) {
+            return token;
+        }
+        return token.replace("~1", "/").replace("~0", "~");
+    }
+
+    /**
+     * Walks the model from the root to find the node at the given pointer.
+     * @param pointer
+     */
+    private Object navigate(String pointer) {
+        Object node = model;
+        if (pointer.isEmpty()) {
+            return node;
+        }
+        for (String token : pointer.substring(1).split("/", -1)) {
+            node = children(node).get(unescape(token));
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Indexes the given node and all of its descendants.
+     * @param pointer
+     * @param node
+     * @param path the nodes from the root down to (excluding) the given one
+     */
+    private void indexNode(String pointer, Object node, Set<Object> path) {
+        if (!path.add(node)) {
+            throw new IllegalArgumentException("Cyclic model: the node at #" + pointer + " contains itself");
+        }
+        index.put(pointer, node);
+        pointers.add(pointer);
+        for (Map.Entry<String, Object> child : children(node).entrySet()) {
+            indexNode(pointer + "/" + escape(child.getKey()), child.getValue(), path);
+        }
+        path.remove(node);
+    }
+
+    private static Set<Object> newPath() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Returns the (non-null) structural children of the given model node, keyed by
+     * the property name used for them in the serialized document.
+     * @param node
+     */
+    @SuppressWarnings("rawtypes")
+    private static Map<String, Object> children(Object node) {
+        Map<String, Object> children = new LinkedHashMap<>();
+        if (node instanceof OpenAPI) {
+            OpenAPI openApi = (OpenAPI) node;
+            add(children, "info", openApi.getInfo());
+            add(children, "externalDocs", openApi.getExternalDocs());
+            add(children, "servers", openApi.getServers());
+            add(children, "security", openApi.getSecurity());
+            add(children, "tags", openApi.getTags());
+            add(children, "paths", openApi.getPaths());
+            add(children, "components", openApi.getComponents());
+        } else if (node instanceof Components) {
+            Components components = (Components) node;
+            add(children, "schemas", components.getSchemas());
+            add(children, "responses", components.getResponses());
+            add(children, "parameters", components.getParameters());
+            add(children, "examples", components.getExamples());
+            add(children, "requestBodies", components.getRequestBodies());
+            add(children, "headers", components.getHeaders());
+            add(children, "securitySchemes", components.getSecuritySchemes());
+            add(children, "links", components.getLinks());
+            add(children, "callbacks", components.getCallbacks());
+        } else if (node instanceof PathItem) {
+            PathItem pathItem = (PathItem) node;
+            add(children, "get", pathItem.getGET());
+            add(children, "put", pathItem.getPUT());
+            add(children, "post", pathItem.getPOST());
+            add(children, "delete", pathItem.getDELETE());
+            add(children, "options", pathItem.getOPTIONS());
+            add(children, "head", pathItem.getHEAD());
+            add(children, "patch", pathItem.getPATCH());
+            add(children, "trace", pathItem.getTRACE());
+            add(children, "parameters", pathItem.getParameters());
+            add(children, "servers", pathItem.getServers());
+        } else if (node instanceof Operation) {
+            Operation operation = (Operation) node;
+            add(children, "externalDocs", operation.getExternalDocs());
+            add(children, "parameters", operation.getParameters());
+            add(children, "requestBody", operation.getRequestBody());
+            add(children, "responses", operation.getResponses());
+            add(children, "callbacks", operation.getCallbacks());
+            add(children, "security", operation.getSecurity());
+            add(children, "servers", operation.getServers());
+        } else if (node instanceof Parameter) {
+            Parameter parameter = (Parameter) node;
+            add(children, "schema", parameter.getSchema());
+            add(children, "examples", parameter.getExamples());
+            add(children, "content", parameter.getContent());
+        } else if (node instanceof RequestBody) {
+            add(children, "content", ((RequestBody) node).getContent());
+        } else if (node instanceof APIResponses) {
+            APIResponses responses = (APIResponses) node;
+            addEntries(children, responses);
+            add(children, "default", responses.getDefault());
+        } else if (node instanceof APIResponse) {
+            APIResponse response = (APIResponse) node;
+            add(children, "headers", response.getHeaders());
+            add(children, "content", response.getContent());
+            add(children, "links", response.getLinks());
+        } else if (node instanceof MediaType) {
+            MediaType mediaType = (MediaType) node;
+            add(children, "schema", mediaType.getSchema());
+            add(children, "examples", mediaType.getExamples());
+            add(children, "encoding", mediaType.getEncoding());
+        } else if (node instanceof Encoding) {
+            add(children, "headers", ((Encoding) node).getHeaders());
+        } else if (node instanceof Header) {
+            Header header = (Header) node;
+            add(children, "schema", header.getSchema());
+            add(children, "examples", header.getExamples());
+            add(children, "content", header.getContent());
+        } else if (node instanceof Schema) {
+            Schema schema = (Schema) node;
+            add(children, "discriminator", schema.getDiscriminator());
+            add(children, "not", schema.getNot());
+            add(children, "properties", schema.getProperties());
+            add(children, "additionalProperties", schema.getAdditionalProperties());
+            add(children, "externalDocs", schema.getExternalDocs());
+            add(children, "xml", schema.getXml());
+            add(children, "items", schema.getItems());
+            add(children, "allOf", schema.getAllOf());
+            add(children, "anyOf", schema.getAnyOf());
+            add(children, "oneOf", schema.getOneOf());
+        } else if (node instanceof Link) {
+            add(children, "server", ((Link) node).getServer());
+        } else if (node instanceof SecurityScheme) {
+            add(children, "flows", ((SecurityScheme) node).getFlows());
+        } else if (node instanceof OAuthFlows) {
+            OAuthFlows flows = (OAuthFlows) node;
+            add(children, "implicit", flows.getImplicit());
+            add(children, "password", flows.getPassword());
+            add(children, "clientCredentials", flows.getClientCredentials());
+            add(children, "authorizationCode", flows.getAuthorizationCode());
+        } else if (node instanceof Server) {
+            add(children, "variables", ((Server) node).getVariables());
+        } else if (node instanceof Tag) {
+            add(children, "externalDocs", ((Tag) node).getExternalDocs());
+        } else if (node instanceof Info) {
+            Info info = (Info) node;
+            add(children, "contact", info.getContact());
+            add(children, "license", info.getLicense());
+        } else if (node instanceof Map) {
+            // Paths, Callback, Content, ServerVariables, Scopes, SecurityRequirement and
+            // all of the plain maps (e.g. schema properties).
+            addEntries(children, (Map) node);
+        } else if (node instanceof List) {
+            List list = (List) node;
+            for (int idx = 0; idx < list.size(); idx++) {
+                add(children, String.valueOf(idx), list.get(idx));
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Adds all structural entries of the given map as children.
+     * @param children
+     * @param map
+     */
+    @SuppressWarnings("rawtypes")
+    private static void addEntries(Map<String, Object> children, Map map) {
+        for (Object entry : map.entrySet()) {
+            Map.Entry mapEntry = (Map.Entry) entry;
+            add(children, String.valueOf(mapEntry.getKey()), mapEntry.getValue());
+        }
+    }
+
+    /**
+     * Adds the given child, but only if it is a model node (or a collection of them).
+     * @param children
+     * @param name
+     * @param child
+     */
+    private static void add(Map<String, Object> children, String name, Object child) {
+        if (child instanceof Constructible || child instanceof Map || child instanceof List) {
+            children.put(name, child);
+        }
+    }
+
+}
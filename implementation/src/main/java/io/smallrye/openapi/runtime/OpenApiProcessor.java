@@ -18,19 +18,35 @@ package io.smallrye.openapi.runtime;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.eclipse.microprofile.config.ConfigProvider;
 import org.eclipse.microprofile.openapi.OASFilter;
 import org.eclipse.microprofile.openapi.OASModelReader;
 import org.eclipse.microprofile.openapi.models.OpenAPI;
+import org.jboss.jandex.IndexView;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.Node;
 import org.jboss.shrinkwrap.api.classloader.ShrinkWrapClassLoader;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 import io.smallrye.openapi.api.OpenApiConfig;
+import io.smallrye.openapi.api.OpenApiConstants;
+import io.smallrye.openapi.api.OpenApiDocumentRegistry;
 import io.smallrye.openapi.api.models.OpenAPIImpl;
+import io.smallrye.openapi.api.util.MergeUtil;
+import io.smallrye.openapi.runtime.io.ExternalRefResolver;
+import io.smallrye.openapi.runtime.io.ModelSnapshot;
 import io.smallrye.openapi.runtime.io.OpenApiParser;
 import io.smallrye.openapi.runtime.io.OpenApiSerializer.Format;
+import io.smallrye.openapi.runtime.scanner.IncrementalAnnotationScanner;
 import io.smallrye.openapi.runtime.scanner.OpenApiAnnotationScanner;
 
 /**
@@ -40,6 +56,29 @@ import io.smallrye.openapi.runtime.scanner.OpenApiAnnotationScanner;
 @SuppressWarnings("rawtypes")
 public class OpenApiProcessor {
 
+    private static final String[] STATIC_FILES = {
+        "/META-INF/openapi.yaml",
+        "/WEB-INF/classes/META-INF/openapi.yaml",
+        "/META-INF/openapi.yml",
+        "/WEB-INF/classes/META-INF/openapi.yml",
+        "/META-INF/openapi.json",
+        "/WEB-INF/classes/META-INF/openapi.json"
+    };
+
+    private static final String[] PREGENERATED_FILES = {
+        "/" + OpenApiConstants.PREGENERATED_SNAPSHOT,
+        OpenApiConstants.WEB_ARCHIVE_CLASS_PREFIX + OpenApiConstants.PREGENERATED_SNAPSHOT,
+        "/" + OpenApiConstants.PREGENERATED_JSON,
+        OpenApiConstants.WEB_ARCHIVE_CLASS_PREFIX + OpenApiConstants.PREGENERATED_JSON,
+        "/" + OpenApiConstants.PREGENERATED_YAML,
+        OpenApiConstants.WEB_ARCHIVE_CLASS_PREFIX + OpenApiConstants.PREGENERATED_YAML
+    };
+
+    private static final String[] FRAGMENT_DIRS = {
+        "/META-INF/openapi",
+        "/WEB-INF/classes/META-INF/openapi"
+    };
+
     /**
      * Creates a MP Config instance from the given ShrinkWrap archive.
      * @param archive
@@ -53,45 +92,128 @@ public class OpenApiProcessor {
     }
 
     /**
-     * Find a static file located in the deployment and, if it exists, parse it and
-     * return the resulting model.  If no static file is found, returns null.  If an
-     * error is encountered while parsing the file then a runtime exception is
-     * thrown.
+     * Find the document pre-generated at build time (by the maven plugin) in the deployment
+     * and, if it exists, read it and return the resulting model.  The model already includes
+     * the results of the model reader, the static files and the annotations.  Returns null
+     * if there is no pre-generated document, or if it is disabled in the config.
+     *
+     * The other models are still produced by their own methods, whether or not there is a
+     * pre-generated document.  Pass the result to
+     * {@link io.smallrye.openapi.api.OpenApiDocument#modelFromPregenerated(OpenAPI)}, which
+     * then takes precedence over them; set the other models as suppliers so that they are
+     * not produced at all in that case.
      * @param config
      * @param archive
      */
-    public static OpenAPIImpl modelFromStaticFile(OpenApiConfig config, Archive archive) {
-        Format format = Format.YAML;
-
-        // Check for the file in both META-INF and WEB-INF/classes/META-INF
-        Node node = archive.get("/META-INF/openapi.yaml");
-        if (node == null) {
-            node = archive.get("/WEB-INF/classes/META-INF/openapi.yml");
+    public static OpenAPIImpl modelFromPregeneratedFile(OpenApiConfig config, Archive archive) {
+        String path = findPregeneratedFile(config, archive);
+        if (path == null) {
+            return null;
         }
-        if (node == null) {
-            node = archive.get("/META-INF/openapi.yml");
+        try (InputStream stream = archive.get(path).getAsset().openStream()) {
+            if (path.endsWith(OpenApiConstants.PREGENERATED_SNAPSHOT)) {
+                return ModelSnapshot.read(stream);
+            }
+            return OpenApiParser.parse(stream, path.endsWith(OpenApiConstants.JSON_SUFFIX) ? Format.JSON : Format.YAML);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        if (node == null) {
-            node = archive.get("/WEB-INF/classes/META-INF/openapi.yml");
+    }
+
+    /**
+     * Returns the path of the pre-generated document to use, or null.
+     * @param config
+     * @param archive
+     */
+    private static String findPregeneratedFile(OpenApiConfig config, Archive archive) {
+        if (config.pregeneratedDisable()) {
+            return null;
         }
-        if (node == null) {
-            node = archive.get("/META-INF/openapi.json");
-            format = Format.JSON;
+        for (String candidate : PREGENERATED_FILES) {
+            if (archive.contains(candidate)) {
+                return candidate;
+            }
         }
-        if (node == null) {
-            node = archive.get("/WEB-INF/classes/META-INF/openapi.json");
-            format = Format.JSON;
+        return null;
+    }
+
+    /**
+     * Find a static file located in the deployment and, if it exists, parse it and
+     * return the resulting model.  Any fragments found in the META-INF/openapi directory
+     * are then merged into it, in file name order, except those that are the target of an
+     * external $ref (their content is already inlined where they are referenced).  If
+     * neither a static file nor any fragment is found, returns null.  If an error is
+     * encountered while parsing a file then a runtime exception is thrown.
+     * @param config
+     * @param archive
+     */
+    public static OpenAPIImpl modelFromStaticFile(OpenApiConfig config, Archive archive) {
+        // Check for the file in both META-INF and WEB-INF/classes/META-INF
+        String path = null;
+        for (String candidate : STATIC_FILES) {
+            if (archive.contains(candidate)) {
+                path = candidate;
+                break;
+            }
         }
 
-        if (node == null) {
+        List<String> fragments = findFragments(archive);
+        if (path == null && fragments.isEmpty()) {
             return null;
         }
 
-        try (InputStream stream = node.getAsset().openStream()) {
-            return OpenApiParser.parse(stream, format);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        // Parse all files in parallel (sharing the referenced documents), but merge them in order
+        ExternalRefResolver resolver = new ExternalRefResolver(archive);
+        List<String> paths = new ArrayList<>();
+        if (path != null) {
+            paths.add(path);
+        }
+        paths.addAll(fragments);
+        List<JsonNode> trees = paths.parallelStream()
+                .map(p -> resolver.resolve(ExternalRefResolver.archiveLocation(p)))
+                .collect(Collectors.toList());
+
+        // A fragment that another file references is already inlined there, don't merge it twice
+        Set<URI> referenced = resolver.referencedLocations();
+        OpenAPIImpl merged = null;
+        for (int i = 0; i < paths.size(); i++) {
+            boolean isStaticFile = path != null && i == 0;
+            if (isStaticFile || !referenced.contains(ExternalRefResolver.archiveLocation(paths.get(i)))) {
+                merged = MergeUtil.mergeObjects(merged, OpenApiParser.parse(trees.get(i)));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Finds all fragment files (json, yaml or yml) in the META-INF/openapi directory
+     * of the archive, ordered by file name.
+     * @param archive
+     */
+    private static List<String> findFragments(Archive archive) {
+        List<String> fragments = new ArrayList<>();
+        for (String dir : FRAGMENT_DIRS) {
+            Node dirNode = archive.get(dir);
+            if (dirNode == null) {
+                continue;
+            }
+            for (Node child : dirNode.getChildren()) {
+                String childPath = child.getPath().get();
+                if (child.getAsset() != null && isFragment(childPath)) {
+                    fragments.add(childPath);
+                }
+            }
         }
+        fragments.sort(Comparator.comparing((String p) -> p.substring(p.lastIndexOf('/') + 1)).thenComparing(p -> p));
+        return fragments;
+    }
+
+    /**
+     * Returns true if the given path has the extension of an OpenAPI document.
+     * @param path
+     */
+    private static boolean isFragment(String path) {
+        return path.endsWith(".yaml") || path.endsWith(".yml") || path.endsWith(OpenApiConstants.JSON_SUFFIX);
     }
 
     /**
@@ -110,6 +232,57 @@ public class OpenApiProcessor {
         return scanner.scan();
     }
 
+    /**
+     * Create an {@link OpenAPI} model by scanning the deployment for relevant JAX-RS and
+     * OpenAPI annotations, reusing what the given scanner found in the previous version of
+     * the deployment for everything that did not change.  If scanning is disabled, this
+     * method returns null.
+     * @param config
+     * @param archive
+     * @param scanner
+     */
+    public static OpenAPIImpl modelFromAnnotations(OpenApiConfig config, Archive archive, IncrementalAnnotationScanner scanner) {
+        if (config.scanDisable()) {
+            return null;
+        }
+
+        return scanner.scan(archive);
+    }
+
+    /**
+     * Create one {@link OpenAPI} model per JAX-RS Application of the deployment by scanning
+     * it for relevant JAX-RS and OpenAPI annotations.  See
+     * {@link OpenApiAnnotationScanner#scanPerApplication(OpenApiConfig)}.  If scanning is disabled, this
+     * method returns null.
+     * @param config
+     * @param archive
+     */
+    public static OpenApiDocumentRegistry modelsFromAnnotations(OpenApiConfig config, Archive archive) {
+        if (config.scanDisable()) {
+            return null;
+        }
+
+        OpenApiAnnotationScanner scanner = new OpenApiAnnotationScanner(config, archive);
+        return scanner.scanPerApplication(config);
+    }
+
+    /**
+     * Create an {@link OpenAPI} model by scanning the given, already built, index of the
+     * deployment for relevant JAX-RS and OpenAPI annotations.  The scan configuration is
+     * applied to the index, but nothing is indexed again.  If scanning is disabled, this
+     * method returns null.
+     * @param config
+     * @param index
+     */
+    public static OpenAPIImpl modelFromAnnotations(OpenApiConfig config, IndexView index) {
+        if (config.scanDisable()) {
+            return null;
+        }
+
+        OpenApiAnnotationScanner scanner = new OpenApiAnnotationScanner(config, index);
+        return scanner.scan();
+    }
+
 
     /**
      * Instantiate the configured {@link OASModelReader} and invoke it. If no reader is configured, 
@@ -0,0 +1,265 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.smallrye.openapi.api.OpenApiConfig;
+import io.smallrye.openapi.api.OpenApiDocument;
+import io.smallrye.openapi.runtime.io.ExternalRefResolver;
+import io.smallrye.openapi.runtime.io.OpenApiParser;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer.Format;
+
+/**
+ * Watches the static file configured via "mp.openapi.extensions.static-file.watch"
+ * (and any file it references) for changes.  When one of them changes, only that
+ * file is parsed again; the merge, filter and servers phases are then re-run on a
+ * background thread and the new document (along with its JSON and YAML renderings)
+ * is published to {@link OpenApiDocument}.  Requests served in the meantime keep
+ * seeing the previous document.
+ *
+ * The reloader is not started by {@link OpenApiDocument} itself (which knows nothing of
+ * files): the container that initializes the document creates and starts it if a static
+ * file is to be watched, and closes it when the application is undeployed.  Because
+ * merging modifies the models involved, the reloader must be created with the reader and
+ * annotations models <em>before</em> the document is initialized:
+ *
+ * <pre>
+ * OpenAPI readerModel = OpenApiProcessor.modelFromReader(config, loader);
+ * OpenAPI annotationsModel = OpenApiProcessor.modelFromAnnotations(config, archive);
+ * StaticFileReloader reloader = null;
+ * if (config.staticFileWatch() != null) {
+ *     reloader = new StaticFileReloader(config, readerModel, annotationsModel);
+ * }
+ * OpenApiDocument.INSTANCE.config(config);
+ * OpenApiDocument.INSTANCE.modelFromReader(readerModel);
+ * OpenApiDocument.INSTANCE.modelFromAnnotations(annotationsModel);
+ * ...
+ * OpenApiDocument.INSTANCE.initialize();
+ * if (reloader != null) {
+ *     // Publishes the document built from the watched file, already rendered
+ *     reloader.start();
+ * }
+ * ...
+ * reloader.close();
+ * </pre>
+ *
+ * A static file that cannot be read or parsed (e.g. after a broken edit) does not replace
+ * the current document; the failure is reported to the failure handler, which by default
+ * logs it as a warning through java.util.logging.
+ */
+public class StaticFileReloader implements Closeable {
+
+    private static final long DEBOUNCE_MILLIS = 100;
+
+    private static final Logger LOG = Logger.getLogger(StaticFileReloader.class.getName());
+
+    private final URI root;
+    private final JsonNode readerTree;
+    private final JsonNode annotationsTree;
+    private final ExternalRefResolver resolver = new ExternalRefResolver(null);
+    private final Set<Path> watchedDirectories = new HashSet<>();
+    private final Consumer<? super Exception> failureHandler;
+
+    private WatchService watcher;
+    private Thread thread;
+
+    /**
+     * Constructor.
+     * @param config
+     * @param readerModel the model produced by the OASModelReader (may be null)
+     * @param annotationsModel the model produced by scanning (may be null)
+     */
+    public StaticFileReloader(OpenApiConfig config, OpenAPI readerModel, OpenAPI annotationsModel) {
+        this(config, readerModel, annotationsModel, null);
+    }
+
+    /**
+     * Constructor.
+     * @param config
+     * @param readerModel the model produced by the OASModelReader (may be null)
+     * @param annotationsModel the model produced by scanning (may be null)
+     * @param failureHandler is told when the document cannot be reloaded, or null to log a warning
+     */
+    public StaticFileReloader(OpenApiConfig config, OpenAPI readerModel, OpenAPI annotationsModel,
+            Consumer<? super Exception> failureHandler) {
+        String file = config.staticFileWatch();
+        if (file == null) {
+            throw new IllegalStateException("No static file to watch has been configured");
+        }
+        this.root = Paths.get(file).toAbsolutePath().normalize().toUri();
+        // Keep pristine copies of the other models, they get modified by every merge
+        this.readerTree = readerModel == null ? null : OpenApiSerializer.serializeToTree(readerModel);
+        this.annotationsTree = annotationsModel == null ? null : OpenApiSerializer.serializeToTree(annotationsModel);
+        URI location = this.root;
+        this.failureHandler = failureHandler != null ? failureHandler
+                : e -> LOG.log(Level.WARNING, "Failed to reload the OpenAPI document from " + location, e);
+    }
+
+    /**
+     * Builds the document from the watched static file, publishes it (along with its
+     * renderings) and starts watching for further changes.  Must be called after the
+     * document has been initialized.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        reload();
+        thread = new Thread(this::run, "smallrye-openapi-static-file-reloader");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (thread != null) {
+            thread.interrupt();
+            watcher.close();
+            thread = null;
+        }
+    }
+
+    /**
+     * Processes file system events until closed.
+     */
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<URI> changed = new HashSet<>();
+                WatchKey key = watcher.take();
+                while (key != null) {
+                    collectChanges(key, changed);
+                    // Editors often write a file in several steps, wait for them to settle
+                    key = watcher.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+
+                boolean stale = false;
+                for (URI location : changed) {
+                    if (location.equals(root) || resolver.locations().contains(location)) {
+                        resolver.invalidate(location);
+                        stale = true;
+                    }
+                }
+                if (stale) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Adds the locations of all files affected by the events of the given key.
+     * @param key
+     * @param changed
+     */
+    private void collectChanges(WatchKey key, Set<URI> changed) {
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost, assume everything changed
+                changed.add(root);
+                changed.addAll(resolver.locations());
+                continue;
+            }
+            Path file = dir.resolve((Path) event.context());
+            changed.add(file.toAbsolutePath().normalize().toUri());
+        }
+        key.reset();
+    }
+
+    /**
+     * Builds and publishes a new document.  If the static file cannot be read (e.g. it is
+     * only half written) the current document is left in place, and the failure is reported.
+     */
+    private void reload() {
+        try {
+            OpenAPI staticFileModel = OpenApiParser.parse(resolver.resolve(root));
+            OpenAPI readerModel = readerTree == null ? null : OpenApiParser.parse(readerTree);
+            OpenAPI annotationsModel = annotationsTree == null ? null : OpenApiParser.parse(annotationsTree);
+
+            OpenAPI model = OpenApiDocument.INSTANCE.build(readerModel, staticFileModel, annotationsModel);
+
+            Map<String, byte[]> rendered = new HashMap<>();
+            for (Format format : Format.values()) {
+                rendered.put(format.getMimeType(), OpenApiSerializer.serialize(model, format).getBytes(StandardCharsets.UTF_8));
+            }
+            OpenApiDocument.INSTANCE.publish(model, rendered);
+        } catch (IOException | RuntimeException e) {
+            failureHandler.accept(e);
+        } finally {
+            watchDirectories();
+        }
+    }
+
+    /**
+     * Makes sure the directories of the static file and of all files it references are
+     * being watched.
+     */
+    private void watchDirectories() {
+        Set<URI> locations = new HashSet<>(resolver.locations());
+        locations.add(root);
+        for (URI location : locations) {
+            Path dir = Paths.get(location).getParent();
+            if (dir != null && watchedDirectories.add(dir)) {
+                try {
+                    dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                            StandardWatchEventKinds.ENTRY_DELETE);
+                } catch (IOException | ClosedWatchServiceException e) {
+                    watchedDirectories.remove(dir);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,416 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.Node;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.smallrye.openapi.api.OpenApiConstants;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer.Format;
+
+/**
+ * Resolves external $ref values (e.g. "schemas/pet.yaml#/Pet") found in static
+ * OpenAPI files by inlining the referenced content.  Referenced documents may live
+ * elsewhere in the deployment archive or on the local filesystem ("file:" URIs).
+ * References using any other scheme (e.g. http) are never fetched and are left
+ * untouched.
+ *
+ * Every referenced document is read and parsed at most once per resolver instance,
+ * and documents that do not depend on one another are parsed in parallel.  Documents
+ * are read on a dedicated pool of daemon threads (or the given executor), never on the
+ * common fork/join pool, as reading them blocks.  A document that fails to be read is
+ * not cached, so it is read again the next time it is needed.
+ */
+@SuppressWarnings("rawtypes")
+public class ExternalRefResolver {
+
+    private static final String FILE_SCHEME = "file";
+
+    private final Archive archive;
+    private final Executor executor;
+    private final Map<URI, CompletableFuture<JsonNode>> documents = new ConcurrentHashMap<>();
+    private final Set<URI> referenced = ConcurrentHashMap.newKeySet();
+    // The YAML anchor names of the nodes of each document
+    private final Map<URI, Map<JsonNode, String>> anchorNames = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     * @param archive the deployment archive, or null if only filesystem documents will be resolved
+     */
+    public ExternalRefResolver(Archive archive) {
+        this(archive, null);
+    }
+
+    /**
+     * Constructor.
+     * @param archive the deployment archive, or null if only filesystem documents will be resolved
+     * @param executor reads the documents, or null to use a pool shared by all resolvers
+     */
+    public ExternalRefResolver(Archive archive, Executor executor) {
+        this.archive = archive;
+        this.executor = executor != null ? executor : ReaderPool.EXECUTOR;
+    }
+
+    /**
+     * Returns the location of the document found at the given path within the archive.
+     * @param path
+     */
+    public static URI archiveLocation(String path) {
+        try {
+            return new URI(null, null, path, null);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Reads the document at the given location and returns its tree with all external
+     * references inlined.  The tree returned is a copy, which the caller may modify.
+     * @param location
+     */
+    public JsonNode resolve(URI location) {
+        return resolve(location, null);
+    }
+
+    /**
+     * Reads the document at the given location and returns its tree with all external
+     * references inlined.  The tree returned is a copy, which the caller may modify.  The
+     * names of the YAML anchors its nodes were read with are added to the given map (see
+     * {@link OpenApiParser#parse(JsonNode, Map, Map)}).
+     * @param location
+     * @param names the anchor names by node, must compare nodes by identity; may be null
+     */
+    public JsonNode resolve(URI location, Map<JsonNode, String> names) {
+        JsonNode root = document(location);
+        Deque<String> stack = new ArrayDeque<>();
+        stack.push(location + "#");
+        return inline(root, location, stack, new IdentityHashMap<>(), names);
+    }
+
+    /**
+     * Removes the document at the given location from the cache so that it will be
+     * read again the next time it is needed.
+     * @param location
+     */
+    public void invalidate(URI location) {
+        documents.remove(location);
+        anchorNames.remove(location);
+    }
+
+    /**
+     * Returns the locations of all documents read so far.
+     */
+    public Set<URI> locations() {
+        return documents.keySet();
+    }
+
+    /**
+     * Returns the locations of all documents that were the target of an external
+     * reference in any of the documents resolved so far.
+     */
+    public Set<URI> referencedLocations() {
+        return referenced;
+    }
+
+    /**
+     * Returns the (cached) parsed content of the document at the given location.
+     * @param location
+     */
+    private JsonNode document(URI location) {
+        try {
+            return load(location).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Starts loading the document at the given location (unless it is already loaded
+     * or loading).  Once a document has been parsed, loading of all the documents it
+     * references is started as well, so that independent documents are parsed in
+     * parallel rather than one after another.
+     * @param location
+     */
+    private CompletableFuture<JsonNode> load(URI location) {
+        CompletableFuture<JsonNode> document = documents.get(location);
+        if (document != null) {
+            return document;
+        }
+        CompletableFuture<JsonNode> loading = new CompletableFuture<>();
+        document = documents.putIfAbsent(location, loading);
+        if (document != null) {
+            return document;
+        }
+        executor.execute(() -> {
+            try {
+                JsonNode tree = read(location);
+                prefetch(tree, location);
+                loading.complete(tree);
+            } catch (RuntimeException | Error e) {
+                // Not cached, the next attempt reads the document again
+                documents.remove(location, loading);
+                loading.completeExceptionally(e);
+            }
+        });
+        return loading;
+    }
+
+    /**
+     * Starts loading all documents referenced from the given tree.
+     * @param node
+     * @param base
+     */
+    private void prefetch(JsonNode node, URI base) {
+        if (node.isObject()) {
+            URI target = externalTarget(node, base);
+            if (target != null && !documents.containsKey(target)) {
+                load(target);
+            }
+        }
+        for (JsonNode child : node) {
+            prefetch(child, base);
+        }
+    }
+
+    /**
+     * Reads and parses the document at the given location.
+     * @param location
+     */
+    private JsonNode read(URI location) {
+        Format format = location.getPath().endsWith(OpenApiConstants.JSON_SUFFIX) ? Format.JSON : Format.YAML;
+        try (InputStream stream = open(location)) {
+            if (format == Format.JSON) {
+                return OpenApiParser.readTree(stream, format);
+            }
+            Map<JsonNode, String> names = new IdentityHashMap<>();
+            JsonNode tree = YamlUtil.readTree(stream, names);
+            anchorNames.put(location, names);
+            return tree;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read referenced document: " + location, e);
+        }
+    }
+
+    /**
+     * Opens the document at the given location.
+     * @param location
+     * @throws IOException
+     */
+    private InputStream open(URI location) throws IOException {
+        if (FILE_SCHEME.equals(location.getScheme())) {
+            return Files.newInputStream(Paths.get(location));
+        }
+        Node node = archive == null ? null : archive.get(location.getPath());
+        if (node == null || node.getAsset() == null) {
+            throw new NoSuchFileException(location.toString());
+        }
+        return node.getAsset().openStream();
+    }
+
+    /**
+     * Returns a copy of the given node with all external (and, within external documents,
+     * document-local) references replaced by the content they point to.  A reference
+     * that would lead back to a node currently being inlined is kept as a reference,
+     * rewritten relative to the root document.
+     * @param node
+     * @param base the location of the document the node belongs to
+     * @param stack the references currently being inlined
+     * @param copies copies made so far, so that shared nodes (e.g. YAML aliases) stay shared
+     * @param names collects the anchor names of the copies, may be null
+     */
+    private JsonNode inline(JsonNode node, URI base, Deque<String> stack, Map<JsonNode, JsonNode> copies,
+            Map<JsonNode, String> names) {
+        if (!node.isContainerNode()) {
+            return node;
+        }
+        JsonNode copy = copies.get(node);
+        if (copy != null) {
+            return copy;
+        }
+        if (node.isObject()) {
+            JsonNode ref = node.get(OpenApiConstants.PROP_$REF);
+            if (ref != null && ref.isTextual()) {
+                copy = inlineRef(node, ref.asText(), base, stack, copies, names);
+            }
+            if (copy == null) {
+                ObjectNode object = JsonUtil.objectNode();
+                Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    object.set(field.getKey(), inline(field.getValue(), base, stack, copies, names));
+                }
+                copy = object;
+            }
+        } else {
+            ArrayNode array = JsonUtil.arrayNode();
+            for (JsonNode item : node) {
+                array.add(inline(item, base, stack, copies, names));
+            }
+            copy = array;
+        }
+        copies.put(node, copy);
+        Map<JsonNode, String> documentNames = anchorNames.get(base);
+        if (names != null && documentNames != null && documentNames.containsKey(node)) {
+            names.put(copy, documentNames.get(node));
+        }
+        return copy;
+    }
+
+    /**
+     * Inlines a single reference, returning null if it should be kept as a reference.
+     * @param node
+     * @param ref
+     * @param base
+     * @param stack
+     * @param copies
+     * @param names
+     */
+    private JsonNode inlineRef(JsonNode node, String ref, URI base, Deque<String> stack, Map<JsonNode, JsonNode> copies,
+            Map<JsonNode, String> names) {
+        URI target;
+        String fragment;
+        int hashIdx = ref.indexOf('#');
+        if (hashIdx == 0) {
+            // Local refs in the root document are left for the model to resolve.
+            if (base.equals(root(stack))) {
+                return null;
+            }
+            target = base;
+            fragment = ref.substring(1);
+        } else {
+            target = externalTarget(node, base);
+            if (target == null) {
+                return null;
+            }
+            referenced.add(target);
+            fragment = hashIdx == -1 ? "" : ref.substring(hashIdx + 1);
+        }
+
+        String key = target + "#" + fragment;
+        if (stack.contains(key)) {
+            // Cycle: keep a reference, but make it meaningful from the root document.
+            ObjectNode cycleRef = JsonUtil.objectNode();
+            cycleRef.put(OpenApiConstants.PROP_$REF, relativize(root(stack), target) + "#" + fragment);
+            return cycleRef;
+        }
+
+        JsonNode content = document(target);
+        if (!fragment.isEmpty()) {
+            content = content.at(JsonPointer.compile(fragment));
+            if (content.isMissingNode()) {
+                throw new IllegalStateException("Unable to resolve $ref: " + ref + " (from " + base + ")");
+            }
+        }
+
+        stack.push(key);
+        try {
+            return inline(content, target, stack, copies, names);
+        } finally {
+            stack.pop();
+        }
+    }
+
+    /**
+     * Returns the location of the root document being resolved.
+     * @param stack
+     */
+    private static URI root(Deque<String> stack) {
+        String rootKey = stack.peekLast();
+        return URI.create(rootKey.substring(0, rootKey.length() - 1));
+    }
+
+    /**
+     * Returns the location of the given target relative to the root document (if possible).
+     * @param root
+     * @param target
+     */
+    private static String relativize(URI root, URI target) {
+        if (target.equals(root)) {
+            return "";
+        }
+        return root.resolve(".").relativize(target).toString();
+    }
+
+    /**
+     * Returns the location of the document referenced by the given node, or null if the
+     * node is not a reference to a document that can be read (local refs, remote URLs).
+     * @param node
+     * @param base
+     */
+    private static URI externalTarget(JsonNode node, URI base) {
+        JsonNode ref = node.get(OpenApiConstants.PROP_$REF);
+        if (ref == null || !ref.isTextual() || ref.asText().startsWith("#")) {
+            return null;
+        }
+        String value = ref.asText();
+        int hashIdx = value.indexOf('#');
+        String path = hashIdx == -1 ? value : value.substring(0, hashIdx);
+        URI target;
+        try {
+            target = base.resolve(new URI(path)).normalize();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        if (target.getScheme() != null && !FILE_SCHEME.equals(target.getScheme())) {
+            return null;
+        }
+        return target;
+    }
+
+    /**
+     * Holds the pool the documents are read on by default, created on first use.
+     */
+    private static class ReaderPool {
+        private static final AtomicInteger threads = new AtomicInteger();
+        static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "OpenAPI document reader " + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.smallrye.openapi.api.models.OpenAPIImpl;
+
+/**
+ * A compact binary form of an OpenAPI model, which is much faster to read than JSON or
+ * YAML: strings (mostly property names) are written once and then referenced by number,
+ * and no text has to be tokenized.  Objects that appear more than once in the model are
+ * written once, and read back as a single shared instance.
+ *
+ * The format is only meant to be read by the same version of this library that wrote it.
+ */
+public final class ModelSnapshot {
+
+    private static final int MAGIC = 0x4F415301;
+
+    private static final int NULL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int LONG = 3;
+    private static final int DOUBLE = 4;
+    private static final int BIG_INTEGER = 5;
+    private static final int BIG_DECIMAL = 6;
+    private static final int STRING = 7;
+    private static final int ARRAY = 8;
+    private static final int OBJECT = 9;
+    private static final int BACKREF = 10;
+
+    private static final JsonNodeFactory factory = JsonNodeFactory.instance;
+
+    /**
+     * Constructor.
+     */
+    private ModelSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of the given model.
+     * @param model
+     * @param stream
+     * @throws IOException
+     */
+    public static void write(OpenAPI model, OutputStream stream) throws IOException {
+        writeTree(OpenApiSerializer.serializeToTree(model), stream);
+    }
+
+    /**
+     * Reads a model from a snapshot.
+     * @param stream
+     * @throws IOException
+     */
+    public static OpenAPIImpl read(InputStream stream) throws IOException {
+        return OpenApiParser.parse(readTree(stream));
+    }
+
+    /**
+     * Writes the given json tree in the snapshot format.
+     * @param tree
+     * @param stream
+     * @throws IOException
+     */
+    public static void writeTree(JsonNode tree, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        new Writer(out).write(tree);
+        out.flush();
+    }
+
+    /**
+     * Reads a json tree written by {@link #writeTree(JsonNode, OutputStream)}.
+     * @param stream
+     * @throws IOException
+     */
+    public static JsonNode readTree(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an OpenAPI model snapshot");
+        }
+        return new Reader(in).read();
+    }
+
+    /**
+     * Writes the nodes of a tree, numbering strings and container nodes as they are
+     * first written.
+     */
+    private static class Writer {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Map<JsonNode, Integer> containers = new IdentityHashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void write(JsonNode node) throws IOException {
+            if (node.isContainerNode()) {
+                Integer id = containers.get(node);
+                if (id != null) {
+                    out.writeByte(BACKREF);
+                    writeInt(id);
+                    return;
+                }
+                containers.put(node, containers.size());
+            }
+            if (node.isObject()) {
+                out.writeByte(OBJECT);
+                writeInt(node.size());
+                Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    writeString(field.getKey());
+                    write(field.getValue());
+                }
+            } else if (node.isArray()) {
+                out.writeByte(ARRAY);
+                writeInt(node.size());
+                for (JsonNode element : node) {
+                    write(element);
+                }
+            } else if (node.isTextual()) {
+                out.writeByte(STRING);
+                writeString(node.textValue());
+            } else if (node.isBoolean()) {
+                out.writeByte(node.booleanValue() ? TRUE : FALSE);
+            } else if (node.isBigInteger()) {
+                out.writeByte(BIG_INTEGER);
+                writeString(node.bigIntegerValue().toString());
+            } else if (node.isIntegralNumber()) {
+                out.writeByte(LONG);
+                out.writeLong(node.longValue());
+            } else if (node.isBigDecimal()) {
+                out.writeByte(BIG_DECIMAL);
+                writeString(node.decimalValue().toString());
+            } else if (node.isNumber()) {
+                out.writeByte(DOUBLE);
+                out.writeDouble(node.doubleValue());
+            } else {
+                out.writeByte(NULL);
+            }
+        }
+
+        /**
+         * Writes a string the first time it is seen, and its number afterwards.
+         * @param value
+         * @throws IOException
+         */
+        private void writeString(String value) throws IOException {
+            Integer id = strings.get(value);
+            if (id != null) {
+                writeInt(id + 1);
+                return;
+            }
+            strings.put(value, strings.size());
+            writeInt(0);
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        /**
+         * Writes a non-negative int in as few bytes as possible.
+         * @param value
+         * @throws IOException
+         */
+        private void writeInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+    }
+
+    /**
+     * Reads the nodes of a tree, numbering strings and container nodes in the same order
+     * as the {@link Writer}.
+     */
+    private static class Reader {
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+        private final List<JsonNode> containers = new ArrayList<>();
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        JsonNode read() throws IOException {
+            int type = in.readUnsignedByte();
+            switch (type) {
+                case OBJECT:
+                    ObjectNode object = factory.objectNode();
+                    containers.add(object);
+                    for (int i = readInt(); i > 0; i--) {
+                        String name = readString();
+                        object.set(name, read());
+                    }
+                    return object;
+                case ARRAY:
+                    ArrayNode array = factory.arrayNode();
+                    containers.add(array);
+                    for (int i = readInt(); i > 0; i--) {
+                        array.add(read());
+                    }
+                    return array;
+                case BACKREF:
+                    return containers.get(readInt());
+                case STRING:
+                    return factory.textNode(readString());
+                case TRUE:
+                    return factory.booleanNode(true);
+                case FALSE:
+                    return factory.booleanNode(false);
+                case LONG:
+                    long value = in.readLong();
+                    return value == (int) value ? factory.numberNode((int) value) : factory.numberNode(value);
+                case DOUBLE:
+                    return factory.numberNode(in.readDouble());
+                case BIG_INTEGER:
+                    return factory.numberNode(new BigInteger(readString()));
+                case BIG_DECIMAL:
+                    return factory.numberNode(new BigDecimal(readString()));
+                case NULL:
+                    return factory.nullNode();
+                default:
+                    throw new IOException("Corrupt OpenAPI model snapshot");
+            }
+        }
+
+        private String readString() throws IOException {
+            int id = readInt();
+            if (id > 0) {
+                return strings.get(id - 1);
+            }
+            byte[] bytes = new byte[readInt()];
+            in.readFully(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+
+        private int readInt() throws IOException {
+            int value = 0;
+            for (int shift = 0;; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+}
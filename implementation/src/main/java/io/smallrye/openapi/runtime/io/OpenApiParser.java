@@ -24,6 +24,8 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -71,7 +73,6 @@ import org.eclipse.microprofile.openapi.models.tags.Tag;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 
 import io.smallrye.openapi.api.OpenApiConstants;
 import io.smallrye.openapi.api.models.ComponentsImpl;
@@ -121,6 +122,8 @@ public class OpenApiParser {
     private static final Map<String, In> SECURITY_SCHEME_IN_LOOKUP = new LinkedHashMap<>();
     private static final Map<String, org.eclipse.microprofile.openapi.models.parameters.Parameter.In> PARAMETER_IN_LOOKUP = new LinkedHashMap<>();
 
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
     static {
         Style[] encodingStyleValues = Style.values();
         for (Style style : encodingStyleValues) {
@@ -191,26 +194,91 @@ public class OpenApiParser {
      * @param format
      */
     public static final OpenAPIImpl parse(InputStream stream, Format format) throws IOException {
-        ObjectMapper mapper;
-        if (format == Format.JSON) {
-            mapper = new ObjectMapper();
-        } else {
-            mapper = new ObjectMapper(new YAMLFactory());
-        }
-        JsonNode tree = mapper.readTree(stream);
+        return parse(readTree(stream, format));
+    }
 
+    /**
+     * Parses the given (already read) json tree into an OpenAPI data model.
+     * @param tree
+     */
+    public static final OpenAPIImpl parse(JsonNode tree) {
         OpenApiParser parser = new OpenApiParser(tree);
         return parser.parse();
     }
 
+    /**
+     * Parses the given (already read) json tree into an OpenAPI data model.  The names of
+     * the YAML anchors of the shared schemas and responses read are added to the given
+     * model map, for {@link OpenApiSerializer#serialize(OpenAPI, Format, Map)}.
+     * @param tree
+     * @param anchorNames the anchor names by node (see {@link YamlUtil#readTree(InputStream, Map)})
+     * @param modelAnchorNames receives the anchor names by model, must compare models by identity
+     */
+    public static final OpenAPIImpl parse(JsonNode tree, Map<JsonNode, String> anchorNames,
+            Map<Object, String> modelAnchorNames) {
+        OpenApiParser parser = new OpenApiParser(tree, anchorNames);
+        OpenAPIImpl model = parser.parse();
+        modelAnchorNames.putAll(parser.modelAnchorNames);
+        return model;
+    }
+
+    /**
+     * Parses the given (already read) json tree into a schema model.
+     * @param tree
+     */
+    public static final Schema parseSchema(JsonNode tree) {
+        return new OpenApiParser(tree).readSchema(tree);
+    }
+
+    /**
+     * Reads the content of the given stream into a json tree.  The format of the
+     * stream must be specified.
+     * @param stream
+     * @param format
+     */
+    public static final JsonNode readTree(InputStream stream, Format format) throws IOException {
+        if (format == Format.JSON) {
+            return JSON_MAPPER.readTree(stream);
+        }
+        return YamlUtil.readTree(stream);
+    }
+
     private final JsonNode tree;
+    private final Map<JsonNode, String> anchorNames;
+    // Nodes may be shared within the tree (e.g. YAML aliases), so are their models.  Shared
+    // models stay shared when merged (MergeUtil writes into them) and filters see each of
+    // them once (see FilterUtil).
+    private final Map<JsonNode, Object> models = new IdentityHashMap<>();
+    private final Map<Object, String> modelAnchorNames = new IdentityHashMap<>();
 
     /**
      * Constructor.
      * @param tree
      */
     public OpenApiParser(JsonNode tree) {
+        this(tree, Collections.emptyMap());
+    }
+
+    /**
+     * Constructor.
+     * @param tree
+     * @param anchorNames the YAML anchor names by node
+     */
+    public OpenApiParser(JsonNode tree, Map<JsonNode, String> anchorNames) {
         this.tree = tree;
+        this.anchorNames = anchorNames;
+    }
+
+    /**
+     * Remembers the name of the YAML anchor the given node was read with (if any) for its model.
+     * @param node
+     * @param model
+     */
+    private void anchor(JsonNode node, Object model) {
+        String name = anchorNames.get(node);
+        if (name != null) {
+            modelAnchorNames.put(model, name);
+        }
     }
 
     /**
@@ -463,7 +531,14 @@ public class OpenApiParser {
             return null;
         }
 
+        Object existing = models.get(node);
+        if (existing instanceof Schema) {
+            return (Schema) existing;
+        }
+
         SchemaImpl model = new SchemaImpl();
+        models.put(node, model);
+        anchor(node, model);
         model.setRef(JsonUtil.stringProperty(node, OpenApiConstants.PROP_$REF));
         model.setFormat(JsonUtil.stringProperty(node, OpenApiConstants.PROP_FORMAT));
         model.setTitle(JsonUtil.stringProperty(node, OpenApiConstants.PROP_TITLE));
@@ -569,7 +644,14 @@ public class OpenApiParser {
         if (node == null || !node.isObject()) {
             return null;
         }
+        Object existing = models.get(node);
+        if (existing instanceof APIResponse) {
+            return (APIResponse) existing;
+        }
+
         APIResponseImpl model = new APIResponseImpl();
+        models.put(node, model);
+        anchor(node, model);
         model.setRef(JsonUtil.stringProperty(node, OpenApiConstants.PROP_$REF));
         model.setDescription(JsonUtil.stringProperty(node, OpenApiConstants.PROP_DESCRIPTION));
         model.setHeaders(readHeaders(node.get(OpenApiConstants.PROP_HEADERS)));
@@ -19,6 +19,8 @@ package io.smallrye.openapi.runtime.io;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -65,6 +67,9 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
 
 import io.smallrye.openapi.api.OpenApiConstants;
+import io.smallrye.openapi.api.instrumentation.Counter;
+import io.smallrye.openapi.api.instrumentation.Instrumentation;
+import io.smallrye.openapi.api.instrumentation.Phase;
 
 /**
  * Class used to serialize an OpenAPI
@@ -92,27 +97,110 @@ public class OpenApiSerializer {
      * @param format the serialization format
      */
     public static final String serialize(OpenAPI oai, Format format) throws IOException {
-        try {
+        return serialize(oai, format, false);
+    }
+
+    /**
+     * Serializes the given OpenAPI object into either JSON or YAML and returns it as a string.
+     * When writing YAML with anchors enabled, schemas and responses that are shared by several
+     * parts of the model (e.g. because they were read from YAML aliases) are written once with
+     * an anchor and then referenced with aliases.
+     * @param oai the OpenAPI object
+     * @param format the serialization format
+     * @param anchors whether to write shared YAML nodes as anchors and aliases
+     */
+    public static final String serialize(OpenAPI oai, Format format, boolean anchors) throws IOException {
+        return serialize(oai, format, anchors ? Collections.emptyMap() : null);
+    }
+
+    /**
+     * Serializes the given OpenAPI object into either JSON or YAML and returns it as a string.
+     * When writing YAML, schemas and responses that are shared by several parts of the model
+     * are written once with an anchor and then referenced with aliases.  The anchors are named
+     * after the given names (e.g. those collected by
+     * {@link OpenApiParser#parse(JsonNode, Map, Map)}) where there is one.
+     * @param oai the OpenAPI object
+     * @param format the serialization format
+     * @param anchorNames the anchor names by model, must compare models by identity; null to
+     *        write YAML without anchors
+     */
+    public static final String serialize(OpenAPI oai, Format format, Map<Object, String> anchorNames) throws IOException {
+        try (Instrumentation.Measurement m = Instrumentation.start(Phase.SERIALIZE)) {
             OpenApiSerializer serializer = new OpenApiSerializer(oai);
+            if (anchorNames != null) {
+                serializer.modelAnchorNames.putAll(anchorNames);
+            }
             JsonNode tree = serializer.serialize();
 
+            String serialized;
             ObjectMapper mapper;
             if (format == Format.JSON) {
                 mapper = new ObjectMapper();
-                return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(tree);
+                serialized = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(tree);
             } else {
                 YAMLFactory factory = new YAMLFactory();
                 factory.enable(YAMLGenerator.Feature.MINIMIZE_QUOTES);
                 factory.enable(YAMLGenerator.Feature.ALWAYS_QUOTE_NUMBERS_AS_STRINGS);
-                mapper = new ObjectMapper(factory);
-                return mapper.writer().writeValueAsString(tree);
+                if (anchorNames != null) {
+                    serialized = YamlUtil.writeTree(tree, factory, serializer.anchorNames);
+                } else {
+                    mapper = new ObjectMapper(factory);
+                    serialized = mapper.writer().writeValueAsString(tree);
+                }
             }
+            Instrumentation.count(Counter.BYTES_SERIALIZED, utf8Length(serialized));
+            return serialized;
         } catch (JsonProcessingException e) {
             throw new IOException(e);
         }
     }
 
+    /**
+     * Returns the length of the given document encoded in UTF-8 (as it is served), without
+     * encoding it.  Unpaired surrogates are encoded as a single replacement character.
+     * @param document
+     */
+    private static long utf8Length(String document) {
+        long length = 0;
+        for (int i = 0; i < document.length(); i++) {
+            char c = document.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (!Character.isSurrogate(c)) {
+                length += 3;
+            } else if (Character.isHighSurrogate(c) && i + 1 < document.length() && Character.isLowSurrogate(document.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 1;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Serializes the given OpenAPI object into a json/yaml tree.
+     * @param oai the OpenAPI object
+     */
+    public static final JsonNode serializeToTree(OpenAPI oai) {
+        return new OpenApiSerializer(oai).serialize();
+    }
+
+    /**
+     * Serializes the given schema into a json tree.
+     * @param schema
+     */
+    public static final JsonNode serializeToTree(Schema schema) {
+        return new OpenApiSerializer(null).schemaNode(schema);
+    }
+
     private final OpenAPI oai;
+    private final Map<Object, ObjectNode> written = new IdentityHashMap<>();
+    // The anchor names of the shared models, and of the nodes they are written to
+    private final Map<Object, String> modelAnchorNames = new IdentityHashMap<>();
+    private final Map<JsonNode, String> anchorNames = new IdentityHashMap<>();
 
     /**
      * Constructor.
@@ -457,8 +545,35 @@ public class OpenApiSerializer {
         if (model == null) {
             return;
         }
-        ObjectNode node = parent.putObject(name);
-        writeSchemaToNode(node, model);
+        parent.set(name, schemaNode(model));
+    }
+
+    /**
+     * Remembers the anchor name of the given model (if it has one) for the node it is written to.
+     * @param model
+     * @param node
+     */
+    private void anchor(Object model, JsonNode node) {
+        String name = modelAnchorNames.get(model);
+        if (name != null) {
+            anchorNames.put(node, name);
+        }
+    }
+
+    /**
+     * Returns the node for the given {@link Schema}.  A schema instance that is referenced
+     * from several places is only written once and its node shared.
+     * @param model
+     */
+    private ObjectNode schemaNode(Schema model) {
+        ObjectNode node = written.get(model);
+        if (node == null) {
+            node = JsonUtil.objectNode();
+            written.put(model, node);
+            anchor(model, node);
+            writeSchemaToNode(node, model);
+        }
+        return node;
     }
 
     /**
@@ -603,7 +718,14 @@ public class OpenApiSerializer {
         if (model == null) {
             return;
         }
-        ObjectNode node = parent.putObject(name);
+        ObjectNode node = written.get(model);
+        if (node != null) {
+            parent.set(name, node);
+            return;
+        }
+        node = parent.putObject(name);
+        written.put(model, node);
+        anchor(model, node);
         JsonUtil.stringProperty(node, OpenApiConstants.PROP_$REF, model.getRef());
         JsonUtil.stringProperty(node, OpenApiConstants.PROP_DESCRIPTION, model.getDescription());
         writeHeaders(node, model.getHeaders());
@@ -740,7 +862,7 @@ public class OpenApiSerializer {
         }
         ArrayNode schemasNode = parent.putArray(propertyName);
         for (Schema schema : models) {
-            writeSchemaToNode(schemasNode.addObject(), schema);
+            schemasNode.add(schemaNode(schema));
         }
     }
 
@@ -0,0 +1,329 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLParser;
+
+/**
+ * Reads and writes YAML json trees while preserving anchors and aliases.  When
+ * reading, every alias is resolved to the very same node instance as its anchor
+ * (rather than to a copy, or to the name of the anchor).  When writing, any node
+ * instance that appears more than once in the tree is written once with an anchor
+ * and then referenced with aliases, keeping the anchor names that were read where
+ * they are known.
+ */
+public final class YamlUtil {
+
+    private static final JsonNodeFactory factory = JsonNodeFactory.instance;
+    private static final ObjectMapper READ_MAPPER = new ObjectMapper(new YAMLFactory());
+
+    /**
+     * Constructor.
+     */
+    private YamlUtil() {
+    }
+
+    /**
+     * Reads the YAML content of the given stream into a json tree.
+     * @param stream
+     * @throws IOException
+     */
+    public static JsonNode readTree(InputStream stream) throws IOException {
+        return readTree(stream, null);
+    }
+
+    /**
+     * Reads the YAML content of the given stream into a json tree, and records the
+     * name of the anchor of every anchored container node in the given map (if any).
+     * An alias used within the very node it refers to is rejected, as it would make the
+     * tree (and the model read from it) cyclic, and so is an alias of an anchor that
+     * was not read (or that the parser does not report).
+     * @param stream
+     * @param anchorNames the anchor names by node, must compare nodes by identity
+     * @throws IOException
+     */
+    public static JsonNode readTree(InputStream stream, Map<JsonNode, String> anchorNames) throws IOException {
+        try (YAMLParser parser = (YAMLParser) READ_MAPPER.getFactory().createParser(stream)) {
+            if (parser.nextToken() == null) {
+                return factory.missingNode();
+            }
+            return readValue(parser, new Anchors(anchorNames));
+        }
+    }
+
+    /**
+     * Reads the value at the current token.
+     * @param parser
+     * @param anchors
+     * @throws IOException
+     */
+    private static JsonNode readValue(YAMLParser parser, Anchors anchors) throws IOException {
+        if (parser.isCurrentAlias()) {
+            String alias = parser.getText();
+            if (anchors.open.contains(alias)) {
+                throw new JsonParseException(parser, "Recursive YAML alias *" + alias
+                        + ": the alias is used within the node it refers to");
+            }
+            JsonNode node = anchors.nodes.get(alias);
+            if (node == null) {
+                throw new JsonParseException(parser, "Unknown YAML alias *" + alias
+                        + ": no anchor of that name was read before it");
+            }
+            return node;
+        }
+        String anchor = parser.getObjectId();
+        JsonNode node;
+        JsonToken token = parser.getCurrentToken();
+        switch (token) {
+            case START_OBJECT:
+                ObjectNode object = factory.objectNode();
+                anchors.open(anchor);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    parser.nextToken();
+                    object.set(name, readValue(parser, anchors));
+                }
+                anchors.register(anchor, object);
+                return object;
+            case START_ARRAY:
+                ArrayNode array = factory.arrayNode();
+                anchors.open(anchor);
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    array.add(readValue(parser, anchors));
+                }
+                anchors.register(anchor, array);
+                return array;
+            case VALUE_STRING:
+                node = factory.textNode(parser.getText());
+                break;
+            case VALUE_NUMBER_INT:
+                switch (parser.getNumberType()) {
+                    case INT:
+                        node = factory.numberNode(parser.getIntValue());
+                        break;
+                    case LONG:
+                        node = factory.numberNode(parser.getLongValue());
+                        break;
+                    default:
+                        node = factory.numberNode(parser.getBigIntegerValue());
+                }
+                break;
+            case VALUE_NUMBER_FLOAT:
+                if (parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL) {
+                    node = factory.numberNode(parser.getDecimalValue());
+                } else {
+                    node = factory.numberNode(parser.getDoubleValue());
+                }
+                break;
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                node = factory.booleanNode(parser.getBooleanValue());
+                break;
+            case VALUE_EMBEDDED_OBJECT:
+                node = factory.pojoNode(parser.getEmbeddedObject());
+                break;
+            default:
+                node = factory.nullNode();
+        }
+        anchors.register(anchor, node);
+        return node;
+    }
+
+    /**
+     * Writes the given json tree as YAML.  Container nodes appearing more than once in
+     * the tree are written with anchors and aliases.
+     * @param tree
+     * @param yamlFactory
+     * @throws IOException
+     */
+    public static String writeTree(JsonNode tree, YAMLFactory yamlFactory) throws IOException {
+        return writeTree(tree, yamlFactory, Collections.emptyMap());
+    }
+
+    /**
+     * Writes the given json tree as YAML.  Container nodes appearing more than once in
+     * the tree are written with anchors and aliases, named after the given anchor names
+     * (e.g. those the nodes were read with) where there is one.
+     * @param tree
+     * @param yamlFactory
+     * @param anchorNames the preferred anchor names by node, must compare nodes by identity
+     * @throws IOException
+     */
+    public static String writeTree(JsonNode tree, YAMLFactory yamlFactory, Map<JsonNode, String> anchorNames)
+            throws IOException {
+        Map<JsonNode, String> seen = new IdentityHashMap<>();
+        Map<JsonNode, String> anchors = new IdentityHashMap<>();
+        findShared(tree, null, seen, anchors, new HashSet<>(), anchorNames);
+
+        ObjectMapper mapper = new ObjectMapper(yamlFactory);
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(writer)) {
+            writeValue(generator, tree, anchors, new IdentityHashMap<>());
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Finds all container nodes that appear more than once in the tree and assigns
+     * each of them a unique anchor name, derived from its preferred name if it has one
+     * or else from the name of the property it first appears under.
+     * @param node
+     * @param name
+     * @param seen
+     * @param anchors
+     * @param names
+     * @param anchorNames
+     */
+    private static void findShared(JsonNode node, String name, Map<JsonNode, String> seen, Map<JsonNode, String> anchors,
+            Set<String> names, Map<JsonNode, String> anchorNames) {
+        if (!node.isContainerNode()) {
+            return;
+        }
+        if (seen.containsKey(node)) {
+            if (!anchors.containsKey(node)) {
+                String preferred = anchorNames.get(node);
+                anchors.put(node, anchorName(preferred != null ? preferred : seen.get(node), names));
+            }
+            return;
+        }
+        seen.put(node, name == null ? "" : name);
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                findShared(field.getValue(), field.getKey(), seen, anchors, names, anchorNames);
+            }
+        } else {
+            for (JsonNode item : node) {
+                findShared(item, name, seen, anchors, names, anchorNames);
+            }
+        }
+    }
+
+    /**
+     * Creates a unique anchor name.
+     * @param name
+     * @param names
+     */
+    private static String anchorName(String name, Set<String> names) {
+        String base = name == null ? "" : name.replaceAll("[^A-Za-z0-9_-]", "");
+        if (base.isEmpty()) {
+            base = "node";
+        }
+        String anchor = base;
+        int idx = 1;
+        while (!names.add(anchor)) {
+            anchor = base + idx++;
+        }
+        return anchor;
+    }
+
+    /**
+     * Writes a single value.
+     * @param generator
+     * @param node
+     * @param anchors
+     * @param written
+     * @throws IOException
+     */
+    private static void writeValue(JsonGenerator generator, JsonNode node, Map<JsonNode, String> anchors,
+            Map<JsonNode, Boolean> written) throws IOException {
+        String anchor = anchors.get(node);
+        if (anchor != null) {
+            if (written.put(node, Boolean.TRUE) != null) {
+                generator.writeObjectRef(anchor);
+                return;
+            }
+            generator.writeObjectId(anchor);
+        }
+        if (node.isObject()) {
+            generator.writeStartObject();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                generator.writeFieldName(field.getKey());
+                writeValue(generator, field.getValue(), anchors, written);
+            }
+            generator.writeEndObject();
+        } else if (node.isArray()) {
+            generator.writeStartArray();
+            for (JsonNode item : node) {
+                writeValue(generator, item, anchors, written);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeTree(node);
+        }
+    }
+
+    /**
+     * The anchors of the document being read.
+     */
+    private static class Anchors {
+        final Map<String, JsonNode> nodes = new HashMap<>();
+        // Anchors of the nodes currently being read
+        final Set<String> open = new HashSet<>();
+        final Map<JsonNode, String> names;
+
+        Anchors(Map<JsonNode, String> names) {
+            this.names = names;
+        }
+
+        void open(String anchor) {
+            if (anchor != null) {
+                open.add(anchor);
+            }
+        }
+
+        /**
+         * Remembers the (complete) node for the given anchor, if any.
+         * @param anchor
+         * @param node
+         */
+        void register(String anchor, JsonNode node) {
+            if (anchor != null) {
+                open.remove(anchor);
+                nodes.put(anchor, node);
+                if (names != null && node.isContainerNode()) {
+                    names.put(node, anchor);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,801 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.CompositeIndex;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.Indexer;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+
+import io.smallrye.openapi.api.OpenApiConfig;
+import io.smallrye.openapi.api.OpenApiConstants;
+import io.smallrye.openapi.api.instrumentation.Counter;
+import io.smallrye.openapi.api.instrumentation.Instrumentation;
+import io.smallrye.openapi.api.instrumentation.Phase;
+
+/**
+ * Builds the jandex index of a deployment archive.  The deployment's own classes and
+ * each dependency JAR are indexed independently of one another (each into its own
+ * {@link Indexer}) and the results are combined into a {@link CompositeIndex}.  As
+ * indexing blocks on reading the archives (and the cache), it runs on a fork-join pool
+ * of its own, sized by "mp.openapi.extensions.index.parallelism" and shut down once the
+ * archive is indexed, never on the common pool.
+ *
+ * Dependency JARs are read entry by entry (rather than imported as archives) so that
+ * only class files are ever buffered.  Archives shipping a prebuilt jandex index use
+ * that index rather than being indexed, and when an index cache is configured the
+ * indexes of dependency JARs are read from (or stored in) that cache.
+ *
+ * With "mp.openapi.extensions.scan.prefilter" enabled, the classes that are not cached
+ * go through a {@link ClassFilePrefilter} first, so that only the classes with JAX-RS or
+ * OpenAPI annotations, and the classes they reference, are indexed.  With
+ * "mp.openapi.extensions.scan.prune" enabled, the index is reduced afterwards by the
+ * {@link IndexPruner}.
+ *
+ * An indexer that retains its indexes (as used for redeploying the same archive) keeps the
+ * index of each dependency JAR by its cache key, and each of the archive's own classes by
+ * a digest of its class file.  Indexing the archive again only indexes what changed, and
+ * reuses the very same {@link ClassInfo} instances for everything else.  The prefilter does
+ * not apply to a retaining indexer (everything is indexed once anyway), and it must not be
+ * used to index more than one archive at a time.
+ */
+@SuppressWarnings("rawtypes")
+public class ArchiveIndexer {
+
+//    private static Logger LOG = Logger.getLogger("io.smallrye.openapi");
+
+    private static final String[] PREBUILT_INDEXES = {
+        "/META-INF/jandex.idx",
+        "/WEB-INF/classes/META-INF/jandex.idx"
+    };
+
+    private static final String PREBUILT_INDEX_ENTRY = "META-INF/jandex.idx";
+
+    private static final String[] STANDINS = {
+        "io/smallrye/openapi/runtime/scanner/CollectionStandin.class",
+        "io/smallrye/openapi/runtime/scanner/MapStandin.class"
+    };
+
+    private final OpenApiConfig config;
+    private final IndexCache cache;
+
+    private final boolean scanDependenciesDisable;
+    private final Set<String> scanDependenciesJars;
+    private final ScanFilter scanFilter;
+    private final boolean scanPrefilter;
+    private final boolean scanPrune;
+    private final int parallelism;
+
+    // What the previous call to index(Archive) indexed, null unless retaining
+    private Retained retained;
+
+    /**
+     * Constructor.
+     * @param config
+     */
+    public ArchiveIndexer(OpenApiConfig config) {
+        this(config, false);
+    }
+
+    /**
+     * Constructor.
+     * @param config
+     * @param retain whether to keep the indexes, to reuse them when indexing the archive again
+     */
+    ArchiveIndexer(OpenApiConfig config, boolean retain) {
+        this.config = config;
+        this.retained = retain ? new Retained() : null;
+        String cacheDir = config.indexCacheDir();
+        this.cache = cacheDir == null ? null : new IndexCache(new File(cacheDir).toPath(), config.indexCacheMaxSize());
+        // Read the configuration up front, the archives are indexed on other threads
+        this.scanDependenciesDisable = config.scanDependenciesDisable();
+        this.scanDependenciesJars = config.scanDependenciesJars();
+        this.scanFilter = ScanFilter.compile(config);
+        this.scanPrefilter = config.scanPrefilter();
+        this.scanPrune = config.scanPrune();
+        this.parallelism = config.indexParallelism();
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid index parallelism: " + parallelism);
+        }
+    }
+
+    /**
+     * @return the configuration used by this indexer
+     */
+    public OpenApiConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Indexes the given archive, including all dependency JARs accepted by the configuration,
+     * as well as the collection and map standins used by the scanner.
+     * @param archive
+     */
+    public IndexView index(Archive archive) {
+        if (archive == null) {
+            throw new RuntimeException("Archive was null!");
+        }
+        try (Instrumentation.Measurement m = Instrumentation.start(Phase.INDEX)) {
+            ClassFilePrefilter prefilter = scanPrefilter && retained == null ? new ClassFilePrefilter() : null;
+            Retained next = retained == null ? null : new Retained();
+            ArchiveTask task = new ArchiveTask(archive, prefilter, next);
+            List<IndexView> indexes;
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                indexes = new ArrayList<>(pool.invoke(task));
+            } finally {
+                pool.shutdown();
+            }
+            if (next != null) {
+                // Anything not in this version of the archive is forgotten
+                retained = next;
+            }
+            indexes.add(Standins.INDEX);
+            if (prefilter != null) {
+                indexes.add(prefilter.indexReferenced(CompositeIndex.create(indexes)));
+            }
+            IndexView index = CompositeIndex.create(indexes);
+            if (scanPrune) {
+                index = IndexPruner.prune(index);
+            }
+            Instrumentation.count(Counter.CLASSES_INDEXED, index.getKnownClasses().size());
+            return index;
+        }
+    }
+
+    /**
+     * Prepares an index that was built elsewhere (e.g. by the application server) for
+     * scanning, without indexing any class again: the scan configuration is applied as a
+     * view over it, and the collection and map standins used by the scanner are added.
+     * @param index
+     */
+    public IndexView index(IndexView index) {
+        if (index == null) {
+            throw new RuntimeException("Index was null!");
+        }
+        try (Instrumentation.Measurement m = Instrumentation.start(Phase.INDEX)) {
+            IndexView visible = scanFilter.acceptsAll() ? index : filter(index);
+            IndexView result = CompositeIndex.create(visible, Standins.INDEX);
+            if (scanPrune) {
+                result = IndexPruner.prune(result);
+            }
+            Instrumentation.count(Counter.CLASSES_INDEXED, result.getKnownClasses().size());
+            return result;
+        }
+    }
+
+    /**
+     * Indexes the standin classes used for collections and maps.
+     */
+    private static Index indexStandins() {
+        Indexer indexer = new Indexer();
+        ClassLoader cl = ArchiveIndexer.class.getClassLoader();
+        for (String resName : STANDINS) {
+            try (InputStream klazzStream = cl.getResourceAsStream(resName)) {
+                indexer.index(klazzStream);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+        return indexer.complete();
+    }
+
+    /**
+     * Holds the index of the standins, which is the same for every deployment.
+     */
+    private static class Standins {
+        static final Index INDEX = indexStandins();
+    }
+
+    /**
+     * The indexes kept by a retaining indexer: those of the dependency JARs (unfiltered, as
+     * in the cache) by cache key, and the archive's own classes by path.
+     */
+    private static class Retained {
+        private final Map<String, Index> jars = new ConcurrentHashMap<>();
+        private final Map<String, RetainedClass> classes = new HashMap<>();
+    }
+
+    /**
+     * A class of the archive itself, along with the digest of its class file.
+     */
+    private static class RetainedClass {
+        private final String digest;
+        private final ClassInfo info;
+
+        RetainedClass(String digest, ClassInfo info) {
+            this.digest = digest;
+            this.info = info;
+        }
+    }
+
+    /**
+     * Indexes the classes of a single archive.  The JARs nested in it are forked off as
+     * separate tasks and indexed concurrently.
+     */
+    private class ArchiveTask extends RecursiveTask<List<IndexView>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Archive archive;
+        private final transient ClassFilePrefilter prefilter;
+        private final transient Retained next;
+
+        /**
+         * Constructor.
+         * @param archive
+         * @param prefilter may be null
+         * @param next where to keep the indexes for the next time, null unless retaining
+         */
+        ArchiveTask(Archive archive, ClassFilePrefilter prefilter, Retained next) {
+            this.archive = archive;
+            this.prefilter = prefilter;
+            this.next = next;
+        }
+
+        /**
+         * @see java.util.concurrent.RecursiveTask#compute()
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        protected List<IndexView> compute() {
+            List<IndexView> indexes = new ArrayList<>();
+            IndexView prebuilt = readPrebuiltIndex(archive);
+            if (prebuilt != null) {
+                indexes.add(filter(prebuilt));
+            }
+
+            Map<ArchivePath, Node> c = archive.getContent();
+            List<JarTask> jarTasks = new ArrayList<>();
+            for (Map.Entry<ArchivePath, Node> each : c.entrySet()) {
+                String path = each.getKey().get();
+                if (path.endsWith(OpenApiConstants.JAR_SUFFIX) && acceptJarForScanning(path)) {
+                    JarTask jarTask = new JarTask(path, each.getValue(), prefilter, next);
+                    jarTask.fork();
+                    jarTasks.add(jarTask);
+                }
+            }
+
+            Indexer indexer = new Indexer();
+            Map<DotName, ClassInfo> classes = new HashMap<>();
+            try {
+                for (Map.Entry<ArchivePath, Node> each : c.entrySet()) {
+                    String path = each.getKey().get();
+                    if (!path.endsWith(OpenApiConstants.CLASS_SUFFIX) || !acceptClassForScanning(path)) {
+                        continue;
+                    }
+                    if (prebuilt != null && prebuilt.getClassByName(DotName.createSimple(toClassName(path))) != null) {
+                        continue;
+                    }
+                    Node node = each.getValue();
+                    try (InputStream contentStream = node.getAsset().openStream()) {
+                        //LOG.debugv("Indexing asset: {0} from archive: {1}", path, archive.getName());
+                        if (next == null) {
+                            indexClass(indexer, contentStream, prefilter, () -> node.getAsset().openStream());
+                        } else {
+                            ClassInfo clazz = indexRetainedClass(indexer, path, contentStream);
+                            classes.put(clazz.name(), clazz);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            indexes.add(next == null ? indexer.complete() : IndexPruner.create(classes));
+
+            for (JarTask jarTask : jarTasks) {
+                indexes.addAll(jarTask.join());
+            }
+            return indexes;
+        }
+
+        /**
+         * Returns the class retained for the given path if its class file is unchanged, and
+         * indexes the class otherwise.
+         * @param indexer
+         * @param path
+         * @param contentStream
+         * @throws IOException
+         */
+        private ClassInfo indexRetainedClass(Indexer indexer, String path, InputStream contentStream) throws IOException {
+            byte[] classFile = IOUtils.toByteArray(contentStream);
+            String digest = IndexCache.key(classFile);
+            RetainedClass known = retained.classes.get(path);
+            if (known == null || !known.digest.equals(digest)) {
+                known = new RetainedClass(digest, indexer.index(new ByteArrayInputStream(classFile)));
+            }
+            next.classes.put(path, known);
+            return known.info;
+        }
+    }
+
+    /**
+     * Indexes a single dependency JAR.  The JAR is never materialized as an archive: it is
+     * read with a {@link ZipFile} when it exists on disk, and streamed otherwise, and only
+     * the accepted class entries are passed to the indexer.
+     *
+     * When an index cache is configured, the index of all classes of the JAR (unfiltered, so
+     * that it does not depend on the scan configuration) is read from or stored in the cache;
+     * JARs that ship their own index are never cached.  Nested JARs are only indexed if the
+     * dependency configuration accepts them, so that configuration is part of the cache key.
+     * A retaining indexer keeps the index by the same key, whether or not a cache is configured.
+     */
+    private class JarTask extends RecursiveTask<List<IndexView>> {
+        private static final long serialVersionUID = 1L;
+
+        private final String jarName;
+        private final transient Node node;
+        private final transient ClassFilePrefilter prefilter;
+        private final transient Retained next;
+
+        /**
+         * Constructor.
+         * @param jarName
+         * @param node
+         * @param prefilter may be null
+         * @param next where to keep the index for the next time, null unless retaining
+         */
+        JarTask(String jarName, Node node, ClassFilePrefilter prefilter, Retained next) {
+            this.jarName = jarName;
+            this.node = node;
+            this.prefilter = prefilter;
+            this.next = next;
+        }
+
+        /**
+         * @see java.util.concurrent.RecursiveTask#compute()
+         */
+        @Override
+        protected List<IndexView> compute() {
+            try {
+                Asset asset = node.getAsset();
+                boolean keyed = cache != null || next != null;
+                if (asset instanceof FileAsset) {
+                    File file = ((FileAsset) asset).getSource();
+                    return index(keyed ? cacheKey(IndexCache.key(file)) : null, jarIndex -> indexFile(file, jarIndex));
+                }
+                if (!keyed) {
+                    try (InputStream contentStream = asset.openStream()) {
+                        return index(null, jarIndex -> indexStream(new ZipInputStream(contentStream), jarIndex, Collections.emptyList()));
+                    }
+                }
+                // The content is needed for the cache key, so the JAR has to be buffered
+                byte[] content;
+                try (InputStream contentStream = asset.openStream()) {
+                    content = IOUtils.toByteArray(contentStream);
+                }
+                return index(cacheKey(IndexCache.key(content)), jarIndex -> indexStream(new ZipInputStream(new ByteArrayInputStream(content)),
+                        jarIndex, Collections.emptyList()));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to index " + jarName, e);
+            }
+        }
+
+        /**
+         * Returns the retained or cached index for the given key, or indexes the JAR (and
+         * retains or caches the result).
+         * @param key the cache key, or null if neither caching nor retaining
+         * @param reader reads the entries of the JAR
+         * @throws IOException
+         */
+        private List<IndexView> index(String key, JarReader reader) throws IOException {
+            List<IndexView> indexes = new ArrayList<>(2);
+            if (key != null) {
+                Index known = next != null ? retained.jars.get(key) : null;
+                if (known == null && cache != null) {
+                    known = cache.get(key);
+                }
+                if (known != null) {
+                    retain(key, known);
+                    indexes.add(filter(known));
+                    return indexes;
+                }
+            }
+
+            // A cached index must not depend on the prefilter either
+            JarIndex jarIndex = new JarIndex(key != null, key != null ? null : prefilter, node.getAsset());
+            reader.read(jarIndex);
+            Index index = jarIndex.indexer.complete();
+            if (jarIndex.prebuilt != null) {
+                // Only keep the classes the prebuilt index does not know about
+                IndexView prebuilt = jarIndex.prebuilt;
+                indexes.add(filter(prebuilt));
+                indexes.add(filter(new FilteredIndexView(index, name -> prebuilt.getClassByName(name) == null)));
+            } else if (key != null) {
+                if (cache != null) {
+                    cache.put(key, index);
+                }
+                retain(key, index);
+                indexes.add(filter(index));
+            } else {
+                indexes.add(index);
+            }
+            return indexes;
+        }
+
+        /**
+         * Keeps the index of the JAR for the next time, if retaining.
+         * @param key
+         * @param index
+         */
+        private void retain(String key, Index index) {
+            if (next != null) {
+                next.jars.put(key, index);
+            }
+        }
+    }
+
+    /**
+     * Returns the cache key of a JAR with the given content key: which nested JARs are
+     * indexed depends on the dependency configuration, so it is part of the key.
+     * @param contentKey
+     */
+    private String cacheKey(String contentKey) {
+        StringBuilder descriptor = new StringBuilder(contentKey).append('|');
+        if (scanDependenciesDisable) {
+            descriptor.append("-");
+        } else {
+            descriptor.append(String.join(",", new TreeSet<>(scanDependenciesJars)));
+        }
+        return IndexCache.key(descriptor.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the entries of a JAR into a {@link JarIndex}.
+     */
+    @FunctionalInterface
+    private interface JarReader {
+        void read(JarIndex jarIndex) throws IOException;
+    }
+
+    /**
+     * The state of indexing a single dependency JAR.
+     */
+    private static class JarIndex {
+        private final boolean acceptAll;
+        private final ClassFilePrefilter prefilter;
+        private final Asset asset;
+        private final Indexer indexer = new Indexer();
+        private IndexView prebuilt;
+
+        /**
+         * Constructor.
+         * @param acceptAll whether to index all classes, regardless of the scan configuration (but not all nested JARs)
+         * @param prefilter the prefilter to pass the classes through, or null
+         * @param asset the JAR, from which the prefilter reads the classes it held back again
+         */
+        JarIndex(boolean acceptAll, ClassFilePrefilter prefilter, Asset asset) {
+            this.acceptAll = acceptAll;
+            this.prefilter = prefilter;
+            this.asset = asset;
+        }
+    }
+
+    /**
+     * Indexes the JAR at the given location on disk.  Random access allows the prebuilt
+     * index (if any) to be read first, so that no class it covers is indexed.
+     * @param file
+     * @param jarIndex
+     * @throws IOException
+     */
+    private void indexFile(File file, JarIndex jarIndex) throws IOException {
+        try (ZipFile zipFile = new ZipFile(file)) {
+            ZipEntry prebuiltEntry = zipFile.getEntry(PREBUILT_INDEX_ENTRY);
+            if (prebuiltEntry != null) {
+                try (InputStream contentStream = zipFile.getInputStream(prebuiltEntry)) {
+                    jarIndex.prebuilt = readIndex(contentStream);
+                }
+            }
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && (isAcceptedClass(entry.getName(), jarIndex) || isAcceptedJar(entry.getName(), jarIndex))) {
+                    try (InputStream contentStream = zipFile.getInputStream(entry)) {
+                        indexEntry(Collections.emptyList(), entry.getName(), contentStream, jarIndex);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexes the entries of a JAR read as a stream.  Entries other than accepted classes and
+     * nested JARs are skipped without being read.  A prebuilt index is only used if found in
+     * the top level JAR; as it may appear after some classes have already been indexed, those
+     * classes are dropped later if the prebuilt index covers them.
+     * @param zip
+     * @param jarIndex
+     * @param parents the path of the nested JAR the stream reads, empty for the dependency JAR itself
+     * @throws IOException
+     */
+    private void indexStream(ZipInputStream zip, JarIndex jarIndex, List<String> parents) throws IOException {
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            String name = entry.getName();
+            if (entry.isDirectory()) {
+                continue;
+            }
+            if (parents.isEmpty() && PREBUILT_INDEX_ENTRY.equals(name)) {
+                jarIndex.prebuilt = readIndex(new NonClosingInputStream(zip));
+            } else if (isAcceptedClass(name, jarIndex) || isAcceptedJar(name, jarIndex)) {
+                indexEntry(parents, name, new NonClosingInputStream(zip), jarIndex);
+            }
+        }
+    }
+
+    /**
+     * Indexes a single class or nested JAR entry.
+     * @param parents the path of the nested JAR the entry is in, empty for the dependency JAR itself
+     * @param name
+     * @param contentStream
+     * @param jarIndex
+     * @throws IOException
+     */
+    private void indexEntry(List<String> parents, String name, InputStream contentStream, JarIndex jarIndex) throws IOException {
+        List<String> path = new ArrayList<>(parents);
+        path.add(name);
+        if (name.endsWith(OpenApiConstants.JAR_SUFFIX)) {
+            indexStream(new ZipInputStream(contentStream), jarIndex, path);
+        } else {
+            indexClass(jarIndex.indexer, contentStream, jarIndex.prefilter, () -> openEntry(jarIndex.asset, path));
+        }
+    }
+
+    /**
+     * Indexes a single class, unless the prefilter holds it back.
+     * @param indexer
+     * @param contentStream
+     * @param prefilter may be null
+     * @param location where the prefilter can read the class again
+     * @throws IOException
+     */
+    private static void indexClass(Indexer indexer, InputStream contentStream, ClassFilePrefilter prefilter,
+            ClassFilePrefilter.ClassFileLocation location) throws IOException {
+        if (prefilter == null) {
+            indexer.index(contentStream);
+            return;
+        }
+        byte[] classFile = IOUtils.toByteArray(contentStream);
+        if (prefilter.accept(classFile, location)) {
+            indexer.index(new ByteArrayInputStream(classFile));
+        }
+    }
+
+    /**
+     * Opens an entry of a dependency JAR again.  The entry is looked up directly if the JAR
+     * is on disk, and by reading the JAR up to it otherwise; nested JARs are read up to the
+     * entry in any case.
+     * @param asset the dependency JAR
+     * @param path the names of the nested JARs the entry is in, followed by the name of the entry
+     * @throws IOException
+     */
+    private static InputStream openEntry(Asset asset, List<String> path) throws IOException {
+        InputStream stream;
+        int next = 0;
+        if (asset instanceof FileAsset) {
+            ZipFile zipFile = new ZipFile(((FileAsset) asset).getSource());
+            ZipEntry entry = zipFile.getEntry(path.get(next++));
+            if (entry == null) {
+                zipFile.close();
+                throw new FileNotFoundException(path.get(0));
+            }
+            stream = new FilterInputStream(zipFile.getInputStream(entry)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        zipFile.close();
+                    }
+                }
+            };
+        } else {
+            stream = asset.openStream();
+        }
+        try {
+            for (String name : path.subList(next, path.size())) {
+                ZipInputStream zip = new ZipInputStream(stream);
+                stream = zip;
+                ZipEntry entry;
+                do {
+                    entry = zip.getNextEntry();
+                } while (entry != null && !entry.getName().equals(name));
+                if (entry == null) {
+                    throw new FileNotFoundException(name);
+                }
+            }
+            return stream;
+        } catch (IOException | RuntimeException e) {
+            stream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns true if the given entry is a class that should be indexed.
+     * @param name
+     * @param jarIndex
+     */
+    private boolean isAcceptedClass(String name, JarIndex jarIndex) {
+        if (!name.endsWith(OpenApiConstants.CLASS_SUFFIX)) {
+            return false;
+        }
+        if (jarIndex.prebuilt != null && jarIndex.prebuilt.getClassByName(DotName.createSimple(toClassName(name))) != null) {
+            return false;
+        }
+        return jarIndex.acceptAll || acceptClassForScanning(name);
+    }
+
+    /**
+     * Returns true if the given entry is a nested JAR that should be indexed.  Unlike classes,
+     * nested JARs are subject to the dependency configuration even when all classes are
+     * accepted (i.e. when the index is cached).
+     * @param name
+     * @param jarIndex
+     */
+    private boolean isAcceptedJar(String name, JarIndex jarIndex) {
+        return name.endsWith(OpenApiConstants.JAR_SUFFIX) && acceptJarForScanning(name);
+    }
+
+    /**
+     * Reads a prebuilt index, returning null if it cannot be read.
+     * @param contentStream
+     */
+    private static IndexView readIndex(InputStream contentStream) {
+        try {
+            return new IndexReader(contentStream).read();
+        } catch (IOException | IllegalArgumentException e) {
+            //LOG.debug("Ignoring unreadable prebuilt index");
+            return null;
+        }
+    }
+
+    /**
+     * An input stream that leaves the underlying stream open, so that a single zip entry
+     * can be handed to code that closes the streams it is given.
+     */
+    private static class NonClosingInputStream extends FilterInputStream {
+        NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        /**
+         * @see java.io.FilterInputStream#close()
+         */
+        @Override
+        public void close() {
+            // Leave the zip stream open for the next entry
+        }
+    }
+
+    /**
+     * Reads the prebuilt jandex index(es) shipped with the given archive, if any.  An index
+     * that cannot be read (e.g. written by an unsupported version of jandex) is ignored, in
+     * which case the archive's classes are indexed instead.
+     * @param archive
+     */
+    private static IndexView readPrebuiltIndex(Archive archive) {
+        List<IndexView> prebuilt = new ArrayList<>();
+        for (String path : PREBUILT_INDEXES) {
+            Node node = archive.get(path);
+            if (node == null || node.getAsset() == null) {
+                continue;
+            }
+            try (InputStream contentStream = node.getAsset().openStream()) {
+                IndexView index = readIndex(contentStream);
+                if (index != null) {
+                    prebuilt.add(index);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (prebuilt.isEmpty()) {
+            return null;
+        }
+        return prebuilt.size() == 1 ? prebuilt.get(0) : CompositeIndex.create(prebuilt);
+    }
+
+    /**
+     * Applies the scan configuration to an index that was not built by this indexer.
+     * @param index
+     */
+    private IndexView filter(IndexView index) {
+        return new FilteredIndexView(index, name -> acceptClassNameForScanning(name.toString()));
+    }
+
+    /**
+     * Returns true if the given JAR archive (dependency) should be cracked open and indexed
+     * along with the rest of the deployment's classes.
+     * @param jarName
+     */
+    private boolean acceptJarForScanning(String jarName) {
+        if (scanDependenciesDisable) {
+            return false;
+        }
+        String nameOnly = new File(jarName).getName();
+        if (scanDependenciesJars.isEmpty() || scanDependenciesJars.contains(nameOnly)) {
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the class represented by the given archive path should be included in
+     * the annotation index.
+     * @param archivePath
+     */
+    private boolean acceptClassForScanning(String archivePath) {
+        if (archivePath == null) {
+            return false;
+        }
+        return scanFilter.acceptPath(archivePath);
+    }
+
+    /**
+     * Returns true if the class with the given name should be included in the annotation index.
+     * @param fqcn
+     */
+    private boolean acceptClassNameForScanning(String fqcn) {
+        return scanFilter.acceptClassName(fqcn);
+    }
+
+    /**
+     * Converts the archive path of a class to its fully qualified name.
+     * @param archivePath
+     */
+    private static String toClassName(String archivePath) {
+        if (archivePath.startsWith(OpenApiConstants.WEB_ARCHIVE_CLASS_PREFIX)) {
+            archivePath = archivePath.substring(OpenApiConstants.WEB_ARCHIVE_CLASS_PREFIX.length());
+        } else if (archivePath.startsWith("/")) {
+            archivePath = archivePath.substring(1);
+        }
+        return archivePath.substring(0, archivePath.lastIndexOf(OpenApiConstants.CLASS_SUFFIX)).replace('/', '.');
+    }
+
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.Indexer;
+
+/**
+ * A cheap first pass over class files, to avoid fully indexing the (usually many) classes
+ * the scanner will never look at.  Only the constant pool of each class is read: if it
+ * mentions a JAX-RS or MicroProfile OpenAPI annotation type (or any other JAX-RS type,
+ * such as Application), the class is indexed right away.  Other classes are held back,
+ * and only indexed once everything else is, if a class in the index references them
+ * (transitively) as a super type, a field or method type, or an annotation value.
+ * Only the location of a held back class is kept, not its content: the few classes that
+ * turn out to be needed are read again from the archive.
+ *
+ * Safe for concurrent use.
+ */
+class ClassFilePrefilter {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final byte[][] RELEVANT = {
+        "javax/ws/rs/".getBytes(StandardCharsets.UTF_8),
+        "org/eclipse/microprofile/openapi/annotations/".getBytes(StandardCharsets.UTF_8)
+    };
+
+    private final ConcurrentMap<DotName, ClassFileLocation> deferred = new ConcurrentHashMap<>();
+
+    /**
+     * Opens a class file again, e.g. from the archive entry it was read from.
+     */
+    @FunctionalInterface
+    interface ClassFileLocation {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Returns true if the given class should be indexed now.  Otherwise the location of the
+     * class is held back for {@link #indexReferenced(IndexView)}.
+     * @param classFile
+     * @param location where the class file can be read again
+     */
+    boolean accept(byte[] classFile, ClassFileLocation location) {
+        ConstantPool pool = ConstantPool.read(classFile);
+        if (pool == null || pool.relevant) {
+            // Not a class file we understand, leave it to the indexer
+            return true;
+        }
+        deferred.put(DotName.createSimple(pool.className.replace('/', '.')), location);
+        return false;
+    }
+
+    /**
+     * Indexes the held back classes referenced by the classes of the given index, or by
+     * other held back classes referenced by them.
+     * @param index
+     */
+    Index indexReferenced(IndexView index) {
+        Indexer indexer = new Indexer();
+        Deque<DotName> queue = new ArrayDeque<>();
+        for (ClassInfo clazz : index.getKnownClasses()) {
+            ClassFingerprints.addReferences(clazz, queue);
+        }
+        try {
+            while (!queue.isEmpty()) {
+                DotName name = queue.poll();
+                ClassFileLocation location = deferred.remove(name);
+                // A prebuilt index may already have the class
+                if (location != null && index.getClassByName(name) == null) {
+                    try (InputStream stream = location.open()) {
+                        ClassInfo clazz = indexer.index(stream);
+                        ClassFingerprints.addReferences(clazz, queue);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        //LOG.debugv("Prefilter: {0} classes never indexed", deferred.size());
+        deferred.clear();
+        return indexer.complete();
+    }
+
+    /**
+     * What the prefilter needs to know of the constant pool of a class.
+     */
+    private static class ConstantPool {
+        private boolean relevant;
+        private String className;
+
+        /**
+         * Reads the constant pool of the given class file, or returns null if it cannot
+         * be read.
+         * @param classFile
+         */
+        static ConstantPool read(byte[] classFile) {
+            ConstantPool pool = new ConstantPool();
+            try {
+                if (readInt(classFile, 0) != MAGIC) {
+                    return null;
+                }
+                int count = readShort(classFile, 8);
+                int[] offsets = new int[count];
+                int offset = 10;
+                for (int i = 1; i < count; i++) {
+                    offsets[i] = offset;
+                    int tag = classFile[offset] & 0xFF;
+                    switch (tag) {
+                        case 1: // Utf8
+                            int length = readShort(classFile, offset + 1);
+                            if (!pool.relevant && isRelevant(classFile, offset + 3, length)) {
+                                pool.relevant = true;
+                            }
+                            offset += 3 + length;
+                            break;
+                        case 7: // Class
+                        case 8: // String
+                        case 16: // MethodType
+                        case 19: // Module
+                        case 20: // Package
+                            offset += 3;
+                            break;
+                        case 15: // MethodHandle
+                            offset += 4;
+                            break;
+                        case 3: // Integer
+                        case 4: // Float
+                        case 9: // Fieldref
+                        case 10: // Methodref
+                        case 11: // InterfaceMethodref
+                        case 12: // NameAndType
+                        case 17: // Dynamic
+                        case 18: // InvokeDynamic
+                            offset += 5;
+                            break;
+                        case 5: // Long
+                        case 6: // Double
+                            offset += 9;
+                            i++;
+                            break;
+                        default:
+                            return null;
+                    }
+                }
+                // access_flags, then this_class
+                int thisClass = offsets[readShort(classFile, offset + 2)];
+                int nameOffset = offsets[readShort(classFile, thisClass + 1)];
+                pool.className = new DataInputStream(new ByteArrayInputStream(classFile, nameOffset + 1,
+                        classFile.length - nameOffset - 1)).readUTF();
+                return pool;
+            } catch (IOException | IndexOutOfBoundsException e) {
+                return null;
+            }
+        }
+
+        private static boolean isRelevant(byte[] classFile, int start, int length) {
+            for (byte[] pattern : RELEVANT) {
+                if (contains(classFile, start, length, pattern)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean contains(byte[] bytes, int start, int length, byte[] pattern) {
+            int last = start + length - pattern.length;
+            outer:
+            for (int i = start; i <= last; i++) {
+                for (int j = 0; j < pattern.length; j++) {
+                    if (bytes[i + j] != pattern[j]) {
+                        continue outer;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private static int readShort(byte[] bytes, int offset) {
+            return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+        }
+
+        private static int readInt(byte[] bytes, int offset) {
+            return (readShort(bytes, offset) << 16) | readShort(bytes, offset + 2);
+        }
+    }
+
+}
@@ -0,0 +1,348 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.AnnotationValue;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.FieldInfo;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.MethodInfo;
+import org.jboss.jandex.Type;
+
+/**
+ * Computes fingerprints of the classes in an index.  The fingerprint of a class covers
+ * everything the scanner can see of it (its signature, fields, methods and annotations,
+ * but not its method bodies) as well as the fingerprints of all classes it references,
+ * transitively.  If the fingerprint of a class is unchanged, so is anything the scanner
+ * produces from it.  Fingerprints are SHA-256 digests of these structural descriptions,
+ * so that two different versions of a class cannot be mistaken for one another.
+ *
+ * The fingerprints are computed lazily and memoized, so one instance should be used per
+ * index.  Safe for concurrent use.  When the classes of a new version of the index are the
+ * very same {@link ClassInfo} instances (as a retaining {@link ArchiveIndexer} reuses them),
+ * their digests are carried over from the fingerprints of the previous version.
+ */
+class ClassFingerprints {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final IndexView index;
+    private final Map<DotName, String> classDigests = new HashMap<>();
+    private final Map<DotName, Set<DotName>> references = new HashMap<>();
+    private final Map<DotName, String> fingerprints = new HashMap<>();
+    private final Map<ClassInfo, String> digestsByClass = new IdentityHashMap<>();
+    private final Map<ClassInfo, String> previousDigests;
+
+    /**
+     * Constructor.
+     * @param index
+     */
+    ClassFingerprints(IndexView index) {
+        this(index, null);
+    }
+
+    /**
+     * Constructor.
+     * @param index
+     * @param previous the fingerprints of the previous version of the index, or null
+     */
+    ClassFingerprints(IndexView index, ClassFingerprints previous) {
+        this.index = index;
+        this.previousDigests = previous == null ? Collections.emptyMap() : previous.digestsByClass;
+    }
+
+    /**
+     * Returns the fingerprint of the given class and all classes it references.
+     * @param className
+     */
+    synchronized String of(DotName className) {
+        String fingerprint = fingerprints.get(className);
+        if (fingerprint != null) {
+            return fingerprint;
+        }
+        // Sorted so that the fingerprint does not depend on the order the classes were found in
+        Set<DotName> closure = new TreeSet<>();
+        Deque<DotName> queue = new ArrayDeque<>();
+        queue.add(className);
+        while (!queue.isEmpty()) {
+            DotName name = queue.poll();
+            if (closure.add(name)) {
+                queue.addAll(references(name));
+            }
+        }
+        StringBuilder description = new StringBuilder();
+        for (DotName name : closure) {
+            description.append(name).append(' ').append(classDigest(name)).append('\n');
+        }
+        fingerprint = digest(description.toString());
+        fingerprints.put(className, fingerprint);
+        return fingerprint;
+    }
+
+    /**
+     * Returns the fingerprint of the given classes together.
+     * @param classNames
+     */
+    synchronized String of(Collection<DotName> classNames) {
+        StringBuilder description = new StringBuilder();
+        for (DotName name : new TreeSet<>(classNames)) {
+            description.append(name).append(' ').append(of(name)).append('\n');
+        }
+        return digest(description.toString());
+    }
+
+    /**
+     * Returns the digest of the class itself.  Classes that are not in the index (such as JDK
+     * classes) are digested by name, so that they change if they are added to the index.
+     * @param className
+     */
+    private String classDigest(DotName className) {
+        String digest = classDigests.get(className);
+        if (digest == null) {
+            ClassInfo clazz = index.getClassByName(className);
+            if (clazz == null) {
+                digest = digest("?" + className);
+            } else {
+                digest = previousDigests.get(clazz);
+                if (digest == null) {
+                    digest = digest(describe(clazz));
+                }
+                digestsByClass.put(clazz, digest);
+            }
+            classDigests.put(className, digest);
+        }
+        return digest;
+    }
+
+    /**
+     * Returns the names of the classes directly referenced by the given class: its super
+     * types, the types of its fields and methods, and classes used as annotation values.
+     * @param className
+     */
+    private Set<DotName> references(DotName className) {
+        Set<DotName> names = references.get(className);
+        if (names != null) {
+            return names;
+        }
+        names = new HashSet<>();
+        ClassInfo clazz = index.getClassByName(className);
+        if (clazz != null) {
+            addReferences(clazz, names);
+        }
+        references.put(className, names);
+        return names;
+    }
+
+    /**
+     * Adds the names of the classes directly referenced by the given class: its super
+     * types (including their type arguments, as in {@code extends Page<Order>}), the types
+     * of its fields and methods, and classes used as annotation values.
+     * @param clazz
+     * @param names
+     */
+    static void addReferences(ClassInfo clazz, Collection<DotName> names) {
+        addType(clazz.superClassType(), names);
+        for (Type interfaceType : clazz.interfaceTypes()) {
+            addType(interfaceType, names);
+        }
+        for (FieldInfo field : clazz.fields()) {
+            addType(field.type(), names);
+        }
+        for (MethodInfo method : clazz.methods()) {
+            addType(method.returnType(), names);
+            for (Type parameter : method.parameters()) {
+                addType(parameter, names);
+            }
+        }
+        for (List<AnnotationInstance> annotations : clazz.annotations().values()) {
+            for (AnnotationInstance annotation : annotations) {
+                addClassValues(annotation, names);
+            }
+        }
+    }
+
+    private static void addType(Type type, Collection<DotName> names) {
+        if (type == null) {
+            return;
+        }
+        switch (type.kind()) {
+            case CLASS:
+                names.add(type.name());
+                break;
+            case PARAMETERIZED_TYPE:
+                names.add(type.name());
+                for (Type argument : type.asParameterizedType().arguments()) {
+                    addType(argument, names);
+                }
+                addType(type.asParameterizedType().owner(), names);
+                break;
+            case ARRAY:
+                addType(type.asArrayType().component(), names);
+                break;
+            case WILDCARD_TYPE:
+                addType(type.asWildcardType().extendsBound(), names);
+                addType(type.asWildcardType().superBound(), names);
+                break;
+            case TYPE_VARIABLE:
+                // Bounds can refer back to the variable itself (T extends Comparable<T>), so only
+                // take the bound classes and not their type arguments
+                for (Type bound : type.asTypeVariable().bounds()) {
+                    if (bound.kind() == Type.Kind.CLASS || bound.kind() == Type.Kind.PARAMETERIZED_TYPE) {
+                        names.add(bound.name());
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void addClassValues(AnnotationInstance annotation, Collection<DotName> names) {
+        for (AnnotationValue value : annotation.values()) {
+            addClassValue(value, names);
+        }
+    }
+
+    private static void addClassValue(AnnotationValue value, Collection<DotName> names) {
+        switch (value.kind()) {
+            case CLASS:
+                addType(value.asClass(), names);
+                break;
+            case NESTED:
+                addClassValues(value.asNested(), names);
+                break;
+            case ARRAY:
+                for (AnnotationValue element : (AnnotationValue[]) value.value()) {
+                    addClassValue(element, names);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Describes everything the scanner can see of a class.
+     * @param clazz
+     */
+    private static String describe(ClassInfo clazz) {
+        StringBuilder description = new StringBuilder();
+        description.append(clazz.flags()).append(' ').append(clazz.name())
+                .append(" extends ").append(clazz.superClassType())
+                .append(" implements ").append(clazz.interfaceTypes()).append('\n');
+        for (FieldInfo field : clazz.fields()) {
+            description.append(field.flags()).append(' ').append(field.type()).append(' ').append(field.name()).append('\n');
+        }
+        for (MethodInfo method : clazz.methods()) {
+            description.append(method.flags()).append(' ').append(method.returnType()).append(' ')
+                    .append(method.name()).append(method.parameters()).append('\n');
+        }
+        // The annotations are kept in a map, so sort them for a stable order
+        List<String> annotations = new ArrayList<>();
+        for (List<AnnotationInstance> instances : clazz.annotations().values()) {
+            for (AnnotationInstance annotation : instances) {
+                annotations.add(describe(annotation.target()) + ' ' + describe(annotation));
+            }
+        }
+        annotations.sort(null);
+        for (String annotation : annotations) {
+            description.append(annotation).append('\n');
+        }
+        return description.toString();
+    }
+
+    private static String describe(AnnotationTarget target) {
+        if (target == null) {
+            return "";
+        }
+        switch (target.kind()) {
+            case CLASS:
+                return "class";
+            case FIELD:
+                return "field " + target.asField().name();
+            case METHOD:
+                return "method " + target.asMethod().name() + target.asMethod().parameters();
+            case METHOD_PARAMETER:
+                return "parameter " + target.asMethodParameter().position() + " of "
+                        + target.asMethodParameter().method().name() + target.asMethodParameter().method().parameters();
+            case TYPE:
+                return "type in " + describe(target.asType().enclosingTarget());
+            default:
+                return target.kind().toString();
+        }
+    }
+
+    private static String describe(AnnotationInstance annotation) {
+        StringBuilder description = new StringBuilder("@").append(annotation.name()).append('(');
+        for (AnnotationValue value : annotation.values()) {
+            description.append(value.name()).append('=').append(describe(value)).append(',');
+        }
+        return description.append(')').toString();
+    }
+
+    private static String describe(AnnotationValue value) {
+        switch (value.kind()) {
+            case NESTED:
+                return describe(value.asNested());
+            case ARRAY:
+                StringBuilder description = new StringBuilder("[");
+                for (AnnotationValue element : (AnnotationValue[]) value.value()) {
+                    description.append(describe(element)).append(',');
+                }
+                return description.append(']').toString();
+            default:
+                return String.valueOf(value.value());
+        }
+    }
+
+    /**
+     * Returns the SHA-256 digest of the given description, in hex.
+     * @param description
+     */
+    private static String digest(String description) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(description.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.IndexView;
+
+/**
+ * An index view that hides all classes not accepted by a filter.  Used to apply the
+ * scan include/exclude configuration to an index that was not built by the scanner
+ * itself (e.g. a prebuilt META-INF/jandex.idx).
+ */
+public class FilteredIndexView implements IndexView {
+
+    private final IndexView delegate;
+    private final Predicate<DotName> filter;
+
+    /**
+     * Constructor.
+     * @param delegate
+     * @param filter accepts the names of the classes that should be visible
+     */
+    public FilteredIndexView(IndexView delegate, Predicate<DotName> filter) {
+        this.delegate = delegate;
+        this.filter = filter;
+    }
+
+    /**
+     * @see org.jboss.jandex.IndexView#getKnownClasses()
+     */
+    @Override
+    public Collection<ClassInfo> getKnownClasses() {
+        return filter(delegate.getKnownClasses());
+    }
+
+    /**
+     * @see org.jboss.jandex.IndexView#getClassByName(org.jboss.jandex.DotName)
+     */
+    @Override
+    public ClassInfo getClassByName(DotName className) {
+        return filter.test(className) ? delegate.getClassByName(className) : null;
+    }
+
+    /**
+     * @see org.jboss.jandex.IndexView#getKnownDirectSubclasses(org.jboss.jandex.DotName)
+     */
+    @Override
+    public Collection<ClassInfo> getKnownDirectSubclasses(DotName className) {
+        return filter(delegate.getKnownDirectSubclasses(className));
+    }
+
+    /**
+     * @see org.jboss.jandex.IndexView#getAllKnownSubclasses(org.jboss.jandex.DotName)
+     */
+    @Override
+    public Collection<ClassInfo> getAllKnownSubclasses(DotName className) {
+        return filter(delegate.getAllKnownSubclasses(className));
+    }
+
+    /**
+     * @see org.jboss.jandex.IndexView#getKnownDirectImplementors(org.jboss.jandex.DotName)
+     */
+    @Override
+    public Collection<ClassInfo> getKnownDirectImplementors(DotName className) {
+        return filter(delegate.getKnownDirectImplementors(className));
+    }
+
+    /**
+     * @see org.jboss.jandex.IndexView#getAllKnownImplementors(org.jboss.jandex.DotName)
+     */
+    @Override
+    public Collection<ClassInfo> getAllKnownImplementors(DotName interfaceName) {
+        return filter(delegate.getAllKnownImplementors(interfaceName));
+    }
+
+    /**
+     * @see org.jboss.jandex.IndexView#getAnnotations(org.jboss.jandex.DotName)
+     */
+    @Override
+    public Collection<AnnotationInstance> getAnnotations(DotName annotationName) {
+        Collection<AnnotationInstance> annotations = delegate.getAnnotations(annotationName);
+        List<AnnotationInstance> accepted = new ArrayList<>(annotations.size());
+        for (AnnotationInstance annotation : annotations) {
+            ClassInfo owner = declaringClass(annotation.target());
+            if (owner == null || filter.test(owner.name())) {
+                accepted.add(annotation);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Returns only the accepted classes of the given collection.
+     * @param classes
+     */
+    private Collection<ClassInfo> filter(Collection<ClassInfo> classes) {
+        List<ClassInfo> accepted = new ArrayList<>(classes.size());
+        for (ClassInfo classInfo : classes) {
+            if (filter.test(classInfo.name())) {
+                accepted.add(classInfo);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Returns the class an annotation target belongs to.
+     * @param target
+     */
+    private static ClassInfo declaringClass(AnnotationTarget target) {
+        if (target == null) {
+            return null;
+        }
+        switch (target.kind()) {
+            case CLASS:
+                return target.asClass();
+            case FIELD:
+                return target.asField().declaringClass();
+            case METHOD:
+                return target.asMethod().declaringClass();
+            case METHOD_PARAMETER:
+                return target.asMethodParameter().method().declaringClass();
+            case TYPE:
+                return declaringClass(target.asType().enclosingTarget());
+            default:
+                return null;
+        }
+    }
+
+}
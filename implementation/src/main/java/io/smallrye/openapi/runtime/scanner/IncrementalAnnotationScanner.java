@@ -0,0 +1,203 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.core.Application;
+
+import org.eclipse.microprofile.openapi.models.media.Schema;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.ClassType;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.IndexView;
+import org.jboss.shrinkwrap.api.Archive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.smallrye.openapi.api.OpenApiConfig;
+import io.smallrye.openapi.api.models.OpenAPIImpl;
+import io.smallrye.openapi.runtime.io.OpenApiParser;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer;
+import io.smallrye.openapi.runtime.scanner.OpenApiAnnotationScanner.ResourceModel;
+import io.smallrye.openapi.runtime.scanner.OpenApiAnnotationScanner.ResourceModelCache;
+import io.smallrye.openapi.runtime.util.ModelUtil;
+import io.smallrye.openapi.runtime.util.TypeHierarchy;
+
+/**
+ * An annotation scanner that remembers the results of its previous scan, for redeploying
+ * the same application over and over (e.g. in development mode).  Each scan only processes
+ * the resource classes, and only introspects the data object classes, that changed (or
+ * that reference a class that changed) since the previous scan; the models of everything
+ * else are reused.  Changes are detected by comparing {@link ClassFingerprints}.  If a
+ * JAX-RS Application class changes, all resource classes are scanned again.
+ *
+ * Archives are indexed by an {@link ArchiveIndexer} kept across scans, which only indexes
+ * the classes and dependency JARs that changed since the previous scan.
+ *
+ * The result is always the same as a full scan of the same deployment.
+ *
+ * <pre>
+ * IncrementalAnnotationScanner scanner = new IncrementalAnnotationScanner(config);
+ * // on every (re)deploy
+ * OpenAPIImpl model = scanner.scan(archive);
+ * </pre>
+ */
+public class IncrementalAnnotationScanner {
+
+    private static final String SCHEMA_NAME = "schema";
+
+    private final ArchiveIndexer indexer;
+    private final Map<DotName, Entry<ResourceModel>> resources = new ConcurrentHashMap<>();
+    private final Map<DotName, Entry<JsonNode>> schemas = new ConcurrentHashMap<>();
+    private String applicationsFingerprint;
+    private ClassFingerprints previousFingerprints;
+
+    private final AtomicInteger scanned = new AtomicInteger();
+    private final AtomicInteger reused = new AtomicInteger();
+
+    /**
+     * Constructor.
+     * @param config
+     */
+    public IncrementalAnnotationScanner(OpenApiConfig config) {
+        this.indexer = new ArchiveIndexer(config, true);
+    }
+
+    /**
+     * Indexes and scans the given archive.
+     * @param archive
+     */
+    public synchronized OpenAPIImpl scan(Archive archive) {
+        return scan(indexer.index(archive));
+    }
+
+    /**
+     * Scans the given index, reusing what is unchanged since the previous scan.
+     * @param index
+     */
+    public synchronized OpenAPIImpl scan(IndexView index) {
+        scanned.set(0);
+        reused.set(0);
+        ClassFingerprints fingerprints = new ClassFingerprints(index, previousFingerprints);
+        previousFingerprints = fingerprints;
+        TypeHierarchy hierarchy = new TypeHierarchy(index);
+
+        List<DotName> applications = new ArrayList<>();
+        for (ClassInfo application : index.getAllKnownSubclasses(DotName.createSimple(Application.class.getName()))) {
+            applications.add(application.name());
+        }
+        String fingerprint = fingerprints.of(applications);
+        if (!fingerprint.equals(applicationsFingerprint)) {
+            // The application path (and anything else from the Application) applies to all resources
+            resources.clear();
+            applicationsFingerprint = fingerprint;
+        }
+
+        Set<DotName> seen = ConcurrentHashMap.newKeySet();
+        OpenApiAnnotationScanner scanner = new OpenApiAnnotationScanner(index, type -> generateSchema(index, hierarchy, fingerprints, type));
+        OpenAPIImpl model = scanner.scan(new ResourceModelCache() {
+            @Override
+            public ResourceModel restore(ClassInfo resourceClass) {
+                seen.add(resourceClass.name());
+                Entry<ResourceModel> entry = resources.get(resourceClass.name());
+                if (entry != null && entry.fingerprint.equals(fingerprints.of(resourceClass.name()))) {
+                    reused.incrementAndGet();
+                    return entry.value;
+                }
+                return null;
+            }
+
+            @Override
+            public void store(ClassInfo resourceClass, ResourceModel model) {
+                scanned.incrementAndGet();
+                resources.put(resourceClass.name(), new Entry<>(fingerprints.of(resourceClass.name()), model));
+            }
+        });
+
+        // Forget about classes that are gone
+        resources.keySet().retainAll(seen);
+        Set<DotName> known = new HashSet<>();
+        for (ClassInfo clazz : index.getKnownClasses()) {
+            known.add(clazz.name());
+        }
+        schemas.keySet().retainAll(known);
+
+        //LOG.debugv("Incremental scan: {0} resources scanned, {1} reused", scanned.get(), reused.get());
+        return model;
+    }
+
+    /**
+     * @return the number of resource classes processed by the last scan
+     */
+    public int getScanned() {
+        return scanned.get();
+    }
+
+    /**
+     * @return the number of resource classes whose model was reused by the last scan
+     */
+    public int getReused() {
+        return reused.get();
+    }
+
+    /**
+     * Returns the schema of a data object class, introspecting the class only if it (or
+     * a class it references) changed since the schema was last generated.
+     * @param index
+     * @param hierarchy
+     * @param fingerprints
+     * @param type
+     */
+    private Schema generateSchema(IndexView index, TypeHierarchy hierarchy, ClassFingerprints fingerprints, ClassType type) {
+        String fingerprint = fingerprints.of(type.name());
+        Entry<JsonNode> entry = schemas.get(type.name());
+        if (entry != null && entry.fingerprint.equals(fingerprint)) {
+            return entry.value == null ? null : OpenApiParser.parse(entry.value).getComponents().getSchemas().get(SCHEMA_NAME);
+        }
+        Schema schema = OpenApiDataObjectScanner.process(index, hierarchy, type);
+        JsonNode tree = null;
+        if (schema != null) {
+            // Kept serialized, the schema itself becomes part of the (modifiable) model
+            OpenAPIImpl holder = new OpenAPIImpl();
+            ModelUtil.components(holder).addSchema(SCHEMA_NAME, schema);
+            tree = OpenApiSerializer.serializeToTree(holder);
+        }
+        schemas.put(type.name(), new Entry<>(fingerprint, tree));
+        return schema;
+    }
+
+    /**
+     * Something produced from a class, along with the fingerprint of the class at the time.
+     */
+    private static class Entry<T> {
+        private final String fingerprint;
+        private final T value;
+
+        Entry(String fingerprint, T value) {
+            this.fingerprint = fingerprint;
+            this.value = value;
+        }
+    }
+
+}
@@ -0,0 +1,252 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexWriter;
+
+/**
+ * A directory of serialized jandex indexes, keyed by a hash of the JAR they were built
+ * from (of its content or, for JARs on disk, of its location, size, modification time
+ * and the CRCs of its entries).  The directory may be shared by several JVMs: entries
+ * are written to a temporary file and then atomically moved into place, readers treat a
+ * missing or unreadable entry as a miss, and eviction is serialized with a file lock.
+ *
+ * Entries are evicted least recently used first (by last modified time, which is
+ * updated on every hit) once the total size of the directory exceeds the configured
+ * maximum.
+ */
+public class IndexCache {
+
+    // Bump whenever the content of the cached indexes changes
+    private static final String FORMAT_VERSION = "1";
+    private static final String ENTRY_SUFFIX = ".idx";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String LOCK_FILE = ".lock";
+    private static final long STALE_TEMP_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path dir;
+    private final long maxSize;
+
+    /**
+     * Constructor.
+     * @param dir
+     * @param maxSize the maximum total size of the cache in bytes
+     */
+    public IndexCache(Path dir, long maxSize) {
+        this.dir = dir;
+        this.maxSize = maxSize;
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the cache key for a JAR with the given content.
+     * @param content
+     */
+    public static String key(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder key = new StringBuilder(FORMAT_VERSION).append('-');
+            for (byte b : digest) {
+                key.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the cache key for the JAR at the given location on disk.  The key is derived
+     * from the location, size and modification time of the file and from the names and
+     * CRCs of its entries, rather than from its content.  The CRCs are read from the central
+     * directory, so the entries themselves do not need to be read, and a JAR rebuilt with
+     * the same size within the resolution of the modification time still gets a new key.
+     * @param file
+     */
+    public static String key(File file) {
+        StringBuilder descriptor = new StringBuilder(file.getAbsolutePath()).append('|').append(file.length())
+                .append('|').append(file.lastModified());
+        try (ZipFile zip = new ZipFile(file)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                descriptor.append('|').append(entry.getName()).append(':').append(entry.getCrc());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read JAR: " + file, e);
+        }
+        return key(descriptor.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the cached index for the given key, or null if there is none (or it cannot
+     * be read).
+     * @param key
+     */
+    public Index get(String key) {
+        Path entry = dir.resolve(key + ENTRY_SUFFIX);
+        Index index;
+        try (InputStream stream = Files.newInputStream(entry)) {
+            index = new IndexReader(stream).read();
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            //LOG.debugv("Ignoring unreadable cached index: {0}", entry);
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Evicted in the meantime, the index is still good
+        }
+        return index;
+    }
+
+    /**
+     * Stores the index under the given key, then evicts entries if the cache has grown
+     * too large.  Failures are ignored, the cache is only an optimization.
+     * @param key
+     * @param index
+     */
+    public void put(String key, Index index) {
+        Path entry = dir.resolve(key + ENTRY_SUFFIX);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(dir, key, TEMP_SUFFIX);
+            try (OutputStream stream = Files.newOutputStream(temp)) {
+                new IndexWriter(stream).write(index);
+            }
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+            evict();
+        } catch (IOException e) {
+            //LOG.debugv("Failed to cache index: {0}", entry);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // Removed as stale by a later eviction
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache fits within its maximum
+     * size.  Holds an exclusive lock on the cache directory while doing so, so that
+     * only one JVM evicts at a time.
+     * @throws IOException
+     */
+    private void evict() throws IOException {
+        // File locks are held on behalf of the whole JVM, so also serialize within it
+        synchronized (IndexCache.class) {
+            try (FileChannel channel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE); FileLock lock = channel.lock()) {
+                List<Entry> entries = new ArrayList<>();
+                long size = 0;
+                long now = System.currentTimeMillis();
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                    for (Path file : files) {
+                        String name = file.getFileName().toString();
+                        try {
+                            long modified = Files.getLastModifiedTime(file).toMillis();
+                            if (name.endsWith(ENTRY_SUFFIX)) {
+                                Entry entry = new Entry(file, Files.size(file), modified);
+                                entries.add(entry);
+                                size += entry.size;
+                            } else if (name.endsWith(TEMP_SUFFIX) && now - modified > STALE_TEMP_MILLIS) {
+                                // Left behind by a JVM that died while writing
+                                Files.deleteIfExists(file);
+                            }
+                        } catch (NoSuchFileException e) {
+                            // Gone in the meantime
+                        }
+                    }
+                }
+                if (size <= maxSize) {
+                    return;
+                }
+                entries.sort(Comparator.comparingLong(entry -> entry.lastModified));
+                for (Entry entry : entries) {
+                    if (size <= maxSize) {
+                        break;
+                    }
+                    try {
+                        Files.deleteIfExists(entry.file);
+                        size -= entry.size;
+                    } catch (IOException e) {
+                        // Probably being read on a platform that does not allow deleting open files
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A cache entry found while evicting.
+     */
+    private static class Entry {
+        private final Path file;
+        private final long size;
+        private final long lastModified;
+
+        Entry(Path file, long size, long lastModified) {
+            this.file = file;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.Application;
+
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexView;
+
+import io.smallrye.openapi.runtime.util.JandexUtil;
+
+/**
+ * Reduces an index to the classes the scanner can reach: the JAX-RS Application and
+ * resource classes, and everything they reference, transitively (super types, field
+ * and method types, and classes used as annotation values, e.g. in
+ * {@code @Schema(implementation = ...)}).  The result is a new, standalone index, so
+ * the original one (typically far larger, as it grows with the dependencies rather than
+ * with the API) no longer needs to be kept for the scan.
+ */
+final class IndexPruner {
+
+    private static final DotName[] STANDINS = {
+        DotName.createSimple(CollectionStandin.class.getName()),
+        DotName.createSimple(MapStandin.class.getName())
+    };
+
+    /**
+     * Constructor.
+     */
+    private IndexPruner() {
+    }
+
+    /**
+     * Returns an index of the classes of the given index reachable from the JAX-RS classes.
+     * @param index
+     */
+    static Index prune(IndexView index) {
+        Deque<DotName> queue = new ArrayDeque<>();
+        for (ClassInfo application : index.getAllKnownSubclasses(DotName.createSimple(Application.class.getName()))) {
+            queue.add(application.name());
+        }
+        for (ClassInfo resource : JandexUtil.getJaxRsResourceClasses(index)) {
+            queue.add(resource.name());
+        }
+        for (DotName standin : STANDINS) {
+            queue.add(standin);
+        }
+
+        Map<DotName, ClassInfo> classes = new HashMap<>();
+        while (!queue.isEmpty()) {
+            DotName name = queue.poll();
+            if (classes.containsKey(name)) {
+                continue;
+            }
+            ClassInfo clazz = index.getClassByName(name);
+            if (clazz != null) {
+                classes.put(name, clazz);
+                ClassFingerprints.addReferences(clazz, queue);
+            }
+        }
+        //LOG.debugv("Pruned index: {0} of {1} classes kept", classes.size(), index.getKnownClasses().size());
+        return create(classes);
+    }
+
+    /**
+     * Returns a standalone index of all classes of the given index, without pruning any
+     * (e.g. to write out a composite index).
+     * @param index
+     */
+    static Index copy(IndexView index) {
+        Map<DotName, ClassInfo> classes = new HashMap<>();
+        for (ClassInfo clazz : index.getKnownClasses()) {
+            classes.put(clazz.name(), clazz);
+        }
+        return create(classes);
+    }
+
+    /**
+     * Creates an index of the given classes.
+     * @param classes
+     */
+    static Index create(Map<DotName, ClassInfo> classes) {
+        Map<DotName, List<AnnotationInstance>> annotations = new HashMap<>();
+        Map<DotName, List<ClassInfo>> subclasses = new HashMap<>();
+        Map<DotName, List<ClassInfo>> implementors = new HashMap<>();
+        for (ClassInfo clazz : classes.values()) {
+            for (Map.Entry<DotName, List<AnnotationInstance>> entry : clazz.annotations().entrySet()) {
+                annotations.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).addAll(entry.getValue());
+            }
+            if (clazz.superName() != null) {
+                subclasses.computeIfAbsent(clazz.superName(), key -> new ArrayList<>()).add(clazz);
+            }
+            for (DotName interfaceName : clazz.interfaceNames()) {
+                implementors.computeIfAbsent(interfaceName, key -> new ArrayList<>()).add(clazz);
+            }
+        }
+        return Index.create(annotations, subclasses, implementors, classes);
+    }
+
+}
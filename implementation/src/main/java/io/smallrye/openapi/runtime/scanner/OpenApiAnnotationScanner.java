@@ -17,24 +17,29 @@
 package io.smallrye.openapi.runtime.scanner;
 
 import java.beans.PropertyDescriptor;
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.UncheckedIOException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.ws.rs.core.Application;
 
 import org.apache.commons.beanutils.PropertyUtils;
+import org.eclipse.microprofile.openapi.OASFilter;
 import org.eclipse.microprofile.openapi.annotations.enums.Explode;
 import org.eclipse.microprofile.openapi.models.Components;
 import org.eclipse.microprofile.openapi.models.ExternalDocumentation;
@@ -77,19 +82,18 @@ import org.jboss.jandex.ClassInfo;
 import org.jboss.jandex.ClassType;
 import org.jboss.jandex.DotName;
 import org.jboss.jandex.IndexView;
-import org.jboss.jandex.Indexer;
 import org.jboss.jandex.MethodInfo;
-import org.jboss.jandex.MethodParameterInfo;
 import org.jboss.jandex.Type;
 import org.jboss.shrinkwrap.api.Archive;
-import org.jboss.shrinkwrap.api.ArchivePath;
-import org.jboss.shrinkwrap.api.Node;
-import org.jboss.shrinkwrap.api.ShrinkWrap;
-import org.jboss.shrinkwrap.api.importer.ZipImporter;
-import org.jboss.shrinkwrap.api.spec.JavaArchive;
+
+import com.fasterxml.jackson.databind.JsonNode;
 
 import io.smallrye.openapi.api.OpenApiConfig;
 import io.smallrye.openapi.api.OpenApiConstants;
+import io.smallrye.openapi.api.OpenApiDocumentRegistry;
+import io.smallrye.openapi.api.instrumentation.Counter;
+import io.smallrye.openapi.api.instrumentation.Instrumentation;
+import io.smallrye.openapi.api.instrumentation.Phase;
 import io.smallrye.openapi.api.models.ComponentsImpl;
 import io.smallrye.openapi.api.models.ExternalDocumentationImpl;
 import io.smallrye.openapi.api.models.OpenAPIImpl;
@@ -121,11 +125,16 @@ import io.smallrye.openapi.api.models.servers.ServerImpl;
 import io.smallrye.openapi.api.models.servers.ServerVariableImpl;
 import io.smallrye.openapi.api.models.servers.ServerVariablesImpl;
 import io.smallrye.openapi.api.models.tags.TagImpl;
+import io.smallrye.openapi.api.util.FilterUtil;
 import io.smallrye.openapi.api.util.MergeUtil;
+import io.smallrye.openapi.runtime.io.OpenApiParser;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer;
+import io.smallrye.openapi.runtime.util.AnnotationView;
 import io.smallrye.openapi.runtime.util.JandexUtil;
 import io.smallrye.openapi.runtime.util.JandexUtil.JaxRsParameterInfo;
 import io.smallrye.openapi.runtime.util.JandexUtil.RefType;
 import io.smallrye.openapi.runtime.util.ModelUtil;
+import io.smallrye.openapi.runtime.util.TypeHierarchy;
 
 /**
  * Scans a deployment (using the archive and jandex annotation index) for JAX-RS and
@@ -141,16 +150,19 @@ public class OpenApiAnnotationScanner {
 
 //    private static Logger LOG = Logger.getLogger("io.smallrye.openapi");
 
+    // Marks unresolved schema references in snapshots of resource models
+    private static final String UNRESOLVED_REF_PREFIX = "#/x-unresolved-class/";
+
     private final IndexView index;
+    private final TypeHierarchy typeHierarchy;
+    private final SchemaRegistry schemaRegistry;
+    private final TypeSchemaCache typeSchemas;
+    private final Function<ClassType, Schema> schemaGenerator;
 
     private OpenAPIImpl oai;
-
-    private String currentAppPath = "";
-    private String currentResourcePath = "";
-    private String[] currentConsumes;
-    private String[] currentProduces;
-
-    private SchemaRegistry schemaRegistry = new SchemaRegistry();
+    // References to generated schemas, in the order they were made; resolved once the schemas are named
+    private final List<SchemaReference> schemaReferences = new ArrayList<>();
+    private final Map<DotName, AnnotationView> classAnnotations = new HashMap<>();
 
     /**
      * Constructor.
@@ -158,7 +170,46 @@ public class OpenApiAnnotationScanner {
      * @param archive
      */
     public OpenApiAnnotationScanner(OpenApiConfig config, Archive archive) {
-        this.index = archiveToIndex(config, archive);
+        this(archiveToIndex(config, archive), null);
+    }
+
+    /**
+     * Constructor for an index that was already built (e.g. by the application server), so
+     * that the deployment is not indexed a second time.  The scan configuration is applied
+     * to the given index.
+     * @param config
+     * @param index
+     */
+    public OpenApiAnnotationScanner(OpenApiConfig config, IndexView index) {
+        this(new ArchiveIndexer(config).index(index), null);
+    }
+
+    /**
+     * Constructor.
+     * @param index
+     * @param schemaGenerator generates the schemas of the data object classes, or null to
+     *        introspect them with the {@link OpenApiDataObjectScanner}
+     */
+    OpenApiAnnotationScanner(IndexView index, Function<ClassType, Schema> schemaGenerator) {
+        this(index, new TypeHierarchy(index), new SchemaRegistry(), new TypeSchemaCache(), schemaGenerator);
+    }
+
+    /**
+     * Constructor.
+     * @param index
+     * @param typeHierarchy the type hierarchy of the index, shared by all scanners of the index
+     * @param schemaRegistry
+     * @param typeSchemas
+     * @param schemaGenerator
+     */
+    private OpenApiAnnotationScanner(IndexView index, TypeHierarchy typeHierarchy, SchemaRegistry schemaRegistry,
+            TypeSchemaCache typeSchemas, Function<ClassType, Schema> schemaGenerator) {
+        this.index = index;
+        this.typeHierarchy = typeHierarchy;
+        this.schemaRegistry = schemaRegistry;
+        this.typeSchemas = typeSchemas;
+        this.schemaGenerator = schemaGenerator != null ? schemaGenerator
+                : type -> OpenApiDataObjectScanner.process(index, typeHierarchy, type);
     }
 
     /**
@@ -167,132 +218,208 @@ public class OpenApiAnnotationScanner {
      * @param archive
      */
     protected static IndexView archiveToIndex(OpenApiConfig config, Archive archive) {
-        if (archive == null) {
-            throw new RuntimeException("Archive was null!");
-        }
+        return new ArchiveIndexer(config).index(archive);
+    }
+
+    /**
+     * Scan the deployment for relevant annotations.  Returns an OpenAPI data model that was
+     * built from those found annotations.
+     */
+    public OpenAPIImpl scan() {
+        return scan(null);
+    }
 
-        Indexer indexer = new Indexer();
-        index(indexer, "io/smallrye/openapi/runtime/scanner/CollectionStandin.class");
-        index(indexer, "io/smallrye/openapi/runtime/scanner/MapStandin.class");
-        indexArchive(config, indexer, archive);
-        return indexer.complete();
+    /**
+     * Scan the deployment for relevant annotations, reusing the models of the resource classes
+     * that the given cache still holds from a previous scan.
+     * @param resourceModels may be null
+     */
+    OpenAPIImpl scan(ResourceModelCache resourceModels) {
+        try (Instrumentation.Measurement m = Instrumentation.start(Phase.SCAN)) {
+            return doScan(resourceModels, applications(), JandexUtil.getJaxRsResourceClasses(this.index));
+        }
     }
 
-    private static void index(Indexer indexer, String resName) {
-        ClassLoader cl = OpenApiAnnotationScanner.class.getClassLoader();
-        try (InputStream klazzStream = cl.getResourceAsStream(resName)) {
-            indexer.index(klazzStream);
-        } catch (IOException ioe) {
-            throw new UncheckedIOException(ioe);
+    /**
+     * Scan a single shard of the deployment: every n-th JAX-RS resource class, and the
+     * Application classes in the first shard only.  See {@link ShardedAnnotationScanner}.
+     * @param shard
+     * @param shards
+     */
+    OpenAPIImpl scanShard(int shard, int shards) {
+        try (Instrumentation.Measurement m = Instrumentation.start(Phase.SCAN)) {
+            Collection<ClassInfo> applications = shard == 0 ? applications() : Collections.emptyList();
+            return doScan(null, applications, shard(JandexUtil.getJaxRsResourceClasses(this.index), shard, shards));
         }
     }
 
     /**
-     * Indexes the given archive.
-     * @param config
-     * @param indexer
-     * @param archive
+     * Returns the names given to the schemas generated so far, each with the class the
+     * schema was generated from.
      */
-    @SuppressWarnings("unchecked")
-    private static void indexArchive(OpenApiConfig config, Indexer indexer, Archive archive) {
-        Map<ArchivePath, Node> c = archive.getContent();
-        try {
-            for (Map.Entry<ArchivePath, Node> each : c.entrySet()) {
-                ArchivePath archivePath = each.getKey();
-                if (archivePath.get().endsWith(OpenApiConstants.CLASS_SUFFIX) && acceptClassForScanning(config, archivePath.get())) {
-                    try (InputStream contentStream = each.getValue().getAsset().openStream()) {
-                        //LOG.debugv("Indexing asset: {0} from archive: {1}", archivePath.get(), archive.getName());
-                        indexer.index(contentStream);
-                    }
-                    continue;
+    Map<String, DotName> getSchemaClasses() {
+        return schemaRegistry.classesByName();
+    }
+
+    /**
+     * Scan the deployment into one document per JAX-RS Application, rather than merging
+     * all of them into one.  Each resource class appears only in the document of the
+     * Application it belongs to, under its path.  The documents are scanned concurrently,
+     * each with schemas of its own.
+     *
+     * The resources of an Application are configured with
+     * "mp.openapi.extensions.application-resources.&lt;application class name&gt;", a comma
+     * separated list of resource class names and packages (which include their sub-packages),
+     * mirroring what its getClasses() method returns - that cannot be read from the index.
+     * An Application with such a list gets exactly those resources.  A resource class that
+     * is not listed anywhere belongs to the unconfigured Application whose package shares
+     * the most leading segments with its own; if several Applications share as many, the
+     * scan fails rather than guessing.
+     * @param config
+     * @throws IllegalStateException if a resource class is listed for more than one Application,
+     *         or cannot be told apart between several of them by package
+     */
+    public OpenApiDocumentRegistry scanPerApplication(OpenApiConfig config) {
+        try (Instrumentation.Measurement m = Instrumentation.start(Phase.SCAN)) {
+            Collection<ClassInfo> resourceClasses = JandexUtil.getJaxRsResourceClasses(this.index);
+            List<ClassInfo> applications = new ArrayList<>(applications());
+            if (applications.isEmpty()) {
+                return new OpenApiDocumentRegistry(Collections.singletonMap(OpenApiDocumentRegistry.DEFAULT_APPLICATION,
+                        doScan(null, applications, resourceClasses)));
+            }
+            applications.sort(Comparator.comparing(application -> application.name().toString()));
+
+            Map<DotName, Set<String>> configured = new HashMap<>();
+            List<ClassInfo> unconfigured = new ArrayList<>();
+            for (ClassInfo application : applications) {
+                Set<String> resources = config.applicationResources(application.name().toString());
+                resources.remove("");
+                if (resources.isEmpty()) {
+                    unconfigured.add(application);
+                } else {
+                    configured.put(application.name(), resources);
                 }
-                if (archivePath.get().endsWith(OpenApiConstants.JAR_SUFFIX) && acceptJarForScanning(config, archivePath.get())) {
-                    try (InputStream contentStream = each.getValue().getAsset().openStream()) {
-                        JavaArchive jarArchive = ShrinkWrap.create(JavaArchive.class, archivePath.get())
-                                .as(ZipImporter.class).importFrom(contentStream).as(JavaArchive.class);
-                        indexArchive(config, indexer, jarArchive);
-                    }
-                    continue;
+            }
+
+            Map<DotName, List<ClassInfo>> applicationResources = new HashMap<>();
+            for (ClassInfo resourceClass : resourceClasses) {
+                ClassInfo application = owningApplication(resourceClass, applications, configured, unconfigured);
+                if (application != null) {
+                    applicationResources.computeIfAbsent(application.name(), name -> new ArrayList<>()).add(resourceClass);
                 }
+                //else LOG.debug("Resource class " + resourceClass.name() + " is not part of any application");
+            }
+
+            List<OpenAPIImpl> models = applications.parallelStream()
+                    .map(application -> new OpenApiAnnotationScanner(index, typeHierarchy, new SchemaRegistry(),
+                            new TypeSchemaCache(), schemaGenerator).doScan(null, Collections.singletonList(application),
+                                    applicationResources.getOrDefault(application.name(), Collections.emptyList())))
+                    .collect(Collectors.toList());
+            Map<String, OpenAPIImpl> documents = new LinkedHashMap<>();
+            for (int i = 0; i < applications.size(); i++) {
+                documents.put(applications.get(i).name().toString(), models.get(i));
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            return new OpenApiDocumentRegistry(documents);
         }
     }
 
     /**
-     * Returns true if the given JAR archive (dependency) should be cracked open and indexed
-     * along with the rest of the deployment's classes.
-     * @param config
-     * @param jarName
+     * Returns the JAX-RS Application classes of the deployment.
      */
-    private static boolean acceptJarForScanning(OpenApiConfig config, String jarName) {
-        if (config.scanDependenciesDisable()) {
-            return false;
-        }
-        Set<String> scanDependenciesJars = config.scanDependenciesJars();
-        String nameOnly = new File(jarName).getName();
-        if (scanDependenciesJars.isEmpty() || scanDependenciesJars.contains(nameOnly)) {
-            return true;
-        }
-        return false;
+    private Collection<ClassInfo> applications() {
+        return this.index.getAllKnownSubclasses(DotName.createSimple(Application.class.getName()));
     }
 
     /**
-     * Returns true if the class represented by the given archive path should be included in
-     * the annotation index.
-     * @param config
-     * @param archivePath
+     * Returns the Application the given resource class belongs to: the one it is configured
+     * for, or else the unconfigured one whose package shares the most leading segments with
+     * that of the resource class.  Returns null if the resource class is not configured for
+     * any Application and all of them are configured.
+     * @param resourceClass
+     * @param applications all Applications, by name
+     * @param configured the configured resources of the configured Applications
+     * @param unconfigured the Applications without configured resources, by name
      */
-    private static boolean acceptClassForScanning(OpenApiConfig config, String archivePath) {
-        if (archivePath == null) {
-            return false;
-        }
-
-        Set<String> scanClasses = config.scanClasses();
-        Set<String> scanPackages = config.scanPackages();
-        Set<String> scanExcludeClasses = config.scanExcludeClasses();
-        Set<String> scanExcludePackages = config.scanExcludePackages();
-        if (scanClasses.isEmpty() && scanPackages.isEmpty() && scanExcludeClasses.isEmpty() && scanExcludePackages.isEmpty()) {
-            return true;
+    private static ClassInfo owningApplication(ClassInfo resourceClass, List<ClassInfo> applications,
+            Map<DotName, Set<String>> configured, List<ClassInfo> unconfigured) {
+        String resourceName = resourceClass.name().toString();
+        List<ClassInfo> owners = new ArrayList<>();
+        for (ClassInfo application : applications) {
+            Set<String> resources = configured.get(application.name());
+            if (resources != null && isListed(resourceName, resources)) {
+                owners.add(application);
+            }
         }
-
-        if (archivePath.startsWith(OpenApiConstants.WEB_ARCHIVE_CLASS_PREFIX)) {
-            archivePath = archivePath.substring(OpenApiConstants.WEB_ARCHIVE_CLASS_PREFIX.length());
+        if (owners.size() > 1) {
+            throw new IllegalStateException("Resource class " + resourceName + " is configured for more than one application: "
+                    + applicationNames(owners));
         }
-        String fqcn = archivePath.replaceAll("/", ".").substring(0, archivePath.lastIndexOf(OpenApiConstants.CLASS_SUFFIX));
-        String packageName = "";
-        if (fqcn.contains(".")) {
-            int idx = fqcn.lastIndexOf(".");
-            packageName = fqcn.substring(0, idx);
+        if (owners.size() == 1) {
+            return owners.get(0);
         }
 
-        boolean accept;
-        // Includes
-        if (scanClasses.isEmpty() && scanPackages.isEmpty()) {
-            accept = true;
-        } else if (!scanClasses.isEmpty() && scanPackages.isEmpty()) {
-            accept = scanClasses.contains(fqcn);
-        } else if (scanClasses.isEmpty() && !scanPackages.isEmpty()) {
-            accept = scanPackages.contains(packageName);
-        } else {
-            accept = scanClasses.contains(fqcn) || scanPackages.contains(packageName);
+        String resourcePackage = packageName(resourceClass.name());
+        int longest = -1;
+        for (ClassInfo application : unconfigured) {
+            int length = commonPackageSegments(resourcePackage, packageName(application.name()));
+            if (length > longest) {
+                owners.clear();
+                longest = length;
+            }
+            if (length == longest) {
+                owners.add(application);
+            }
         }
-        // Excludes override includes
-        if (!scanExcludeClasses.isEmpty() && scanExcludeClasses.contains(fqcn)) {
-            accept = false;
+        if (owners.size() > 1) {
+            throw new IllegalStateException("Cannot tell which application resource class " + resourceName
+                    + " belongs to, it could be any of " + applicationNames(owners) + "; list it in "
+                    + OpenApiConstants.APPLICATION_RESOURCES_PREFIX + "<application class name>");
         }
-        if (!scanExcludePackages.isEmpty() && scanExcludePackages.contains(packageName)) {
-            accept = false;
+        return owners.isEmpty() ? null : owners.get(0);
+    }
+
+    /**
+     * Returns true if the given class is one of the given classes, or in one of them taken
+     * as packages (or in a sub-package).
+     * @param className
+     * @param classesAndPackages
+     */
+    static boolean isListed(String className, Set<String> classesAndPackages) {
+        for (String entry : classesAndPackages) {
+            if (className.equals(entry) || className.startsWith(entry + ".")) {
+                return true;
+            }
         }
-        return accept;
+        return false;
+    }
+
+    private static String applicationNames(List<ClassInfo> applications) {
+        return applications.stream().map(application -> application.name().toString()).collect(Collectors.joining(", "));
     }
 
     /**
-     * Scan the deployment for relevant annotations.  Returns an OpenAPI data model that was
-     * built from those found annotations.
+     * Returns the number of leading segments the two package names have in common.
+     * @param package1
+     * @param package2
      */
-    public OpenAPIImpl scan() {
+    static int commonPackageSegments(String package1, String package2) {
+        String[] segments1 = package1.split("\\.");
+        String[] segments2 = package2.split("\\.");
+        int common = 0;
+        while (common < segments1.length && common < segments2.length && segments1[common].equals(segments2[common])) {
+            common++;
+        }
+        return common;
+    }
+
+    private static String packageName(DotName className) {
+        String name = className.toString();
+        int lastDot = name.lastIndexOf('.');
+        return lastDot < 0 ? "" : name.substring(0, lastDot);
+    }
+
+    private OpenAPIImpl doScan(ResourceModelCache resourceModels, Collection<ClassInfo> applications,
+            Collection<ClassInfo> resourceClasses) {
         //LOG.debug("Scanning deployment for OpenAPI and JAX-RS Annotations.");
 
         // Initialize a new OAI document.  Even if nothing is found, this will be returned.
@@ -300,20 +427,60 @@ public class OpenApiAnnotationScanner {
         oai.setOpenapi(OpenApiConstants.OPEN_API_VERSION);
 
         // Get all jax-rs applications and convert them to OAI models (and merge them into a single one)
-        Collection<ClassInfo> applications = this.index.getAllKnownSubclasses(DotName.createSimple(Application.class.getName()));
+        ScanContext appContext = ScanContext.ROOT;
         for (ClassInfo classInfo : applications) {
-            oai = MergeUtil.merge(oai, jaxRsApplicationToOpenApi(classInfo));
+            appContext = applicationContext(classInfo);
+            OpenAPIImpl appModel = jaxRsApplicationToOpenApi(classInfo);
+            nameSchemas(this);
+            oai = MergeUtil.merge(oai, appModel);
         }
 
         // TODO find all OpenAPIDefinition annotations at the package level
 
-        // Now find all jax-rs endpoints
-        Collection<ClassInfo> resourceClasses = JandexUtil.getJaxRsResourceClasses(this.index);
-        for (ClassInfo resourceClass : resourceClasses) {
-            processJaxRsResourceClass(oai, resourceClass);
+        // Now find all jax-rs endpoints.  Each resource class is processed into a model of its
+        // own, concurrently, and the models are then merged in the order the classes were found.
+        Instrumentation.count(Counter.RESOURCE_CLASSES, resourceClasses.size());
+        ScanContext resourcesContext = appContext;
+        List<OpenApiAnnotationScanner> resourceScanners = resourceClasses.parallelStream()
+                .map(resourceClass -> scanResource(resourceClass, resourcesContext, resourceModels))
+                .collect(Collectors.toList());
+        for (OpenApiAnnotationScanner resourceScanner : resourceScanners) {
+            // Schemas are named in the order they would have been named by a sequential scan
+            nameSchemas(resourceScanner);
+            oai = MergeUtil.merge(oai, resourceScanner.oai);
         }
 
         // Now that all paths have been created, sort them (we don't have a better way to organize them).
+        sortPaths(oai);
+
+        return oai;
+    }
+
+    /**
+     * Returns every n-th class of the given ones, starting with the one at the given shard.
+     * @param classes
+     * @param shard
+     * @param shards
+     */
+    private static Collection<ClassInfo> shard(Collection<ClassInfo> classes, int shard, int shards) {
+        if (shards == 1) {
+            return classes;
+        }
+        List<ClassInfo> selected = new ArrayList<>();
+        int i = 0;
+        for (ClassInfo classInfo : classes) {
+            if (i++ % shards == shard) {
+                selected.add(classInfo);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Sorts the paths of the given model by name.
+     * @param oai
+     */
+    static void sortPaths(OpenAPIImpl oai) {
         if (oai != null) {
             Paths paths = oai.getPaths();
             if (paths != null) {
@@ -327,8 +494,90 @@ public class OpenApiAnnotationScanner {
                 oai.setPaths(sortedPaths);
             }
         }
+    }
 
-        return oai;
+    /**
+     * Processes a single JAX-RS resource class into a model of its own, or restores the model
+     * from the given cache.  Returns the scanner holding the model.
+     * @param resourceClass
+     * @param appContext
+     * @param resourceModels may be null
+     */
+    private OpenApiAnnotationScanner scanResource(ClassInfo resourceClass, ScanContext appContext,
+            ResourceModelCache resourceModels) {
+        if (resourceModels != null) {
+            ResourceModel model = resourceModels.restore(resourceClass);
+            if (model != null) {
+                return restoreResource(model);
+            }
+        }
+        OpenApiAnnotationScanner resourceScanner = new OpenApiAnnotationScanner(index, typeHierarchy, schemaRegistry,
+                typeSchemas, schemaGenerator);
+        resourceScanner.oai = new OpenAPIImpl();
+        resourceScanner.processJaxRsResourceClass(resourceScanner.oai, resourceClass, appContext);
+        if (resourceModels != null) {
+            resourceModels.store(resourceClass, resourceScanner.snapshotResource());
+        }
+        return resourceScanner;
+    }
+
+    /**
+     * Takes a snapshot of the model of a resource class before its schema references are
+     * resolved.  Unresolved references are written as a $ref to the referenced class.
+     */
+    private ResourceModel snapshotResource() {
+        List<DotName> schemaClasses = new ArrayList<>();
+        for (SchemaReference reference : schemaReferences) {
+            reference.schema.setRef(UNRESOLVED_REF_PREFIX + reference.className);
+            if (!schemaClasses.contains(reference.className)) {
+                schemaClasses.add(reference.className);
+            }
+        }
+        JsonNode tree = OpenApiSerializer.serializeToTree(oai);
+        for (SchemaReference reference : schemaReferences) {
+            reference.schema.setRef(null);
+        }
+        return new ResourceModel(tree, schemaClasses);
+    }
+
+    /**
+     * Creates a scanner holding a model restored from a snapshot (see {@link #snapshotResource()}),
+     * with its schema references unresolved again.  The schemas of the referenced classes are
+     * generated (or restored by the schema generator) if they were not already.
+     * @param model
+     */
+    private OpenApiAnnotationScanner restoreResource(ResourceModel model) {
+        OpenApiAnnotationScanner resourceScanner = new OpenApiAnnotationScanner(index, typeHierarchy, schemaRegistry,
+                typeSchemas, schemaGenerator);
+        resourceScanner.oai = OpenApiParser.parse(model.tree);
+        List<SchemaReference> references = new ArrayList<>();
+        FilterUtil.applyFilter(new OASFilter() {
+            @Override
+            public Schema filterSchema(Schema schema) {
+                String ref = schema.getRef();
+                if (ref != null && ref.startsWith(UNRESOLVED_REF_PREFIX)) {
+                    schema.setRef(null);
+                    references.add(new SchemaReference(schema, DotName.createSimple(ref.substring(UNRESOLVED_REF_PREFIX.length()))));
+                }
+                return schema;
+            }
+        }, resourceScanner.oai);
+        // Restore the order in which the classes were first referenced, which determines their names
+        references.sort(Comparator.comparingInt(reference -> model.schemaClasses.indexOf(reference.className)));
+        for (SchemaReference reference : references) {
+            ClassType type = (ClassType) Type.create(reference.className, Type.Kind.CLASS);
+            if (this.schemaRegistry.register(type, schemaGenerator) != null) {
+                resourceScanner.schemaReferences.add(reference);
+            }
+        }
+        return resourceScanner;
+    }
+
+    /**
+     * @return the cache of the schemas generated for non-class types during the scan
+     */
+    public TypeSchemaCache getTypeSchemaCache() {
+        return typeSchemas;
     }
 
     /**
@@ -341,28 +590,16 @@ public class OpenApiAnnotationScanner {
         OpenAPIImpl oai = new OpenAPIImpl();
         oai.setOpenapi(OpenApiConstants.OPEN_API_VERSION);
 
-        // Get the @ApplicationPath info and save it for later (also support @Path which seems nonstandard but common).
-        ////////////////////////////////////////
-        AnnotationInstance appPathAnno = JandexUtil.getClassAnnotation(applicationClass, OpenApiConstants.DOTNAME_APPLICATION_PATH);
-        if (appPathAnno == null) {
-            appPathAnno = JandexUtil.getClassAnnotation(applicationClass, OpenApiConstants.DOTNAME_PATH);
-        }
-        if (appPathAnno != null) {
-            this.currentAppPath = appPathAnno.value().asString();
-        } else {
-            this.currentAppPath = "/";
-        }
-
         // Get the @OpenAPIDefinition annotation and process it.
         ////////////////////////////////////////
-        AnnotationInstance openApiDefAnno = JandexUtil.getClassAnnotation(applicationClass, OpenApiConstants.DOTNAME_OPEN_API_DEFINITION);
+        AnnotationInstance openApiDefAnno = classAnnotations(applicationClass).get(OpenApiConstants.DOTNAME_OPEN_API_DEFINITION);
         if (openApiDefAnno != null) {
             processDefinition(oai, openApiDefAnno);
         }
 
         // Process @SecurityScheme annotations
         ////////////////////////////////////////
-        List<AnnotationInstance> securitySchemeAnnotations = JandexUtil.getRepeatableAnnotation(applicationClass,
+        List<AnnotationInstance> securitySchemeAnnotations = classAnnotations(applicationClass).getRepeatable(
                 OpenApiConstants.DOTNAME_SECURITY_SCHEME, OpenApiConstants.DOTNAME_SECURITY_SCHEMES);
         for (AnnotationInstance annotation : securitySchemeAnnotations) {
             String name = JandexUtil.stringValue(annotation, OpenApiConstants.PROP_SECURITY_SCHEME_NAME);
@@ -378,7 +615,7 @@ public class OpenApiAnnotationScanner {
 
         // Process @Server annotations
         ///////////////////////////////////
-        List<AnnotationInstance> serverAnnotations = JandexUtil.getRepeatableAnnotation(applicationClass,
+        List<AnnotationInstance> serverAnnotations = classAnnotations(applicationClass).getRepeatable(
                 OpenApiConstants.DOTNAME_SERVER, OpenApiConstants.DOTNAME_SERVERS);
         for (AnnotationInstance annotation : serverAnnotations) {
             Server server = readServer(annotation);
@@ -388,23 +625,40 @@ public class OpenApiAnnotationScanner {
         return oai;
     }
 
+    /**
+     * Returns the context of the resources of the given JAX-RS {@link Application}: the path
+     * of the application, from its @ApplicationPath (also support @Path which seems nonstandard
+     * but common).
+     * @param applicationClass
+     */
+    private ScanContext applicationContext(ClassInfo applicationClass) {
+        AnnotationInstance appPathAnno = classAnnotations(applicationClass).get(OpenApiConstants.DOTNAME_APPLICATION_PATH);
+        if (appPathAnno == null) {
+            appPathAnno = classAnnotations(applicationClass).get(OpenApiConstants.DOTNAME_PATH);
+        }
+        return ScanContext.ROOT.withAppPath(appPathAnno != null ? appPathAnno.value().asString() : "/");
+    }
+
     /**
      * Processing a single JAX-RS resource class (annotated with @Path).
      * @param openApi
      * @param resourceClass
+     * @param appContext
      */
-    private void processJaxRsResourceClass(OpenAPIImpl openApi, ClassInfo resourceClass) {
+    private void processJaxRsResourceClass(OpenAPIImpl openApi, ClassInfo resourceClass, ScanContext appContext) {
         //LOG.debug("Processing a JAX-RS resource class: " + resourceClass.simpleName());
 
+        AnnotationView classAnnotations = classAnnotations(resourceClass);
+
         // Set the current resource path.
-        AnnotationInstance pathAnno = JandexUtil.getClassAnnotation(resourceClass, OpenApiConstants.DOTNAME_PATH);
-        this.currentResourcePath = pathAnno.value().asString();
+        AnnotationInstance pathAnno = classAnnotations.get(OpenApiConstants.DOTNAME_PATH);
+        ScanContext context = appContext.withResourcePath(pathAnno.value().asString());
 
         // TODO handle the use-case where the resource class extends a base class, and the base class has jax-rs relevant methods and annotations
 
         // Process @SecurityScheme annotations
         ////////////////////////////////////////
-        List<AnnotationInstance> securitySchemeAnnotations = JandexUtil.getRepeatableAnnotation(resourceClass,
+        List<AnnotationInstance> securitySchemeAnnotations = classAnnotations.getRepeatable(
                 OpenApiConstants.DOTNAME_SECURITY_SCHEME, OpenApiConstants.DOTNAME_SECURITY_SCHEMES);
         for (AnnotationInstance annotation : securitySchemeAnnotations) {
             String name = JandexUtil.stringValue(annotation, OpenApiConstants.PROP_SECURITY_SCHEME_NAME);
@@ -421,7 +675,7 @@ public class OpenApiAnnotationScanner {
         // Process tags (both declarations and references)
         ////////////////////////////////////////
         Set<String> tagRefs = new HashSet<>();
-        AnnotationInstance tagAnno = JandexUtil.getClassAnnotation(resourceClass, OpenApiConstants.DOTNAME_TAG);
+        AnnotationInstance tagAnno = classAnnotations.get(OpenApiConstants.DOTNAME_TAG);
         if (tagAnno != null) {
             if (JandexUtil.isRef(tagAnno)) {
                 String tagRef = JandexUtil.stringValue(tagAnno, OpenApiConstants.PROP_REF);
@@ -434,7 +688,7 @@ public class OpenApiAnnotationScanner {
                 }
             }
         }
-        AnnotationInstance tagsAnno = JandexUtil.getClassAnnotation(resourceClass, OpenApiConstants.DOTNAME_TAGS);
+        AnnotationInstance tagsAnno = classAnnotations.get(OpenApiConstants.DOTNAME_TAGS);
         if (tagsAnno != null) {
             AnnotationValue tagsArrayVal = tagsAnno.value();
             if (tagsArrayVal != null) {
@@ -462,55 +716,67 @@ public class OpenApiAnnotationScanner {
         // Now find and process the operation methods
         ////////////////////////////////////////
         for (MethodInfo methodInfo : resourceClass.methods()) {
-            AnnotationInstance get = methodInfo.annotation(OpenApiConstants.DOTNAME_GET);
+            AnnotationView annotations = AnnotationView.of(methodInfo);
+            AnnotationInstance get = annotations.get(OpenApiConstants.DOTNAME_GET);
             if (get != null) {
-                processJaxRsMethod(openApi, resourceClass, methodInfo, get, HttpMethod.GET, tagRefs);
+                processJaxRsMethod(openApi, resourceClass, methodInfo, annotations, get, HttpMethod.GET, tagRefs, context);
             }
-            AnnotationInstance put = methodInfo.annotation(OpenApiConstants.DOTNAME_PUT);
+            AnnotationInstance put = annotations.get(OpenApiConstants.DOTNAME_PUT);
             if (put != null) {
-                processJaxRsMethod(openApi, resourceClass, methodInfo, put, HttpMethod.PUT, tagRefs);
+                processJaxRsMethod(openApi, resourceClass, methodInfo, annotations, put, HttpMethod.PUT, tagRefs, context);
             }
-            AnnotationInstance post = methodInfo.annotation(OpenApiConstants.DOTNAME_POST);
+            AnnotationInstance post = annotations.get(OpenApiConstants.DOTNAME_POST);
             if (post != null) {
-                processJaxRsMethod(openApi, resourceClass, methodInfo, post, HttpMethod.POST, tagRefs);
+                processJaxRsMethod(openApi, resourceClass, methodInfo, annotations, post, HttpMethod.POST, tagRefs, context);
             }
-            AnnotationInstance delete = methodInfo.annotation(OpenApiConstants.DOTNAME_DELETE);
+            AnnotationInstance delete = annotations.get(OpenApiConstants.DOTNAME_DELETE);
             if (delete != null) {
-                processJaxRsMethod(openApi, resourceClass, methodInfo, delete, HttpMethod.DELETE, tagRefs);
+                processJaxRsMethod(openApi, resourceClass, methodInfo, annotations, delete, HttpMethod.DELETE, tagRefs, context);
             }
-            AnnotationInstance head = methodInfo.annotation(OpenApiConstants.DOTNAME_HEAD);
+            AnnotationInstance head = annotations.get(OpenApiConstants.DOTNAME_HEAD);
             if (head != null) {
-                processJaxRsMethod(openApi, resourceClass, methodInfo, head, HttpMethod.HEAD, tagRefs);
+                processJaxRsMethod(openApi, resourceClass, methodInfo, annotations, head, HttpMethod.HEAD, tagRefs, context);
             }
-            AnnotationInstance options = methodInfo.annotation(OpenApiConstants.DOTNAME_OPTIONS);
+            AnnotationInstance options = annotations.get(OpenApiConstants.DOTNAME_OPTIONS);
             if (options != null) {
-                processJaxRsMethod(openApi, resourceClass, methodInfo, options, HttpMethod.OPTIONS, tagRefs);
+                processJaxRsMethod(openApi, resourceClass, methodInfo, annotations, options, HttpMethod.OPTIONS, tagRefs, context);
             }
         }
     }
 
+    /**
+     * Returns the (cached) view of the class level annotations of the given class.
+     * @param clazz
+     */
+    private AnnotationView classAnnotations(ClassInfo clazz) {
+        return classAnnotations.computeIfAbsent(clazz.name(), name -> AnnotationView.of(clazz));
+    }
+
     /**
      * Process a single JAX-RS method to produce an OpenAPI Operation.
      * @param openApi
      * @param resource
      * @param method
+     * @param annotations
      * @param methodAnno
      * @param methodType
      * @param resourceTags
+     * @param resourceContext
      */
     private void processJaxRsMethod(OpenAPIImpl openApi, ClassInfo resource, MethodInfo method,
-            AnnotationInstance methodAnno, HttpMethod methodType, Set<String> resourceTags) {
+            AnnotationView annotations, AnnotationInstance methodAnno, HttpMethod methodType, Set<String> resourceTags,
+            ScanContext resourceContext) {
 
         //LOG.debugf("Processing jax-rs method: {0}", method.toString());
 
         // Figure out the path for the operation.  This is a combination of the App, Resource, and Method @Path annotations
         String path;
-        if (method.hasAnnotation(OpenApiConstants.DOTNAME_PATH)) {
-            AnnotationInstance pathAnno = method.annotation(OpenApiConstants.DOTNAME_PATH);
+        if (annotations.has(OpenApiConstants.DOTNAME_PATH)) {
+            AnnotationInstance pathAnno = annotations.get(OpenApiConstants.DOTNAME_PATH);
             String methodPath = pathAnno.value().asString();
-            path = makePath(this.currentAppPath, this.currentResourcePath, methodPath);
+            path = makePath(resourceContext.getAppPath(), resourceContext.getResourcePath(), methodPath);
         } else {
-            path = makePath(this.currentAppPath, this.currentResourcePath);
+            path = makePath(resourceContext.getAppPath(), resourceContext.getResourcePath());
         }
 
         // Get or create a PathItem to hold the operation
@@ -521,15 +787,15 @@ public class OpenApiAnnotationScanner {
         }
 
         // Figure out the current @Produces and @Consumes (if any)
-        currentConsumes = null;
-        currentProduces = null;
-        AnnotationInstance consumesAnno = method.annotation(OpenApiConstants.DOTNAME_CONSUMES);
+        String[] currentConsumes = null;
+        String[] currentProduces = null;
+        AnnotationInstance consumesAnno = annotations.get(OpenApiConstants.DOTNAME_CONSUMES);
         if (consumesAnno == null) {
-            consumesAnno = JandexUtil.getClassAnnotation(method.declaringClass(), OpenApiConstants.DOTNAME_CONSUMES);
+            consumesAnno = classAnnotations(method.declaringClass()).get(OpenApiConstants.DOTNAME_CONSUMES);
         }
-        AnnotationInstance producesAnno = method.annotation(OpenApiConstants.DOTNAME_PRODUCES);
+        AnnotationInstance producesAnno = annotations.get(OpenApiConstants.DOTNAME_PRODUCES);
         if (producesAnno == null) {
-            producesAnno = JandexUtil.getClassAnnotation(method.declaringClass(), OpenApiConstants.DOTNAME_PRODUCES);
+            producesAnno = classAnnotations(method.declaringClass()).get(OpenApiConstants.DOTNAME_PRODUCES);
         }
 
         if (consumesAnno != null) {
@@ -548,13 +814,14 @@ public class OpenApiAnnotationScanner {
                 currentProduces = OpenApiConstants.DEFAULT_PRODUCES;
             }
         }
+        ScanContext context = resourceContext.withMediaTypes(currentConsumes, currentProduces);
 
         Operation operation = new OperationImpl();
 
         // Process any @Operation annotation
         /////////////////////////////////////////
-        if (method.hasAnnotation(OpenApiConstants.DOTNAME_OPERATION)) {
-            AnnotationInstance operationAnno = method.annotation(OpenApiConstants.DOTNAME_OPERATION);
+        if (annotations.has(OpenApiConstants.DOTNAME_OPERATION)) {
+            AnnotationInstance operationAnno = annotations.get(OpenApiConstants.DOTNAME_OPERATION);
             // If the operation is marked as hidden, just bail here because we don't want it as part of the model.
             if (operationAnno.value(OpenApiConstants.PROP_HIDDEN) != null && operationAnno.value(OpenApiConstants.PROP_HIDDEN).asBoolean()) {
                 return;
@@ -570,9 +837,9 @@ public class OpenApiAnnotationScanner {
         /////////////////////////////////////////
         boolean hasOpTags = false;
         Set<String> tags = new HashSet<>();
-        if (method.hasAnnotation(OpenApiConstants.DOTNAME_TAG)) {
+        if (annotations.has(OpenApiConstants.DOTNAME_TAG)) {
             hasOpTags = true;
-            AnnotationInstance tagAnno = method.annotation(OpenApiConstants.DOTNAME_TAG);
+            AnnotationInstance tagAnno = annotations.get(OpenApiConstants.DOTNAME_TAG);
             if (JandexUtil.isRef(tagAnno)) {
                 String tagRef = JandexUtil.stringValue(tagAnno, OpenApiConstants.PROP_REF);
                 tags.add(tagRef);
@@ -586,9 +853,9 @@ public class OpenApiAnnotationScanner {
                 }
             }
         }
-        if (method.hasAnnotation(OpenApiConstants.DOTNAME_TAGS)) {
+        if (annotations.has(OpenApiConstants.DOTNAME_TAGS)) {
             hasOpTags = true;
-            AnnotationInstance tagsAnno = method.annotation(OpenApiConstants.DOTNAME_TAGS);
+            AnnotationInstance tagsAnno = annotations.get(OpenApiConstants.DOTNAME_TAGS);
             AnnotationValue tagsArrayVal = tagsAnno.value();
             if (tagsArrayVal != null) {
                 AnnotationInstance[] tagsArray = tagsArrayVal.asNestedArray();
@@ -620,10 +887,10 @@ public class OpenApiAnnotationScanner {
 
         // Process @Parameter annotations
         /////////////////////////////////////////
-        List<AnnotationInstance> parameterAnnotations = JandexUtil.getRepeatableAnnotation(method,
+        List<AnnotationInstance> parameterAnnotations = annotations.getRepeatable(
                 OpenApiConstants.DOTNAME_PARAMETER, OpenApiConstants.DOTNAME_PARAMETERS);
         for (AnnotationInstance annotation : parameterAnnotations) {
-            Parameter parameter = readParameter(annotation);
+            Parameter parameter = readParameter(annotation, context);
             if (parameter == null) {
                 // Param was hidden
                 continue;
@@ -634,7 +901,7 @@ public class OpenApiAnnotationScanner {
             // If the target is METHOD, then the @Parameter is on the method itself
             // If the target is METHOD_PARAMETER, then the @Parameter is on one of the method's arguments (THIS ONE WE CARE ABOUT)
             if (target != null && target.kind() == Kind.METHOD_PARAMETER) {
-                In in = parameterIn(target.asMethodParameter());
+                In in = parameterIn(annotations, target.asMethodParameter().position());
                 parameter.setIn(in);
 
                 // if the Parameter model we read does *NOT* have a Schema at this point, then create one from the method argument's type
@@ -653,7 +920,7 @@ public class OpenApiAnnotationScanner {
         // Now process any jax-rs parameters that were NOT annotated with @Parameter (do not yet exist in the model)
         List<Type> parameters = method.parameters();
         for (int idx = 0; idx < parameters.size(); idx++) {
-            JaxRsParameterInfo paramInfo = JandexUtil.getMethodParameterJaxRsInfo(method, idx);
+            JaxRsParameterInfo paramInfo = JandexUtil.getMethodParameterJaxRsInfo(annotations, idx);
             if (paramInfo != null && !ModelUtil.operationHasParameter(operation, paramInfo.name)) {
                 Type paramType = parameters.get(idx);
                 Parameter parameter = new ParameterImpl();
@@ -674,33 +941,33 @@ public class OpenApiAnnotationScanner {
         // Process any @RequestBody annotation
         /////////////////////////////////////////
         // note: the @RequestBody annotation can be found on a method argument *or* on the method
-        List<AnnotationInstance> requestBodyAnnotations = JandexUtil.getRepeatableAnnotation(method, OpenApiConstants.DOTNAME_REQUEST_BODY, null);
+        List<AnnotationInstance> requestBodyAnnotations = annotations.getRepeatable(OpenApiConstants.DOTNAME_REQUEST_BODY, null);
         for (AnnotationInstance annotation : requestBodyAnnotations) {
-            RequestBody requestBody = readRequestBody(annotation);
+            RequestBody requestBody = readRequestBody(annotation, context);
             // TODO if the method argument type is Request, don't generate a Schema!
             if (!ModelUtil.requestBodyHasSchema(requestBody)) {
                 Type requestBodyType = null;
                 if (annotation.target().kind() == AnnotationTarget.Kind.METHOD_PARAMETER) {
                     requestBodyType = JandexUtil.getMethodParameterType(method, annotation.target().asMethodParameter().position());
                 } else if (annotation.target().kind() == AnnotationTarget.Kind.METHOD) {
-                    requestBodyType = JandexUtil.getRequestBodyParameterClassType(method);
+                    requestBodyType = JandexUtil.getRequestBodyParameterClassType(method, annotations);
                 }
                 if (requestBodyType != null) {
                     Schema schema = typeToSchema(requestBodyType);
-                    ModelUtil.setRequestBodySchema(requestBody, schema, currentConsumes);
+                    ModelUtil.setRequestBodySchema(requestBody, schema, context.getConsumes());
                 }
             }
             operation.setRequestBody(requestBody);
         }
         // If the request body is null, figure it out from the parameters.  Only if the
         // method declares that it @Consumes data
-        if (operation.getRequestBody() == null && currentConsumes != null) {
-            Type requestBodyType = JandexUtil.getRequestBodyParameterClassType(method);
+        if (operation.getRequestBody() == null && context.getConsumes() != null) {
+            Type requestBodyType = JandexUtil.getRequestBodyParameterClassType(method, annotations);
             if (requestBodyType != null) {
                 Schema schema = typeToSchema(requestBodyType);
                 if (schema != null) {
                     RequestBody requestBody = new RequestBodyImpl();
-                    ModelUtil.setRequestBodySchema(requestBody, schema, currentConsumes);
+                    ModelUtil.setRequestBodySchema(requestBody, schema, context.getConsumes());
                     operation.setRequestBody(requestBody);
                 }
             }
@@ -709,28 +976,28 @@ public class OpenApiAnnotationScanner {
 
         // Process @APIResponse annotations
         /////////////////////////////////////////
-        List<AnnotationInstance> apiResponseAnnotations = JandexUtil.getRepeatableAnnotation(method,
+        List<AnnotationInstance> apiResponseAnnotations = annotations.getRepeatable(
                 OpenApiConstants.DOTNAME_API_RESPONSE, OpenApiConstants.DOTNAME_API_RESPONSES);
         for (AnnotationInstance annotation : apiResponseAnnotations) {
             String responseCode = JandexUtil.stringValue(annotation, OpenApiConstants.PROP_RESPONSE_CODE);
             if (responseCode == null) {
                 responseCode = APIResponses.DEFAULT;
             }
-            APIResponse response = readResponse(annotation);
+            APIResponse response = readResponse(annotation, context);
             APIResponses responses = ModelUtil.responses(operation);
             responses.addApiResponse(responseCode, response);
         }
         // If there are no responses from annotations, try to create a response from the method return value.
         if (operation.getResponses() == null || operation.getResponses().isEmpty()) {
-            createResponseFromJaxRsMethod(method, operation);
+            createResponseFromJaxRsMethod(method, annotations, operation, context);
         }
 
         // Process @SecurityRequirement annotations
         ///////////////////////////////////////////
-        List<AnnotationInstance> securityRequirementAnnotations = JandexUtil.getRepeatableAnnotation(method,
+        List<AnnotationInstance> securityRequirementAnnotations = annotations.getRepeatable(
                 OpenApiConstants.DOTNAME_SECURITY_REQUIREMENT, OpenApiConstants.DOTNAME_SECURITY_REQUIREMENTS);
         securityRequirementAnnotations.addAll(
-            JandexUtil.getRepeatableAnnotation(resource, OpenApiConstants.DOTNAME_SECURITY_REQUIREMENT, OpenApiConstants.DOTNAME_SECURITY_REQUIREMENTS)
+            classAnnotations(resource).getRepeatable(OpenApiConstants.DOTNAME_SECURITY_REQUIREMENT, OpenApiConstants.DOTNAME_SECURITY_REQUIREMENTS)
         );
         for (AnnotationInstance annotation : securityRequirementAnnotations) {
             SecurityRequirement requirement = readSecurityRequirement(annotation);
@@ -741,7 +1008,7 @@ public class OpenApiAnnotationScanner {
 
         // Process @Callback annotations
         /////////////////////////////////////////
-        List<AnnotationInstance> callbackAnnotations = JandexUtil.getRepeatableAnnotation(method,
+        List<AnnotationInstance> callbackAnnotations = annotations.getRepeatable(
                 OpenApiConstants.DOTNAME_CALLBACK, OpenApiConstants.DOTNAME_CALLBACKS);
         Map<String, Callback> callbacks = new LinkedHashMap<>();
         for (AnnotationInstance annotation : callbackAnnotations) {
@@ -750,7 +1017,7 @@ public class OpenApiAnnotationScanner {
                 name = JandexUtil.nameFromRef(annotation);
             }
             if (name != null) {
-                callbacks.put(name, readCallback(annotation));
+                callbacks.put(name, readCallback(annotation, context));
             }
 
             if (!callbacks.isEmpty()) {
@@ -760,10 +1027,10 @@ public class OpenApiAnnotationScanner {
 
         // Process @Server annotations
         ///////////////////////////////////
-        List<AnnotationInstance> serverAnnotations = JandexUtil.getRepeatableAnnotation(method,
+        List<AnnotationInstance> serverAnnotations = annotations.getRepeatable(
                 OpenApiConstants.DOTNAME_SERVER, OpenApiConstants.DOTNAME_SERVERS);
         if (serverAnnotations.isEmpty()) {
-            serverAnnotations.addAll(JandexUtil.getRepeatableAnnotation(method.declaringClass(),
+            serverAnnotations.addAll(classAnnotations(method.declaringClass()).getRepeatable(
                     OpenApiConstants.DOTNAME_SERVER, OpenApiConstants.DOTNAME_SERVERS));
         }
         for (AnnotationInstance annotation : serverAnnotations) {
@@ -801,6 +1068,7 @@ public class OpenApiAnnotationScanner {
             default:
                 break;
         }
+        Instrumentation.count(Counter.OPERATIONS, 1);
     }
 
     /**
@@ -817,9 +1085,12 @@ public class OpenApiAnnotationScanner {
      *
      * TODO generate responses for each checked exception?
      * @param method
+     * @param annotations
      * @param operation
+     * @param context
      */
-    private void createResponseFromJaxRsMethod(MethodInfo method, Operation operation) {
+    private void createResponseFromJaxRsMethod(MethodInfo method, AnnotationView annotations, Operation operation,
+            ScanContext context) {
         Type returnType = method.returnType();
 
         Schema schema;
@@ -829,7 +1100,7 @@ public class OpenApiAnnotationScanner {
 
         if (returnType.kind() == Type.Kind.VOID) {
             String code = "204";
-            if (method.hasAnnotation(OpenApiConstants.DOTNAME_POST)) {
+            if (annotations.has(OpenApiConstants.DOTNAME_POST)) {
                 code = "201";
             }
             responses = ModelUtil.responses(operation);
@@ -840,7 +1111,7 @@ public class OpenApiAnnotationScanner {
             responses = ModelUtil.responses(operation);
             response = new APIResponseImpl();
             content = new ContentImpl();
-            String[] produces = this.currentProduces;
+            String[] produces = context.getProduces();
             if (produces == null || produces.length == 0) {
                 produces = OpenApiConstants.DEFAULT_PRODUCES;
             }
@@ -865,7 +1136,7 @@ public class OpenApiAnnotationScanner {
         } else if (type.kind() == Type.Kind.PRIMITIVE) {
             schema = OpenApiDataObjectScanner.process(type.asPrimitiveType());
         } else {
-            schema = OpenApiDataObjectScanner.process(index, type);
+            schema = typeSchemas.get(type, t -> OpenApiDataObjectScanner.process(index, typeHierarchy, t));
         }
         return schema;
     }
@@ -873,13 +1144,11 @@ public class OpenApiAnnotationScanner {
     /**
      * Determines where an @Parameter can be found (examples include Query, Path,
      * Header, Cookie, etc).
-     * @param target
+     * @param annotations the annotations of the method
+     * @param paramPosition
      */
-    private In parameterIn(MethodParameterInfo paramInfo) {
-        MethodInfo method = paramInfo.method();
-        short paramPosition = paramInfo.position();
-        List<AnnotationInstance> annotations = JandexUtil.getParameterAnnotations(method, paramPosition);
-        for (AnnotationInstance annotation : annotations) {
+    private In parameterIn(AnnotationView annotations, int paramPosition) {
+        for (AnnotationInstance annotation : annotations.getParameterAnnotations(paramPosition)) {
             if (annotation.name().equals(OpenApiConstants.DOTNAME_QUERY_PARAM)) {
                 return In.QUERY;
             }
@@ -1176,13 +1445,13 @@ public class OpenApiAnnotationScanner {
         AnnotationInstance nested = componentsAnno.asNested();
         Components components = new ComponentsImpl();
         // TODO for EVERY item below, handle the case where the annotation is ref-only.  then strip the ref path and use the final segment as the name
-        components.setCallbacks(readCallbacks(nested.value(OpenApiConstants.PROP_CALLBACKS)));
+        components.setCallbacks(readCallbacks(nested.value(OpenApiConstants.PROP_CALLBACKS), ScanContext.ROOT));
         components.setExamples(readExamples(nested.value(OpenApiConstants.PROP_EXAMPLES)));
         components.setHeaders(readHeaders(nested.value(OpenApiConstants.PROP_HEADERS)));
         components.setLinks(readLinks(nested.value(OpenApiConstants.PROP_LINKS)));
-        components.setParameters(readParameters(nested.value(OpenApiConstants.PROP_PARAMETERS)));
-        components.setRequestBodies(readRequestBodies(nested.value(OpenApiConstants.PROP_REQUEST_BODIES)));
-        components.setResponses(readResponses(nested.value(OpenApiConstants.PROP_RESPONSES)));
+        components.setParameters(readParameters(nested.value(OpenApiConstants.PROP_PARAMETERS), ScanContext.ROOT));
+        components.setRequestBodies(readRequestBodies(nested.value(OpenApiConstants.PROP_REQUEST_BODIES), ScanContext.ROOT));
+        components.setResponses(readResponses(nested.value(OpenApiConstants.PROP_RESPONSES), ScanContext.ROOT));
         components.setSchemas(readSchemas(nested.value(OpenApiConstants.PROP_SCHEMAS)));
         components.setSecuritySchemes(readSecuritySchemes(nested.value(OpenApiConstants.PROP_SECURITY_SCHEMES)));
         return components;
@@ -1191,8 +1460,9 @@ public class OpenApiAnnotationScanner {
     /**
      * Reads a map of Callback annotations.
      * @param value
+     * @param context
      */
-    private Map<String, Callback> readCallbacks(AnnotationValue value) {
+    private Map<String, Callback> readCallbacks(AnnotationValue value, ScanContext context) {
         if (value == null) {
             return null;
         }
@@ -1205,7 +1475,7 @@ public class OpenApiAnnotationScanner {
                 name = JandexUtil.nameFromRef(nested);
             }
             if (name != null) {
-                map.put(name, readCallback(nested));
+                map.put(name, readCallback(nested, context));
             }
         }
         return map;
@@ -1214,8 +1484,9 @@ public class OpenApiAnnotationScanner {
     /**
      * Reads a Callback annotation into a model.
      * @param annotation
+     * @param context
      */
-    private Callback readCallback(AnnotationInstance annotation) {
+    private Callback readCallback(AnnotationInstance annotation, ScanContext context) {
         if (annotation == null) {
             return null;
         }
@@ -1223,7 +1494,7 @@ public class OpenApiAnnotationScanner {
         Callback callback = new CallbackImpl();
         callback.setRef(JandexUtil.refValue(annotation, RefType.Callback));
         String expression = JandexUtil.stringValue(annotation, OpenApiConstants.PROP_CALLBACK_URL_EXPRESSION);
-        callback.put(expression, readCallbackOperations(annotation.value(OpenApiConstants.PROP_OPERATIONS)));
+        callback.put(expression, readCallbackOperations(annotation.value(OpenApiConstants.PROP_OPERATIONS), context));
         return callback;
     }
 
@@ -1231,8 +1502,9 @@ public class OpenApiAnnotationScanner {
      * Reads the CallbackOperation annotations as a PathItem.  The annotation value
      * in this case is an array of CallbackOperation annotations.
      * @param value
+     * @param context
      */
-    private PathItem readCallbackOperations(AnnotationValue value) {
+    private PathItem readCallbackOperations(AnnotationValue value, ScanContext context) {
         if (value == null) {
             return null;
         }
@@ -1241,7 +1513,7 @@ public class OpenApiAnnotationScanner {
         PathItem pathItem = new PathItemImpl();
         for (AnnotationInstance operationAnno : nestedArray) {
             String method = JandexUtil.stringValue(operationAnno, OpenApiConstants.PROP_METHOD);
-            Operation operation = readCallbackOperation(operationAnno);
+            Operation operation = readCallbackOperation(operationAnno, context);
             if (method == null) {
                 continue;
             }
@@ -1260,8 +1532,9 @@ public class OpenApiAnnotationScanner {
      * Reads a single CallbackOperation annotation.
      * @param operationAnno
      * @return
+     * @param context
      */
-    private Operation readCallbackOperation(AnnotationInstance annotation) {
+    private Operation readCallbackOperation(AnnotationInstance annotation, ScanContext context) {
         if (annotation == null) {
             return null;
         }
@@ -1270,9 +1543,9 @@ public class OpenApiAnnotationScanner {
         operation.setSummary(JandexUtil.stringValue(annotation, OpenApiConstants.PROP_SUMMARY));
         operation.setDescription(JandexUtil.stringValue(annotation, OpenApiConstants.PROP_DESCRIPTION));
         operation.setExternalDocs(readExternalDocs(annotation.value(OpenApiConstants.PROP_EXTERNAL_DOCS)));
-        operation.setParameters(readCallbackOperationParameters(annotation.value(OpenApiConstants.PROP_PARAMETERS)));
-        operation.setRequestBody(readRequestBody(annotation.value(OpenApiConstants.PROP_REQUEST_BODY)));
-        operation.setResponses(readCallbackOperationResponses(annotation.value(OpenApiConstants.PROP_RESPONSES)));
+        operation.setParameters(readCallbackOperationParameters(annotation.value(OpenApiConstants.PROP_PARAMETERS), context));
+        operation.setRequestBody(readRequestBody(annotation.value(OpenApiConstants.PROP_REQUEST_BODY), context));
+        operation.setResponses(readCallbackOperationResponses(annotation.value(OpenApiConstants.PROP_RESPONSES), context));
         operation.setSecurity(readSecurity(annotation.value(OpenApiConstants.PROP_SECURITY)));
         operation.setExtensions(readExtensions(annotation.value(OpenApiConstants.PROP_EXTENSIONS)));
         return operation;
@@ -1281,8 +1554,9 @@ public class OpenApiAnnotationScanner {
     /**
      * Reads an array of Parameter annotations into a list.
      * @param value
+     * @param context
      */
-    private List<Parameter> readCallbackOperationParameters(AnnotationValue value) {
+    private List<Parameter> readCallbackOperationParameters(AnnotationValue value, ScanContext context) {
         if (value == null) {
             return null;
         }
@@ -1290,7 +1564,7 @@ public class OpenApiAnnotationScanner {
         List<Parameter> parameters = new ArrayList<>();
         AnnotationInstance[] nestedArray = value.asNestedArray();
         for (AnnotationInstance nested : nestedArray) {
-            parameters.add(readParameter(nested));
+            parameters.add(readParameter(nested, context));
         }
         return parameters;
     }
@@ -1298,8 +1572,9 @@ public class OpenApiAnnotationScanner {
     /**
      * Reads an array of APIResponse annotations into an {@link APIResponses} model.
      * @param value
+     * @param context
      */
-    private APIResponses readCallbackOperationResponses(AnnotationValue value) {
+    private APIResponses readCallbackOperationResponses(AnnotationValue value, ScanContext context) {
         if (value == null) {
             return null;
         }
@@ -1309,7 +1584,7 @@ public class OpenApiAnnotationScanner {
         for (AnnotationInstance nested : nestedArray) {
             String responseCode = JandexUtil.stringValue(nested, OpenApiConstants.PROP_RESPONSE_CODE);
             if (responseCode != null) {
-                responses.put(responseCode, readResponse(nested));
+                responses.put(responseCode, readResponse(nested, context));
             }
         }
         return responses;
@@ -1464,8 +1739,9 @@ public class OpenApiAnnotationScanner {
     /**
      * Reads a map of Parameter annotations.
      * @param value
+     * @param context
      */
-    private Map<String, Parameter> readParameters(AnnotationValue value) {
+    private Map<String, Parameter> readParameters(AnnotationValue value, ScanContext context) {
         if (value == null) {
             return null;
         }
@@ -1478,7 +1754,7 @@ public class OpenApiAnnotationScanner {
                 name = JandexUtil.nameFromRef(nested);
             }
             if (name != null) {
-                Parameter parameter = readParameter(nested);
+                Parameter parameter = readParameter(nested, context);
                 if (parameter != null) {
                     map.put(name, parameter);
                 }
@@ -1490,8 +1766,9 @@ public class OpenApiAnnotationScanner {
     /**
      * Reads a Parameter annotation into a model.
      * @param annotation
+     * @param context
      */
-    private Parameter readParameter(AnnotationInstance annotation) {
+    private Parameter readParameter(AnnotationInstance annotation, ScanContext context) {
         if (annotation == null) {
             return null;
         }
@@ -1514,7 +1791,7 @@ public class OpenApiAnnotationScanner {
         parameter.setExplode(readExplode(JandexUtil.enumValue(annotation, OpenApiConstants.PROP_EXPLODE, org.eclipse.microprofile.openapi.annotations.enums.Explode.class)));
         parameter.setAllowReserved(JandexUtil.booleanValue(annotation, OpenApiConstants.PROP_ALLOW_RESERVED));
         parameter.setSchema(readSchema(annotation.value(OpenApiConstants.PROP_SCHEMA)));
-        parameter.setContent(readContent(annotation.value(OpenApiConstants.PROP_CONTENT), ContentDirection.Parameter));
+        parameter.setContent(readContent(annotation.value(OpenApiConstants.PROP_CONTENT), ContentDirection.Parameter, context));
         parameter.setExamples(readExamples(annotation.value(OpenApiConstants.PROP_EXAMPLES)));
         parameter.setExample(JandexUtil.stringValue(annotation, OpenApiConstants.PROP_EXAMPLE));
         parameter.setRef(JandexUtil.refValue(annotation, RefType.Parameter));
@@ -1539,8 +1816,9 @@ public class OpenApiAnnotationScanner {
      * Reads a single Content annotation into a model.  The value in this case is an array of
      * Content annotations.
      * @param value
+     * @param context
      */
-    private Content readContent(AnnotationValue value, ContentDirection direction) {
+    private Content readContent(AnnotationValue value, ContentDirection direction, ScanContext context) {
         if (value == null) {
             return null;
         }
@@ -1554,11 +1832,11 @@ public class OpenApiAnnotationScanner {
                 // If the content type is not provided in the @Content annotation, then
                 // we assume it applies to all the jax-rs method's @Consumes or @Produces
                 String[] mimeTypes = {};
-                if (direction == ContentDirection.Input && currentConsumes != null) {
-                    mimeTypes = currentConsumes;
+                if (direction == ContentDirection.Input && context.getConsumes() != null) {
+                    mimeTypes = context.getConsumes();
                 }
-                if (direction == ContentDirection.Output && currentProduces != null) {
-                    mimeTypes = currentProduces;
+                if (direction == ContentDirection.Output && context.getProduces() != null) {
+                    mimeTypes = context.getProduces();
                 }
                 if (direction == ContentDirection.Parameter) {
                     mimeTypes = OpenApiConstants.DEFAULT_PARAMETER_MEDIA_TYPES;
@@ -1630,8 +1908,9 @@ public class OpenApiAnnotationScanner {
     /**
      * Reads a map of RequestBody annotations.
      * @param value
+     * @param context
      */
-    private Map<String, RequestBody> readRequestBodies(AnnotationValue value) {
+    private Map<String, RequestBody> readRequestBodies(AnnotationValue value, ScanContext context) {
         if (value == null) {
             return null;
         }
@@ -1644,7 +1923,7 @@ public class OpenApiAnnotationScanner {
                 name = JandexUtil.nameFromRef(nested);
             }
             if (name != null) {
-                map.put(name, readRequestBody(nested));
+                map.put(name, readRequestBody(nested, context));
             }
         }
         return map;
@@ -1653,26 +1932,28 @@ public class OpenApiAnnotationScanner {
     /**
      * Reads a RequestBody annotation into a model.
      * @param value
+     * @param context
      */
-    private RequestBody readRequestBody(AnnotationValue value) {
+    private RequestBody readRequestBody(AnnotationValue value, ScanContext context) {
         if (value == null) {
             return null;
         }
-        return readRequestBody(value.asNested());
+        return readRequestBody(value.asNested(), context);
     }
 
     /**
      * Reads a RequestBody annotation into a model.
      * @param annotation
+     * @param context
      */
-    private RequestBody readRequestBody(AnnotationInstance annotation) {
+    private RequestBody readRequestBody(AnnotationInstance annotation, ScanContext context) {
         if (annotation == null) {
             return null;
         }
         //LOG.debug("Processing a single @RequestBody annotation.");
         RequestBody requestBody = new RequestBodyImpl();
         requestBody.setDescription(JandexUtil.stringValue(annotation, OpenApiConstants.PROP_DESCRIPTION));
-        requestBody.setContent(readContent(annotation.value(OpenApiConstants.PROP_CONTENT), ContentDirection.Input));
+        requestBody.setContent(readContent(annotation.value(OpenApiConstants.PROP_CONTENT), ContentDirection.Input, context));
         requestBody.setRequired(JandexUtil.booleanValue(annotation, OpenApiConstants.PROP_REQUIRED));
         requestBody.setRef(JandexUtil.refValue(annotation, RefType.RequestBody));
         return requestBody;
@@ -1681,8 +1962,9 @@ public class OpenApiAnnotationScanner {
     /**
      * Reads a map of APIResponse annotations.
      * @param value
+     * @param context
      */
-    private Map<String, APIResponse> readResponses(AnnotationValue value) {
+    private Map<String, APIResponse> readResponses(AnnotationValue value, ScanContext context) {
         if (value == null) {
             return null;
         }
@@ -1695,7 +1977,7 @@ public class OpenApiAnnotationScanner {
                 name = JandexUtil.nameFromRef(nested);
             }
             if (name != null) {
-                map.put(name, readResponse(nested));
+                map.put(name, readResponse(nested, context));
             }
         }
         return map;
@@ -1704,8 +1986,9 @@ public class OpenApiAnnotationScanner {
     /**
      * Reads a APIResponse annotation into a model.
      * @param annotation
+     * @param context
      */
-    private APIResponse readResponse(AnnotationInstance annotation) {
+    private APIResponse readResponse(AnnotationInstance annotation, ScanContext context) {
         if (annotation == null) {
             return null;
         }
@@ -1714,7 +1997,7 @@ public class OpenApiAnnotationScanner {
         response.setDescription(JandexUtil.stringValue(annotation, OpenApiConstants.PROP_DESCRIPTION));
         response.setHeaders(readHeaders(annotation.value(OpenApiConstants.PROP_HEADERS)));
         response.setLinks(readLinks(annotation.value(OpenApiConstants.PROP_LINKS)));
-        response.setContent(readContent(annotation.value(OpenApiConstants.PROP_CONTENT), ContentDirection.Output));
+        response.setContent(readContent(annotation.value(OpenApiConstants.PROP_CONTENT), ContentDirection.Output, context));
         response.setRef(JandexUtil.refValue(annotation, RefType.Response));
         return response;
     }
@@ -1866,23 +2149,36 @@ public class OpenApiAnnotationScanner {
         if (ctype.name().equals(OpenApiConstants.DOTNAME_RESPONSE)) {
             return null;
         }
-        if (schemaReferenceSupported && this.schemaRegistry.has(ctype)) {
-            GeneratedSchemaInfo schemaInfo = this.schemaRegistry.lookup(ctype);
+        if (schemaReferenceSupported && this.index.getClassByName(ctype.name()) != null) {
+            GeneratedSchemaInfo schemaInfo = this.schemaRegistry.register(ctype, schemaGenerator);
+            if (schemaInfo == null) {
+                return null;
+            }
+            // The schema may not be named yet, so the $ref is set later (see nameSchemas)
             Schema rval = new SchemaImpl();
-            rval.setRef(schemaInfo.$ref);
+            schemaReferences.add(new SchemaReference(rval, ctype.name()));
             return rval;
         } else {
-            Schema schema = OpenApiDataObjectScanner.process(index, ctype);
-            if (schemaReferenceSupported && schema != null && this.index.getClassByName(ctype.name()) != null) {
-                GeneratedSchemaInfo schemaInfo = this.schemaRegistry.register(ctype, schema);
-                ModelUtil.components(oai).addSchema(schemaInfo.name, schema);
-                Schema rval = new SchemaImpl();
-                rval.setRef(schemaInfo.$ref);
-                return rval;
-            } else {
-                return schema;
+            return OpenApiDataObjectScanner.process(index, typeHierarchy, ctype);
+        }
+    }
+
+    /**
+     * Names the generated schemas referenced by the given scanner that have not been named yet
+     * (adding them to the components of this scanner's model), then points all of the scanner's
+     * references at their schemas.  Only ever called from the thread running {@link #scan()}.
+     * @param scanner
+     */
+    private void nameSchemas(OpenApiAnnotationScanner scanner) {
+        for (SchemaReference reference : scanner.schemaReferences) {
+            GeneratedSchemaInfo schemaInfo = this.schemaRegistry.lookup(reference.className);
+            if (schemaInfo.name == null) {
+                this.schemaRegistry.name(schemaInfo, reference.className);
+                ModelUtil.components(oai).addSchema(schemaInfo.name, schemaInfo.schema);
             }
+            reference.schema.setRef(schemaInfo.$ref);
         }
+        scanner.schemaReferences.clear();
     }
 
     /**
@@ -2042,34 +2338,139 @@ public class OpenApiAnnotationScanner {
         public String $ref;
     }
 
+    /**
+     * The model of a single resource class, as produced by a scan, before its references to
+     * generated schemas were resolved.
+     */
+    static class ResourceModel {
+        private final JsonNode tree;
+        private final List<DotName> schemaClasses;
+
+        /**
+         * Constructor.
+         * @param tree the serialized model
+         * @param schemaClasses the classes referenced by the model, in order of first reference
+         */
+        ResourceModel(JsonNode tree, List<DotName> schemaClasses) {
+            this.tree = tree;
+            this.schemaClasses = schemaClasses;
+        }
+    }
+
+    /**
+     * Holds the models of resource classes between scans.
+     */
+    interface ResourceModelCache {
+
+        /**
+         * Returns the model the resource class had in a previous scan, or null if the class
+         * must be scanned again.
+         * @param resourceClass
+         */
+        ResourceModel restore(ClassInfo resourceClass);
+
+        /**
+         * Called with the model of every resource class that was scanned.  May be called
+         * concurrently.
+         * @param resourceClass
+         * @param model
+         */
+        void store(ClassInfo resourceClass, ResourceModel model);
+    }
+
+    /**
+     * A reference to a generated schema, made before the schema was named.
+     */
+    private static class SchemaReference {
+        private final Schema schema;
+        private final DotName className;
+
+        SchemaReference(Schema schema, DotName className) {
+            this.schema = schema;
+            this.className = className;
+        }
+    }
+
     /**
      * A simple registry used to track schemas that have been generated and inserted
-     * into the #/components section of the
+     * into the #/components section of the model.  Schemas are generated (exactly once
+     * per class) by whichever resource scanner first needs them, but are only named once
+     * all resources have been scanned, so that names do not depend on thread scheduling.
      * @author eric.wittmann@gmail.com
      */
     protected static class SchemaRegistry {
-        private Map<DotName, GeneratedSchemaInfo> registry = new HashMap<>();
-        private Set<String> names = new HashSet<>();
+        private final ConcurrentMap<DotName, CompletableFuture<GeneratedSchemaInfo>> registry = new ConcurrentHashMap<>();
+        private final Set<String> names = new HashSet<>();
+
+        /**
+         * Returns the generated schema for the given class, generating it the first time
+         * the class is seen.  Concurrent callers for the same class wait for the schema
+         * being generated by the first one.  Returns null if no schema could be generated.
+         * @param instanceClass
+         * @param generator
+         */
+        public GeneratedSchemaInfo register(ClassType instanceClass, Function<ClassType, Schema> generator) {
+            CompletableFuture<GeneratedSchemaInfo> future = new CompletableFuture<>();
+            CompletableFuture<GeneratedSchemaInfo> existing = registry.putIfAbsent(instanceClass.name(), future);
+            if (existing != null) {
+                Instrumentation.count(Counter.REGISTRY_HITS, 1);
+                return existing.join();
+            }
+            try {
+                Schema schema;
+                try (Instrumentation.Measurement m = Instrumentation.start(Phase.DATA_OBJECTS)) {
+                    schema = generator.apply(instanceClass);
+                }
+                GeneratedSchemaInfo info = null;
+                if (schema != null) {
+                    Instrumentation.count(Counter.SCHEMAS_GENERATED, 1);
+                    info = new GeneratedSchemaInfo();
+                    info.schema = schema;
+                }
+                future.complete(info);
+                return info;
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                throw e;
+            }
+        }
 
-        public GeneratedSchemaInfo register(ClassType instanceClass, Schema schema) {
-            String name = instanceClass.name().local();
+        /**
+         * Assigns a unique name to a generated schema.
+         * @param info
+         * @param className
+         */
+        public synchronized void name(GeneratedSchemaInfo info, DotName className) {
+            String name = className.local();
             int idx = 1;
             while (this.names.contains(name)) {
-                name = instanceClass.name().local() + idx++;
+                name = className.local() + idx++;
             }
-            GeneratedSchemaInfo info = new GeneratedSchemaInfo();
-            info.schema = schema;
             info.name = name;
             info.$ref = "#/components/schemas/" + name;
-
-            registry.put(instanceClass.name(), info);
             names.add(name);
+        }
 
-            return info;
+        /**
+         * Returns the classes of the named schemas, by schema name.
+         */
+        public synchronized Map<String, DotName> classesByName() {
+            Map<String, DotName> classes = new TreeMap<>();
+            for (Map.Entry<DotName, CompletableFuture<GeneratedSchemaInfo>> entry : registry.entrySet()) {
+                CompletableFuture<GeneratedSchemaInfo> future = entry.getValue();
+                if (future.isDone() && !future.isCompletedExceptionally()) {
+                    GeneratedSchemaInfo info = future.join();
+                    if (info != null && info.name != null) {
+                        classes.put(info.name, entry.getKey());
+                    }
+                }
+            }
+            return classes;
         }
 
-        public GeneratedSchemaInfo lookup(ClassType instanceClass) {
-            return registry.get(instanceClass.name());
+        public GeneratedSchemaInfo lookup(DotName className) {
+            CompletableFuture<GeneratedSchemaInfo> future = registry.get(className);
+            return future == null ? null : future.join();
         }
 
         public boolean has(ClassType instanceClass) {
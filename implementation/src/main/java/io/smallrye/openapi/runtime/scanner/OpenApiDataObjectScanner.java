@@ -40,6 +40,7 @@ import io.smallrye.openapi.api.OpenApiConstants;
 import io.smallrye.openapi.api.models.media.SchemaImpl;
 import io.smallrye.openapi.runtime.util.JandexUtil;
 import io.smallrye.openapi.runtime.util.SchemaFactory;
+import io.smallrye.openapi.runtime.util.TypeHierarchy;
 import io.smallrye.openapi.runtime.util.TypeUtil;
 
 /**
@@ -94,6 +95,7 @@ public class OpenApiDataObjectScanner {
     private static final Type ARRAY_TYPE_OBJECT = ArrayType.create(DotName.createSimple("[Ljava.lang.Object;"), Type.Kind.ARRAY);
 
     private final IndexView index;
+    private final TypeHierarchy hierarchy;
     private final Type rootClassType;
     private final ClassInfo rootClassInfo;
     private Schema rootSchema;
@@ -109,7 +111,22 @@ public class OpenApiDataObjectScanner {
      * @param classType root to begin scan
      */
     public OpenApiDataObjectScanner(IndexView index, Type classType) {
+        this(index, new TypeHierarchy(index), classType);
+    }
+
+    /**
+     * Constructor for data object scanner, with the type hierarchy of the index (so that
+     * it can be shared by all scans of the same index).
+     *
+     * Call {@link #process()} to build and return the {@link Schema}.
+     *
+     * @param index index of types to scan
+     * @param hierarchy type hierarchy of the index
+     * @param classType root to begin scan
+     */
+    public OpenApiDataObjectScanner(IndexView index, TypeHierarchy hierarchy, Type classType) {
         this.index = index;
+        this.hierarchy = hierarchy;
         this.rootClassType = classType;
         this.classTypeFormat = TypeUtil.getTypeFormat(classType);
         this.rootSchema = new SchemaImpl();
@@ -144,6 +161,18 @@ public class OpenApiDataObjectScanner {
         return new OpenApiDataObjectScanner(index, type).process();
     }
 
+    /**
+     * Build a Schema with ClassType as root.
+     *
+     * @param index index of types to scan
+     * @param hierarchy type hierarchy of the index
+     * @param type root to begin scan
+     * @return the OAI schema
+     */
+    public static Schema process(IndexView index, TypeHierarchy hierarchy, Type type) {
+        return new OpenApiDataObjectScanner(index, hierarchy, type).process();
+    }
+
     /**
      * Build a Schema with PrimitiveType as root.
      *
@@ -559,7 +588,7 @@ public class OpenApiDataObjectScanner {
     }
 
     private boolean isA(Type testSubject, Type test) {
-        return TypeUtil.isA(index, testSubject, test);
+        return hierarchy.isA(TypeUtil.getName(testSubject), TypeUtil.getName(test));
     }
 
     private boolean isTerminalType(Type type) {
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+/**
+ * The (immutable) state the annotation scanner needs while processing a JAX-RS resource
+ * class: the application and resource paths, and the media types consumed and produced by
+ * the method currently being processed.  Each change produces a new context, so a context
+ * can safely be handed to the scanners of other resource classes.
+ *
+ * The media type arrays are shared, not copied, and must not be modified.
+ */
+final class ScanContext {
+
+    static final ScanContext ROOT = new ScanContext("", "", null, null);
+
+    private final String appPath;
+    private final String resourcePath;
+    private final String[] consumes;
+    private final String[] produces;
+
+    /**
+     * Constructor.
+     * @param appPath
+     * @param resourcePath
+     * @param consumes
+     * @param produces
+     */
+    private ScanContext(String appPath, String resourcePath, String[] consumes, String[] produces) {
+        this.appPath = appPath;
+        this.resourcePath = resourcePath;
+        this.consumes = consumes;
+        this.produces = produces;
+    }
+
+    /**
+     * Returns a copy of this context with the given application path.
+     * @param appPath
+     */
+    ScanContext withAppPath(String appPath) {
+        return new ScanContext(appPath, resourcePath, consumes, produces);
+    }
+
+    /**
+     * Returns a copy of this context with the given resource path.
+     * @param resourcePath
+     */
+    ScanContext withResourcePath(String resourcePath) {
+        return new ScanContext(appPath, resourcePath, consumes, produces);
+    }
+
+    /**
+     * Returns a copy of this context with the given media types.
+     * @param consumes
+     * @param produces
+     */
+    ScanContext withMediaTypes(String[] consumes, String[] produces) {
+        return new ScanContext(appPath, resourcePath, consumes, produces);
+    }
+
+    /**
+     * @return the path of the JAX-RS application
+     */
+    String getAppPath() {
+        return appPath;
+    }
+
+    /**
+     * @return the path of the resource class
+     */
+    String getResourcePath() {
+        return resourcePath;
+    }
+
+    /**
+     * @return the media types consumed by the current method, or null
+     */
+    String[] getConsumes() {
+        return consumes;
+    }
+
+    /**
+     * @return the media types produced by the current method, or null
+     */
+    String[] getProduces() {
+        return produces;
+    }
+
+}
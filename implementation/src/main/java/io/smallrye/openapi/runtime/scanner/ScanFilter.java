@@ -0,0 +1,420 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import io.smallrye.openapi.api.OpenApiConfig;
+import io.smallrye.openapi.api.OpenApiConstants;
+
+/**
+ * The scan include/exclude configuration (mp.openapi.scan.classes, mp.openapi.scan.packages,
+ * mp.openapi.scan.exclude.classes and mp.openapi.scan.exclude.packages), compiled once into
+ * a matcher that can be applied to class names as well as to raw archive paths (such as
+ * "/WEB-INF/classes/com/acme/Foo.class") without creating any strings.
+ *
+ * Each configured value is either:
+ * <ul>
+ * <li>a plain name: a class name, or a package name which also matches its sub-packages</li>
+ * <li>a glob, if it contains '*' (any characters) or '?' (a single character)</li>
+ * <li>a regular expression, if it starts with '^'</li>
+ * </ul>
+ * Package separators may be written as either '.' or '/'.  Excludes override includes.
+ */
+public final class ScanFilter {
+
+    private static final int CLASS_SUFFIX_LENGTH = OpenApiConstants.CLASS_SUFFIX.length();
+    private static final ScanFilter ACCEPT_ALL = new ScanFilter(null, null);
+
+    private final Matcher includes;
+    private final Matcher excludes;
+
+    /**
+     * Constructor.
+     * @param includes
+     * @param excludes
+     */
+    private ScanFilter(Matcher includes, Matcher excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    /**
+     * Compiles the scan configuration.
+     * @param config
+     */
+    public static ScanFilter compile(OpenApiConfig config) {
+        return compile(config.scanClasses(), config.scanPackages(), config.scanExcludeClasses(), config.scanExcludePackages());
+    }
+
+    /**
+     * Compiles the given include and exclude settings.
+     * @param classes
+     * @param packages
+     * @param excludeClasses
+     * @param excludePackages
+     */
+    public static ScanFilter compile(Set<String> classes, Set<String> packages, Set<String> excludeClasses,
+            Set<String> excludePackages) {
+        Matcher includes = Matcher.compile(classes, packages);
+        Matcher excludes = Matcher.compile(excludeClasses, excludePackages);
+        if (includes == null && excludes == null) {
+            return ACCEPT_ALL;
+        }
+        return new ScanFilter(includes, excludes);
+    }
+
+    /**
+     * Returns true if every class is accepted, i.e. nothing is included or excluded.
+     */
+    public boolean acceptsAll() {
+        return this == ACCEPT_ALL;
+    }
+
+    /**
+     * Returns true if the class file at the given archive path is accepted.  The path may be
+     * relative to the root of a JAR or to the WEB-INF/classes folder of a WAR, with or
+     * without a leading '/'.
+     * @param archivePath
+     */
+    public boolean acceptPath(String archivePath) {
+        if (this == ACCEPT_ALL) {
+            return true;
+        }
+        int start = 0;
+        if (archivePath.startsWith(OpenApiConstants.WEB_ARCHIVE_CLASS_PREFIX)) {
+            start = OpenApiConstants.WEB_ARCHIVE_CLASS_PREFIX.length();
+        } else if (archivePath.startsWith("/")) {
+            start = 1;
+        }
+        int end = archivePath.length();
+        if (archivePath.endsWith(OpenApiConstants.CLASS_SUFFIX)) {
+            end -= CLASS_SUFFIX_LENGTH;
+        }
+        return accept(archivePath, start, end);
+    }
+
+    /**
+     * Returns true if the class with the given (fully qualified) name is accepted.
+     * @param className
+     */
+    public boolean acceptClassName(String className) {
+        if (this == ACCEPT_ALL) {
+            return true;
+        }
+        return accept(className, 0, className.length());
+    }
+
+    /**
+     * Returns true if the class name found in the given region is accepted.
+     * @param name
+     * @param start
+     * @param end
+     */
+    private boolean accept(String name, int start, int end) {
+        int packageEnd = start;
+        for (int i = end - 1; i >= start; i--) {
+            if (isSeparator(name.charAt(i))) {
+                packageEnd = i;
+                break;
+            }
+        }
+        if (includes != null && !includes.matches(name, start, packageEnd, end)) {
+            return false;
+        }
+        return excludes == null || !excludes.matches(name, start, packageEnd, end);
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '.' || c == '/';
+    }
+
+    private static char normalize(char c) {
+        return c == '/' ? '.' : c;
+    }
+
+    /**
+     * Matches classes against a set of class names and a set of packages.
+     */
+    private static class Matcher {
+        private final ClassNameTable classNames;
+        private final PackageTrie packages;
+        private final Pattern[] classPatterns;
+        private final Pattern[] packagePatterns;
+
+        private Matcher(ClassNameTable classNames, PackageTrie packages, Pattern[] classPatterns, Pattern[] packagePatterns) {
+            this.classNames = classNames;
+            this.packages = packages;
+            this.classPatterns = classPatterns;
+            this.packagePatterns = packagePatterns;
+        }
+
+        /**
+         * Compiles the given class and package settings, returning null if both are empty.
+         * @param classes
+         * @param packages
+         */
+        static Matcher compile(Set<String> classes, Set<String> packages) {
+            List<String> classNames = new ArrayList<>();
+            List<Pattern> classPatterns = new ArrayList<>();
+            for (String value : classes) {
+                if (!value.isEmpty() && !addPattern(value, classPatterns)) {
+                    classNames.add(value.replace('/', '.'));
+                }
+            }
+            PackageTrie trie = new PackageTrie();
+            List<Pattern> packagePatterns = new ArrayList<>();
+            boolean hasPackages = false;
+            for (String value : packages) {
+                if (!value.isEmpty() && !addPattern(value, packagePatterns)) {
+                    trie.add(value);
+                    hasPackages = true;
+                }
+            }
+            if (classNames.isEmpty() && classPatterns.isEmpty() && !hasPackages && packagePatterns.isEmpty()) {
+                return null;
+            }
+            return new Matcher(classNames.isEmpty() ? null : new ClassNameTable(classNames), hasPackages ? trie : null,
+                    classPatterns.toArray(new Pattern[classPatterns.size()]),
+                    packagePatterns.toArray(new Pattern[packagePatterns.size()]));
+        }
+
+        /**
+         * Compiles the value into a pattern if it is a glob or regular expression.
+         * @param value
+         * @param patterns
+         */
+        private static boolean addPattern(String value, List<Pattern> patterns) {
+            if (value.startsWith("^")) {
+                // Used as is: the regions matched already present '/' as '.'
+                patterns.add(Pattern.compile(value));
+                return true;
+            }
+            if (value.indexOf('*') == -1 && value.indexOf('?') == -1) {
+                return false;
+            }
+            StringBuilder regex = new StringBuilder("^");
+            StringBuilder literal = new StringBuilder();
+            for (char c : value.toCharArray()) {
+                if (c == '*' || c == '?') {
+                    if (literal.length() > 0) {
+                        regex.append(Pattern.quote(literal.toString()));
+                        literal.setLength(0);
+                    }
+                    regex.append(c == '*' ? ".*" : ".");
+                } else {
+                    literal.append(normalize(c));
+                }
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+            }
+            patterns.add(Pattern.compile(regex.append('$').toString()));
+            return true;
+        }
+
+        /**
+         * Returns true if the class name in the given region matches.
+         * @param name
+         * @param start
+         * @param packageEnd
+         * @param end
+         */
+        boolean matches(String name, int start, int packageEnd, int end) {
+            if (classNames != null && classNames.contains(name, start, end)) {
+                return true;
+            }
+            if (packages != null && packages.matches(name, start, packageEnd)) {
+                return true;
+            }
+            for (Pattern pattern : classPatterns) {
+                if (pattern.matcher(new Region(name, start, end)).find()) {
+                    return true;
+                }
+            }
+            for (Pattern pattern : packagePatterns) {
+                if (pattern.matcher(new Region(name, start, packageEnd)).find()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * An open addressing hash table of class names that can be probed with a region of a
+     * string in which the package separators may be either '.' or '/'.
+     */
+    private static class ClassNameTable {
+        private final String[] names;
+        private final int[] hashes;
+        private final int mask;
+
+        ClassNameTable(List<String> classNames) {
+            int capacity = Integer.highestOneBit(Math.max(classNames.size(), 1) * 2) << 1;
+            this.names = new String[capacity];
+            this.hashes = new int[capacity];
+            this.mask = capacity - 1;
+            for (String className : classNames) {
+                int hash = className.hashCode();
+                int idx = hash & mask;
+                while (names[idx] != null && !names[idx].equals(className)) {
+                    idx = (idx + 1) & mask;
+                }
+                names[idx] = className;
+                hashes[idx] = hash;
+            }
+        }
+
+        boolean contains(String name, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + normalize(name.charAt(i));
+            }
+            int idx = hash & mask;
+            while (names[idx] != null) {
+                if (hashes[idx] == hash && regionEquals(names[idx], name, start, end)) {
+                    return true;
+                }
+                idx = (idx + 1) & mask;
+            }
+            return false;
+        }
+
+        private static boolean regionEquals(String className, String name, int start, int end) {
+            if (className.length() != end - start) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (className.charAt(i - start) != normalize(name.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A character trie of package names.  A package matches if it, or one of its parent
+     * packages, was added.
+     */
+    private static class PackageTrie {
+        private final Node root = new Node();
+
+        void add(String packageName) {
+            Node node = root;
+            for (int i = 0; i < packageName.length(); i++) {
+                node = node.child(normalize(packageName.charAt(i)), true);
+            }
+            node.terminal = true;
+        }
+
+        boolean matches(String name, int start, int end) {
+            Node node = root;
+            for (int i = start; i < end; i++) {
+                char c = normalize(name.charAt(i));
+                if (c == '.' && node.terminal) {
+                    // A parent package was added
+                    return true;
+                }
+                node = node.child(c, false);
+                if (node == null) {
+                    return false;
+                }
+            }
+            return node.terminal;
+        }
+    }
+
+    /**
+     * A node of the package trie.  Packages are mostly made of few distinct characters, so
+     * the children are kept in small sorted arrays rather than maps.
+     */
+    private static class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private boolean terminal;
+
+        Node child(char c, boolean create) {
+            int idx = Arrays.binarySearch(keys, c);
+            if (idx >= 0) {
+                return children[idx];
+            }
+            if (!create) {
+                return null;
+            }
+            idx = -idx - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, idx);
+            System.arraycopy(children, 0, newChildren, 0, idx);
+            System.arraycopy(keys, idx, newKeys, idx + 1, keys.length - idx);
+            System.arraycopy(children, idx, newChildren, idx + 1, children.length - idx);
+            Node node = new Node();
+            newKeys[idx] = c;
+            newChildren[idx] = node;
+            keys = newKeys;
+            children = newChildren;
+            return node;
+        }
+    }
+
+    /**
+     * A view of a region of a string in which '/' reads as '.', so that patterns can be
+     * matched against archive paths.
+     */
+    private static class Region implements CharSequence {
+        private final String value;
+        private final int start;
+        private final int end;
+
+        Region(String value, int start, int end) {
+            this.value = value;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return normalize(value.charAt(start + index));
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new Region(value, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(length());
+            for (int i = start; i < end; i++) {
+                builder.append(normalize(value.charAt(i)));
+            }
+            return builder.toString();
+        }
+    }
+
+}
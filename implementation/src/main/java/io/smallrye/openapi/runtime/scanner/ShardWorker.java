@@ -0,0 +1,77 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Properties;
+
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+
+import io.smallrye.openapi.api.models.OpenAPIImpl;
+import io.smallrye.openapi.runtime.io.ModelSnapshot;
+
+/**
+ * The worker process of a {@link ShardedAnnotationScanner}.  Reads the index, scans its
+ * shard and writes the partial model as a {@link ModelSnapshot}, and the classes of the
+ * schemas it named (as properties, schema name to class name).
+ *
+ * <pre>
+ * java io.smallrye.openapi.runtime.scanner.ShardWorker &lt;index file&gt; &lt;shard&gt; &lt;shards&gt; &lt;output file&gt; &lt;schemas file&gt;
+ * </pre>
+ */
+public final class ShardWorker {
+
+    /**
+     * Constructor.
+     */
+    private ShardWorker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 5) {
+            System.err.println("Usage: ShardWorker <index file> <shard> <shards> <output file> <schemas file>");
+            System.exit(2);
+        }
+        Index index;
+        try (InputStream stream = Files.newInputStream(Paths.get(args[0]))) {
+            index = new IndexReader(stream).read();
+        }
+        int shard = Integer.parseInt(args[1]);
+        int shards = Integer.parseInt(args[2]);
+
+        OpenApiAnnotationScanner scanner = new OpenApiAnnotationScanner(index, null);
+        OpenAPIImpl model = scanner.scanShard(shard, shards);
+        try (OutputStream stream = Files.newOutputStream(Paths.get(args[3]))) {
+            ModelSnapshot.write(model, stream);
+        }
+        Properties schemas = new Properties();
+        for (Map.Entry<String, DotName> entry : scanner.getSchemaClasses().entrySet()) {
+            schemas.setProperty(entry.getKey(), entry.getValue().toString());
+        }
+        try (OutputStream stream = Files.newOutputStream(Paths.get(args[4]))) {
+            schemas.store(stream, null);
+        }
+    }
+
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.IndexWriter;
+
+import io.smallrye.openapi.api.OpenApiConfig;
+import io.smallrye.openapi.api.models.OpenAPIImpl;
+import io.smallrye.openapi.api.util.MergeUtil;
+import io.smallrye.openapi.runtime.io.ModelSnapshot;
+
+/**
+ * Scans very large deployments in several local worker processes (see {@link ShardWorker}),
+ * e.g. when generating the document at build time, where each process gets a heap of its
+ * own.  The index is written to a file that all workers read (pruned to the classes the
+ * scanner can reach if "mp.openapi.extensions.scan.prune" is enabled).  Worker n scans
+ * every n-th JAX-RS resource class (the first one also scans the Application classes) and
+ * writes its partial model as a {@link ModelSnapshot}; the partial models are then merged
+ * in shard order, so the result does not depend on which worker finishes first.
+ *
+ * Each worker names the schemas it generates on its own.  If two workers give the same
+ * name to schemas of different classes (two data object classes sharing a simple name),
+ * the scan fails rather than merging them into one schema.
+ */
+public class ShardedAnnotationScanner {
+
+    private final OpenApiConfig config;
+    private final int shards;
+    private final String classPath;
+    private final List<String> jvmOptions;
+
+    /**
+     * Constructor.
+     * @param config
+     * @param shards the number of worker processes
+     * @param classPath the class path of the workers, which must include this library and its dependencies
+     * @param jvmOptions options of the worker JVMs (e.g. -Xmx2g), may be empty
+     */
+    public ShardedAnnotationScanner(OpenApiConfig config, int shards, String classPath, List<String> jvmOptions) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Invalid number of shards: " + shards);
+        }
+        this.config = config;
+        this.shards = shards;
+        this.classPath = classPath;
+        this.jvmOptions = jvmOptions == null ? Collections.emptyList() : jvmOptions;
+    }
+
+    /**
+     * Scans the given index in the worker processes, and returns the merged model.
+     * @param index
+     */
+    public OpenAPIImpl scan(IndexView index) {
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory("openapi-shards");
+            Path indexFile = dir.resolve("index.idx");
+            try (OutputStream stream = Files.newOutputStream(indexFile)) {
+                new IndexWriter(stream).write(shardIndex(index));
+            }
+
+            List<Process> workers = new ArrayList<>();
+            List<Path> outputs = new ArrayList<>();
+            List<Path> schemaFiles = new ArrayList<>();
+            try {
+                for (int shard = 0; shard < shards; shard++) {
+                    Path output = dir.resolve("shard-" + shard + ".bin");
+                    Path schemaFile = dir.resolve("shard-" + shard + ".schemas");
+                    outputs.add(output);
+                    schemaFiles.add(schemaFile);
+                    workers.add(start(indexFile, shard, output, schemaFile));
+                }
+                for (int shard = 0; shard < shards; shard++) {
+                    int exitCode = workers.get(shard).waitFor();
+                    if (exitCode != 0) {
+                        throw new RuntimeException("OpenAPI scan of shard " + shard + " failed with exit code " + exitCode);
+                    }
+                }
+            } finally {
+                for (Process worker : workers) {
+                    worker.destroy();
+                }
+            }
+
+            List<Map<String, String>> schemaClasses = new ArrayList<>();
+            for (Path schemaFile : schemaFiles) {
+                Properties schemas = new Properties();
+                try (InputStream stream = Files.newInputStream(schemaFile)) {
+                    schemas.load(stream);
+                }
+                Map<String, String> classes = new HashMap<>();
+                for (String name : schemas.stringPropertyNames()) {
+                    classes.put(name, schemas.getProperty(name));
+                }
+                schemaClasses.add(classes);
+            }
+            checkSchemaNames(schemaClasses);
+
+            List<OpenAPIImpl> partials = new ArrayList<>();
+            for (Path output : outputs) {
+                try (InputStream stream = Files.newInputStream(output)) {
+                    partials.add(ModelSnapshot.read(stream));
+                }
+            }
+            return merge(partials);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the OpenAPI scan", e);
+        } finally {
+            if (dir != null) {
+                delete(dir);
+            }
+        }
+    }
+
+    /**
+     * Returns the index to write out for the workers: the given one, pruned if the config
+     * says so.
+     * @param index
+     */
+    Index shardIndex(IndexView index) {
+        if (config.scanPrune()) {
+            return IndexPruner.prune(index);
+        }
+        return index instanceof Index ? (Index) index : IndexPruner.copy(index);
+    }
+
+    /**
+     * Checks that no schema name was given to different classes by different shards.
+     * @param schemaClasses the classes of the schemas named by each shard, by schema name
+     * @throws IllegalStateException if a schema name was given to different classes
+     */
+    static void checkSchemaNames(List<Map<String, String>> schemaClasses) {
+        Map<String, String> classes = new HashMap<>();
+        for (Map<String, String> shardClasses : schemaClasses) {
+            for (Map.Entry<String, String> entry : shardClasses.entrySet()) {
+                String existing = classes.putIfAbsent(entry.getKey(), entry.getValue());
+                if (existing != null && !existing.equals(entry.getValue())) {
+                    throw new IllegalStateException("Schema name " + entry.getKey() + " was given to both " + existing
+                            + " and " + entry.getValue() + " by different shards; rename one of the classes or scan in a single shard");
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the partial models of the shards, in shard order.
+     * @param partials
+     */
+    static OpenAPIImpl merge(List<OpenAPIImpl> partials) {
+        OpenAPIImpl model = null;
+        for (OpenAPIImpl partial : partials) {
+            model = MergeUtil.merge(model, partial);
+        }
+        OpenApiAnnotationScanner.sortPaths(model);
+        return model;
+    }
+
+    /**
+     * Starts the worker process of a shard.
+     * @param indexFile
+     * @param shard
+     * @param output
+     * @param schemaFile
+     * @throws IOException
+     */
+    private Process start(Path indexFile, int shard, Path output, Path schemaFile) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(classPath);
+        command.add(ShardWorker.class.getName());
+        command.add(indexFile.toString());
+        command.add(Integer.toString(shard));
+        command.add(Integer.toString(shards));
+        command.add(output.toString());
+        command.add(schemaFile.toString());
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    private static void delete(Path dir) {
+        File[] files = dir.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.toFile().delete();
+    }
+
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.eclipse.microprofile.openapi.models.media.Schema;
+import org.jboss.jandex.Type;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.smallrye.openapi.api.instrumentation.Counter;
+import io.smallrye.openapi.api.instrumentation.Instrumentation;
+import io.smallrye.openapi.runtime.io.OpenApiParser;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer;
+
+/**
+ * Caches the schemas generated for (parameterized, array, wildcard, ...) types for the
+ * duration of a single scan, so that a type such as List&lt;Order&gt; used by many
+ * operations is only introspected once.  Types are compared structurally (jandex types
+ * are equal when their names, type arguments and annotations are).  The schemas are kept
+ * as json trees and every lookup returns a schema of its own, so that a filter (or a
+ * merge) changing the schema of one operation does not change that of the others.  The
+ * lookups are counted as {@link Counter#TYPE_SCHEMA_HITS} and
+ * {@link Counter#TYPE_SCHEMA_MISSES}.  Safe for concurrent use.
+ */
+public class TypeSchemaCache {
+
+    private final ConcurrentMap<Type, Optional<JsonNode>> schemas = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Returns the schema for the given type, generating it on a miss.  Returns null if no
+     * schema could be generated for the type.
+     * @param type
+     * @param generator
+     */
+    public Schema get(Type type, Function<Type, Schema> generator) {
+        Optional<JsonNode> schema = schemas.get(type);
+        if (schema != null) {
+            hits.incrementAndGet();
+            Instrumentation.count(Counter.TYPE_SCHEMA_HITS, 1);
+            return schema.map(OpenApiParser::parseSchema).orElse(null);
+        }
+        misses.incrementAndGet();
+        Instrumentation.count(Counter.TYPE_SCHEMA_MISSES, 1);
+        // Generated outside of the map so that other types are not blocked meanwhile; if two
+        // threads race on the same type the first one stored wins
+        Schema generated = generator.apply(type);
+        schema = Optional.ofNullable(generated == null ? null : OpenApiSerializer.serializeToTree(generated));
+        schemas.putIfAbsent(type, schema);
+        return generated;
+    }
+
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups that had to generate a schema
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+}
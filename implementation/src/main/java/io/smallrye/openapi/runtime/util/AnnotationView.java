@@ -0,0 +1,159 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.AnnotationTarget.Kind;
+import org.jboss.jandex.AnnotationValue;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.MethodInfo;
+
+/**
+ * The annotations of a single method or class, bucketed by name and (for methods) by
+ * parameter position, so that the scanner can look them up without walking the full
+ * list of annotations every time.  Build it once per method or class and reuse it.
+ */
+public final class AnnotationView {
+
+    private final Map<DotName, List<AnnotationInstance>> byName;
+    private final List<List<AnnotationInstance>> byParameter;
+
+    /**
+     * Constructor.
+     * @param annotations
+     * @param parameterCount
+     */
+    private AnnotationView(Collection<AnnotationInstance> annotations, int parameterCount) {
+        this.byName = new HashMap<>();
+        this.byParameter = new ArrayList<>(parameterCount);
+        for (int i = 0; i < parameterCount; i++) {
+            byParameter.add(new ArrayList<>(1));
+        }
+        for (AnnotationInstance annotation : annotations) {
+            byName.computeIfAbsent(annotation.name(), name -> new ArrayList<>(1)).add(annotation);
+            AnnotationTarget target = annotation.target();
+            if (target != null && target.kind() == Kind.METHOD_PARAMETER) {
+                int position = target.asMethodParameter().position();
+                if (position < parameterCount) {
+                    byParameter.get(position).add(annotation);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a view of all annotations of a method, including the annotations of its
+     * parameters.
+     * @param method
+     */
+    public static AnnotationView of(MethodInfo method) {
+        return new AnnotationView(method.annotations(), method.parameters().size());
+    }
+
+    /**
+     * Creates a view of the class level annotations of a class.
+     * @param clazz
+     */
+    public static AnnotationView of(ClassInfo clazz) {
+        return new AnnotationView(clazz.classAnnotations(), 0);
+    }
+
+    /**
+     * Returns true if there is at least one annotation with the given name.
+     * @param name
+     */
+    public boolean has(DotName name) {
+        return byName.containsKey(name);
+    }
+
+    /**
+     * Returns an annotation with the given name, or null if there is none.
+     * @param name
+     */
+    public AnnotationInstance get(DotName name) {
+        if (name == null) {
+            return null;
+        }
+        List<AnnotationInstance> annotations = byName.get(name);
+        return annotations == null ? null : annotations.get(0);
+    }
+
+    /**
+     * Returns all annotations with the given name.
+     * @param name
+     */
+    public List<AnnotationInstance> getAll(DotName name) {
+        List<AnnotationInstance> annotations = byName.get(name);
+        return annotations == null ? Collections.<AnnotationInstance>emptyList() : Collections.unmodifiableList(annotations);
+    }
+
+    /**
+     * Returns all annotations with the single annotation name, plus all of the annotations
+     * wrapped in an annotation with the repeatable annotation name (which may be null).
+     * The returned list may be modified.
+     * @param singleAnnotationName
+     * @param repeatableAnnotationName
+     */
+    public List<AnnotationInstance> getRepeatable(DotName singleAnnotationName, DotName repeatableAnnotationName) {
+        List<AnnotationInstance> annotations = new ArrayList<>(getAll(singleAnnotationName));
+        AnnotationInstance repeatable = repeatableAnnotationName == null ? null : get(repeatableAnnotationName);
+        if (repeatable != null) {
+            AnnotationValue annotationValue = repeatable.value();
+            if (annotationValue != null) {
+                annotations.addAll(Arrays.asList(annotationValue.asNestedArray()));
+            }
+        }
+        return annotations;
+    }
+
+    /**
+     * Returns the annotations of the method parameter at the given position.
+     * @param position
+     */
+    public List<AnnotationInstance> getParameterAnnotations(int position) {
+        if (position < 0 || position >= byParameter.size()) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(byParameter.get(position));
+    }
+
+    /**
+     * Returns the annotation with the given name on the method parameter at the given
+     * position, or null if there is none.
+     * @param position
+     * @param name
+     */
+    public AnnotationInstance getParameterAnnotation(int position, DotName name) {
+        for (AnnotationInstance annotation : getParameterAnnotations(position)) {
+            if (annotation.name().equals(name)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+}
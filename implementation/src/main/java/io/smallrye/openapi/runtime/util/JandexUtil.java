@@ -22,8 +22,6 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
-import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections.Predicate;
 import org.eclipse.microprofile.openapi.models.parameters.Parameter;
 import org.eclipse.microprofile.openapi.models.parameters.Parameter.In;
 import org.jboss.jandex.AnnotationInstance;
@@ -283,15 +281,13 @@ public class JandexUtil {
      * @param paramPosition
      */
     public static List<AnnotationInstance> getParameterAnnotations(MethodInfo method, short paramPosition) {
-        List<AnnotationInstance> annotations = new ArrayList<>(method.annotations());
-        CollectionUtils.filter(annotations, new Predicate() {
-            @Override
-            public boolean evaluate(Object object) {
-                AnnotationInstance annotation = (AnnotationInstance) object;
-                AnnotationTarget target = annotation.target();
-                return target != null && target.kind() == Kind.METHOD_PARAMETER && target.asMethodParameter().position() == paramPosition;
+        List<AnnotationInstance> annotations = new ArrayList<>();
+        for (AnnotationInstance annotation : method.annotations()) {
+            AnnotationTarget target = annotation.target();
+            if (target != null && target.kind() == Kind.METHOD_PARAMETER && target.asMethodParameter().position() == paramPosition) {
+                annotations.add(annotation);
             }
-        });
+        }
         return annotations;
     }
 
@@ -315,14 +311,12 @@ public class JandexUtil {
      */
     public static List<AnnotationInstance> getRepeatableAnnotation(MethodInfo method,
             DotName singleAnnotationName, DotName repeatableAnnotationName) {
-        List<AnnotationInstance> annotations = new ArrayList<>(method.annotations());
-        CollectionUtils.filter(annotations, new Predicate() {
-            @Override
-            public boolean evaluate(Object object) {
-                AnnotationInstance annotation = (AnnotationInstance) object;
-                return annotation.name().equals(singleAnnotationName);
+        List<AnnotationInstance> annotations = new ArrayList<>();
+        for (AnnotationInstance annotation : method.annotations()) {
+            if (annotation.name().equals(singleAnnotationName)) {
+                annotations.add(annotation);
             }
-        });
+        }
         if (repeatableAnnotationName != null && method.hasAnnotation(repeatableAnnotationName)) {
             AnnotationInstance annotation = method.annotation(repeatableAnnotationName);
             AnnotationValue annotationValue = annotation.value();
@@ -376,12 +370,22 @@ public class JandexUtil {
      * @param method
      */
     public static Type getRequestBodyParameterClassType(MethodInfo method) {
+        return getRequestBodyParameterClassType(method, AnnotationView.of(method));
+    }
+
+    /**
+     * Go through the method parameters looking for one that is not annotated with a jax-rs
+     * annotation.  That will be the one that is the request body.
+     * @param method
+     * @param annotations the annotations of the method
+     */
+    public static Type getRequestBodyParameterClassType(MethodInfo method, AnnotationView annotations) {
         List<Type> methodParams = method.parameters();
         if (methodParams.isEmpty()) {
             return null;
         }
-        for (short i = 0; i < methodParams.size(); i++) {
-            if (JandexUtil.getParameterAnnotations(method, i).isEmpty()) {
+        for (int i = 0; i < methodParams.size(); i++) {
+            if (annotations.getParameterAnnotations(i).isEmpty()) {
                 return methodParams.get(i);
             }
         }
@@ -397,7 +401,17 @@ public class JandexUtil {
      * @param idx
      */
     public static JaxRsParameterInfo getMethodParameterJaxRsInfo(MethodInfo method, int idx) {
-        AnnotationInstance jaxRsAnno = JandexUtil.getMethodParameterAnnotation(method, idx, OpenApiConstants.DOTNAME_PATH_PARAM);
+        return getMethodParameterJaxRsInfo(AnnotationView.of(method), idx);
+    }
+
+    /**
+     * Returns jax-rs info about the parameter at the given index, see
+     * {@link #getMethodParameterJaxRsInfo(MethodInfo, int)}.
+     * @param annotations the annotations of the method
+     * @param idx
+     */
+    public static JaxRsParameterInfo getMethodParameterJaxRsInfo(AnnotationView annotations, int idx) {
+        AnnotationInstance jaxRsAnno = annotations.getParameterAnnotation(idx, OpenApiConstants.DOTNAME_PATH_PARAM);
         if (jaxRsAnno != null) {
             JaxRsParameterInfo info = new JaxRsParameterInfo();
             info.in = In.PATH;
@@ -405,7 +419,7 @@ public class JandexUtil {
             return info;
         }
 
-        jaxRsAnno = JandexUtil.getMethodParameterAnnotation(method, idx, OpenApiConstants.DOTNAME_QUERY_PARAM);
+        jaxRsAnno = annotations.getParameterAnnotation(idx, OpenApiConstants.DOTNAME_QUERY_PARAM);
         if (jaxRsAnno != null) {
             JaxRsParameterInfo info = new JaxRsParameterInfo();
             info.in = In.QUERY;
@@ -413,7 +427,7 @@ public class JandexUtil {
             return info;
         }
 
-        jaxRsAnno = JandexUtil.getMethodParameterAnnotation(method, idx, OpenApiConstants.DOTNAME_COOKIE_PARAM);
+        jaxRsAnno = annotations.getParameterAnnotation(idx, OpenApiConstants.DOTNAME_COOKIE_PARAM);
         if (jaxRsAnno != null) {
             JaxRsParameterInfo info = new JaxRsParameterInfo();
             info.in = In.COOKIE;
@@ -421,7 +435,7 @@ public class JandexUtil {
             return info;
         }
 
-        jaxRsAnno = JandexUtil.getMethodParameterAnnotation(method, idx, OpenApiConstants.DOTNAME_HEADER_PARAM);
+        jaxRsAnno = annotations.getParameterAnnotation(idx, OpenApiConstants.DOTNAME_HEADER_PARAM);
         if (jaxRsAnno != null) {
             JaxRsParameterInfo info = new JaxRsParameterInfo();
             info.in = In.HEADER;
@@ -432,25 +446,6 @@ public class JandexUtil {
         return null;
     }
 
-    /**
-     * Finds an annotation (if present) with the given name, on a particular parameter of a
-     * method.  Returns null if not found.
-     * @param method
-     * @param parameterIndex
-     * @param annotationName
-     */
-    private static AnnotationInstance getMethodParameterAnnotation(MethodInfo method, int parameterIndex,
-            DotName annotationName) {
-        for (AnnotationInstance annotation : method.annotations()) {
-            if (annotation.target().kind() == Kind.METHOD_PARAMETER &&
-                    annotation.target().asMethodParameter().position() == parameterIndex &&
-                    annotation.name().equals(annotationName)) {
-                return annotation;
-            }
-        }
-        return null;
-    }
-
     /**
      * Returns true if the given @Schema annotation is a simple class schema.  This means that
      * the annotation only has one field defined, and that field is "implementation".
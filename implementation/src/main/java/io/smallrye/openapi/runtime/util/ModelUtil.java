@@ -210,12 +210,15 @@ public class ModelUtil {
     }
 
     /**
-     * Returns the name component of the ref.
+     * Returns the name component of the ref (trailing '/' are ignored).
      * @param ref
      */
     public static String nameFromRef(String ref) {
-        String[] split = ref.split("/");
-        return split[split.length - 1];
+        int end = ref.length();
+        while (end > 0 && ref.charAt(end - 1) == '/') {
+            end--;
+        }
+        return ref.substring(ref.lastIndexOf('/', end - 1) + 1, end);
     }
 
 }
@@ -0,0 +1,177 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.util;
+
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractQueue;
+import java.util.AbstractSequentialList;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.Stack;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.Vector;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TransferQueue;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.IndexView;
+
+/**
+ * Answers "is this type a subtype of that one" questions from the Jandex index alone,
+ * without loading any class.  Classes that are not in the index are looked up in a fixed
+ * table of the JDK's collection, map and enum types; any other class that is not in the
+ * index is only known to be a subtype of itself.
+ *
+ * The set of supertypes of each class is computed once, so repeated checks (as made for
+ * every field by the data object scanner) are a single set lookup.  The owner of an index
+ * (e.g. the annotation scanner) should create one hierarchy for it and pass it to everything
+ * scanning the same index.
+ */
+public class TypeHierarchy {
+
+    private static final Map<DotName, Set<DotName>> JDK_SUPERTYPES = new HashMap<>();
+
+    static {
+        Class<?>[] jdkTypes = {
+                Object.class, Enum.class, Iterable.class,
+                // Collections
+                Collection.class, List.class, Set.class, SortedSet.class, NavigableSet.class, Queue.class, Deque.class,
+                AbstractCollection.class, AbstractList.class, AbstractSequentialList.class, AbstractSet.class,
+                AbstractQueue.class, ArrayList.class, LinkedList.class, Vector.class, Stack.class, HashSet.class,
+                LinkedHashSet.class, TreeSet.class, EnumSet.class, ArrayDeque.class, PriorityQueue.class,
+                BlockingQueue.class, BlockingDeque.class, TransferQueue.class, CopyOnWriteArrayList.class,
+                CopyOnWriteArraySet.class, ConcurrentLinkedQueue.class, ConcurrentLinkedDeque.class,
+                ConcurrentSkipListSet.class, LinkedBlockingQueue.class, LinkedBlockingDeque.class,
+                ArrayBlockingQueue.class, PriorityBlockingQueue.class, SynchronousQueue.class,
+                LinkedTransferQueue.class,
+                // Maps
+                Map.class, SortedMap.class, NavigableMap.class, AbstractMap.class, HashMap.class, LinkedHashMap.class,
+                TreeMap.class, Hashtable.class, Properties.class, WeakHashMap.class, IdentityHashMap.class,
+                EnumMap.class, ConcurrentMap.class, ConcurrentNavigableMap.class, ConcurrentHashMap.class,
+                ConcurrentSkipListMap.class };
+        for (Class<?> jdkType : jdkTypes) {
+            Set<DotName> supertypes = new HashSet<>();
+            addSupertypes(jdkType, supertypes);
+            JDK_SUPERTYPES.put(DotName.createSimple(jdkType.getName()), Collections.unmodifiableSet(supertypes));
+        }
+    }
+
+    private final IndexView index;
+    private final Map<DotName, Set<DotName>> supertypes = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     * @param index
+     */
+    public TypeHierarchy(IndexView index) {
+        this.index = index;
+    }
+
+    /**
+     * Test whether the subject is the same type as, or a subtype of, the given type.
+     * @param subject
+     * @param type
+     */
+    public boolean isA(DotName subject, DotName type) {
+        return subject.equals(type) || supertypes(subject).contains(type);
+    }
+
+    /**
+     * Returns the given class and all of its (known) superclasses and interfaces.
+     * @param name
+     */
+    public Set<DotName> supertypes(DotName name) {
+        Set<DotName> result = supertypes.get(name);
+        if (result != null) {
+            return result;
+        }
+        ClassInfo clazz = index.getClassByName(name);
+        if (clazz == null) {
+            result = JDK_SUPERTYPES.get(name);
+            if (result == null) {
+                result = Collections.singleton(name);
+            }
+        } else {
+            Set<DotName> collected = new HashSet<>();
+            collected.add(name);
+            if (clazz.superName() != null) {
+                collected.addAll(supertypes(clazz.superName()));
+            }
+            for (DotName interfaceName : clazz.interfaceNames()) {
+                collected.addAll(supertypes(interfaceName));
+            }
+            result = Collections.unmodifiableSet(collected);
+        }
+        // Not computeIfAbsent, the computation recurses into the same map
+        Set<DotName> existing = supertypes.putIfAbsent(name, result);
+        return existing != null ? existing : result;
+    }
+
+    private static void addSupertypes(Class<?> type, Set<DotName> supertypes) {
+        if (type != null && supertypes.add(DotName.createSimple(type.getName()))) {
+            addSupertypes(type.getSuperclass(), supertypes);
+            for (Class<?> interfaceType : type.getInterfaces()) {
+                addSupertypes(interfaceType, supertypes);
+            }
+        }
+    }
+
+}
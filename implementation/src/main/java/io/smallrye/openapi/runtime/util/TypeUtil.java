@@ -151,7 +151,8 @@ public class TypeUtil {
      * <p>
      * For example, test whether List is a Collection.
      * <p>
-     * Attempts to work with both Jandex and using standard class.
+     * Only uses the Jandex index (and the JDK collection types known to {@link TypeHierarchy}),
+     * no class is loaded.
      *
      * @param index       Jandex index
      * @param testSubject type to test
@@ -159,41 +160,7 @@ public class TypeUtil {
      * @return true if is of type
      */
     public static boolean isA(IndexView index, Type testSubject, Type testObject) {
-        // First, look in Jandex, as target might not be in our classloader
-        ClassInfo subJandexKlazz = index.getClassByName(getName(testSubject));
-
-        if (subJandexKlazz != null) {
-            return subJandexKlazz.interfaceNames().contains(getName(testObject)) || hasSuper(index, subJandexKlazz, testObject);
-        } else {
-            try {
-                Class<?> subjectKlazz = TypeUtil.getClass(testSubject);
-                Class<?> objectKlazz = TypeUtil.getClass(testObject);
-                return objectKlazz.isAssignableFrom(subjectKlazz);
-            } catch (ClassNotFoundException nfe) {
-                return false;
-            }
-        }
-    }
-
-    private static boolean hasSuper(IndexView index, ClassInfo testSubject, Type testObject) {
-        Type superKlazzType = testSubject.superClassType();
-        while (superKlazzType != null) {
-            if (getName(superKlazzType).equals(getName(testObject))) {
-                return true;
-            }
-            ClassInfo superKlazz = index.getClassByName(getName(superKlazzType));
-            if (superKlazz == null) {
-                try {
-                    Class<?> subjectKlazz = TypeUtil.getClass(testSubject.name().toString());
-                    Class<?> objectKlazz = TypeUtil.getClass(testObject);
-                    return objectKlazz.isAssignableFrom(subjectKlazz);
-                } catch (ClassNotFoundException nfe) {
-                    return false;
-                }
-            }
-            superKlazzType = superKlazz.superClassType();
-        }
-        return false;
+        return new TypeHierarchy(index).isA(getName(testSubject), getName(testObject));
     }
 
     public static DotName getName(Type type) {
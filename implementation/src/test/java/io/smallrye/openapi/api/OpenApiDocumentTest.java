@@ -0,0 +1,240 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.api;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.smallrye.openapi.api.instrumentation.Counter;
+import io.smallrye.openapi.api.instrumentation.Instrumentation;
+import io.smallrye.openapi.api.instrumentation.InstrumentationRecorder;
+import io.smallrye.openapi.api.instrumentation.Phase;
+import io.smallrye.openapi.api.models.OpenAPIImpl;
+import io.smallrye.openapi.api.models.info.InfoImpl;
+import io.smallrye.openapi.runtime.scanner.TestConfig;
+
+public class OpenApiDocumentTest {
+
+    @After
+    public void reset() {
+        OpenApiDocument.INSTANCE.reset();
+    }
+
+    @Test
+    public void testLazyInitialization() throws InterruptedException, ExecutionException {
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        OpenApiDocument.INSTANCE.config(new OpenApiConfig(new TestConfig().with(OpenApiConstants.INITIALIZATION, "lazy")));
+        OpenApiDocument.INSTANCE.modelFromAnnotations(() -> {
+            builds.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            OpenAPIImpl model = new OpenAPIImpl();
+            model.setOpenapi(OpenApiConstants.OPEN_API_VERSION);
+            return model;
+        });
+        OpenApiDocument.INSTANCE.initialize();
+        Assert.assertTrue(OpenApiDocument.INSTANCE.isSet());
+        Assert.assertEquals(0, builds.get());
+
+        // Concurrent first callers all get the result of a single build
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<OpenAPI>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> OpenApiDocument.INSTANCE.get()));
+            }
+            release.countDown();
+            OpenAPI first = results.get(0).get();
+            for (Future<OpenAPI> result : results) {
+                Assert.assertSame(first, result.get());
+            }
+            Assert.assertEquals(1, builds.get());
+            Assert.assertEquals("Generated API", first.getInfo().getTitle());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testAsyncInitialization() throws InterruptedException, ExecutionException {
+        List<Runnable> tasks = new ArrayList<>();
+        OpenApiDocument.INSTANCE.config(new OpenApiConfig(new TestConfig()));
+        OpenApiDocument.INSTANCE.archiveName("Async");
+        CompletableFuture<OpenAPI> built = OpenApiDocument.INSTANCE.initializeAsync(tasks::add).toCompletableFuture();
+        Assert.assertTrue(OpenApiDocument.INSTANCE.isSet());
+        Assert.assertNull(OpenApiDocument.INSTANCE.getIfReady());
+        Assert.assertFalse(built.isDone());
+
+        Assert.assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        Assert.assertSame(built.get(), OpenApiDocument.INSTANCE.getIfReady());
+        Assert.assertSame(built.get(), OpenApiDocument.INSTANCE.get());
+        Assert.assertEquals("Async API", built.get().getInfo().getTitle());
+    }
+
+    @Test
+    public void testRecorderPerBuild() {
+        OpenApiDocument.INSTANCE.config(new OpenApiConfig(new TestConfig()));
+        OpenApiDocument.INSTANCE.modelFromAnnotations(() -> {
+            Instrumentation.count(Counter.OPERATIONS, 3);
+            return new OpenAPIImpl();
+        });
+        OpenApiDocument.INSTANCE.initialize();
+        InstrumentationRecorder first = OpenApiDocument.INSTANCE.getRecorder();
+        Assert.assertEquals(1, first.getInvocations(Phase.INITIALIZE));
+        Assert.assertEquals(3, first.getCount(Counter.OPERATIONS));
+
+        // Nothing is recorded once the document is built
+        Instrumentation.count(Counter.OPERATIONS, 1);
+        Assert.assertEquals(3, first.getCount(Counter.OPERATIONS));
+
+        // The next build starts from zero
+        OpenApiDocument.INSTANCE.reset();
+        Assert.assertNull(OpenApiDocument.INSTANCE.getRecorder());
+        OpenApiDocument.INSTANCE.config(new OpenApiConfig(new TestConfig()));
+        OpenApiDocument.INSTANCE.initialize();
+        InstrumentationRecorder second = OpenApiDocument.INSTANCE.getRecorder();
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(1, second.getInvocations(Phase.INITIALIZE));
+        Assert.assertEquals(0, second.getCount(Counter.OPERATIONS));
+        Assert.assertEquals(1, first.getInvocations(Phase.INITIALIZE));
+    }
+
+    @Test
+    public void testSourcesUseInitializingClassLoader() {
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        ClassLoader app = new URLClassLoader(new URL[0], original);
+        Map<String, ClassLoader> loaders = new ConcurrentHashMap<>();
+        Map<String, Thread> threads = new ConcurrentHashMap<>();
+        List<Runnable> tasks = new ArrayList<>();
+        Thread.currentThread().setContextClassLoader(app);
+        try {
+            OpenApiDocument.INSTANCE.config(new OpenApiConfig(new TestConfig()));
+            OpenApiDocument.INSTANCE.modelFromReader(() -> record("reader", loaders, threads));
+            OpenApiDocument.INSTANCE.modelFromStaticFile(() -> record("static", loaders, threads));
+            OpenApiDocument.INSTANCE.modelFromAnnotations(() -> record("annotations", loaders, threads));
+            OpenApiDocument.INSTANCE.initializeAsync(tasks::add);
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+
+        // Built by a thread with another context class loader
+        tasks.get(0).run();
+        Assert.assertNotNull(OpenApiDocument.INSTANCE.getIfReady());
+        Assert.assertSame(original, Thread.currentThread().getContextClassLoader());
+        Assert.assertEquals(3, loaders.size());
+        for (ClassLoader loader : loaders.values()) {
+            Assert.assertSame(app, loader);
+        }
+        // User code is not run on the shared pool
+        for (Thread thread : threads.values()) {
+            Assert.assertFalse(thread instanceof ForkJoinWorkerThread);
+        }
+    }
+
+    private static OpenAPI record(String source, Map<String, ClassLoader> loaders, Map<String, Thread> threads) {
+        loaders.put(source, Thread.currentThread().getContextClassLoader());
+        threads.put(source, Thread.currentThread());
+        return null;
+    }
+
+    @Test
+    public void testConcurrentSources() {
+        // Each source waits for the other one to have started, which only works if they run concurrently
+        CountDownLatch started = new CountDownLatch(2);
+        OpenApiDocument.INSTANCE.config(new OpenApiConfig(new TestConfig()));
+        OpenApiDocument.INSTANCE.modelFromReader(() -> model(started, "Reader", "1.0"));
+        OpenApiDocument.INSTANCE.modelFromAnnotations(() -> model(started, "Annotations", "2.0"));
+        OpenApiDocument.INSTANCE.initialize();
+
+        // Still merged in order: the annotations win
+        Assert.assertEquals("Annotations", OpenApiDocument.INSTANCE.get().getInfo().getTitle());
+    }
+
+    private static OpenAPI model(CountDownLatch started, String title, String version) {
+        started.countDown();
+        try {
+            Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        OpenAPIImpl model = new OpenAPIImpl();
+        model.setOpenapi(OpenApiConstants.OPEN_API_VERSION);
+        model.setInfo(new InfoImpl().title(title).version(version));
+        return model;
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLazyInitializationFailure() {
+        OpenApiDocument.INSTANCE.config(new OpenApiConfig(new TestConfig().with(OpenApiConstants.INITIALIZATION, "lazy")));
+        OpenApiDocument.INSTANCE.modelFromAnnotations(() -> {
+            throw new IllegalStateException("Scan failed");
+        });
+        OpenApiDocument.INSTANCE.initialize();
+        OpenApiDocument.INSTANCE.get();
+    }
+
+    /**
+     * Test method for {@link OpenApiDocument#publish(OpenAPI, java.util.Map)}.
+     */
+    @Test
+    public void testPublish() {
+        OpenApiDocument.INSTANCE.config(new OpenApiConfig(new TestConfig()));
+        OpenApiDocument.INSTANCE.initialize();
+        // Not rendered until something publishes renderings
+        Assert.assertNull(OpenApiDocument.INSTANCE.getRendered("application/json"));
+
+        OpenAPIImpl model = new OpenAPIImpl();
+        byte[] json = "{}".getBytes(StandardCharsets.UTF_8);
+        OpenApiDocument.INSTANCE.publish(model, Collections.singletonMap("application/json", json));
+        Assert.assertSame(model, OpenApiDocument.INSTANCE.get());
+        Assert.assertArrayEquals(json, OpenApiDocument.INSTANCE.getRendered("application/json"));
+        Assert.assertNull(OpenApiDocument.INSTANCE.getRendered("application/yaml"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBuildWithoutWatchedFile() {
+        OpenApiDocument.INSTANCE.config(new OpenApiConfig(new TestConfig()));
+        OpenApiDocument.INSTANCE.initialize();
+        OpenApiDocument.INSTANCE.build(null, null, null);
+    }
+
+}
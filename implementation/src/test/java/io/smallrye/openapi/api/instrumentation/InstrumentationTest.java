@@ -0,0 +1,70 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.api.instrumentation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.smallrye.openapi.api.models.OpenAPIImpl;
+import io.smallrye.openapi.api.models.info.InfoImpl;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer.Format;
+
+public class InstrumentationTest {
+
+    @Test
+    public void testListener() throws IOException {
+        InstrumentationRecorder recorder = new InstrumentationRecorder();
+        Instrumentation.addListener(recorder);
+        try {
+            OpenAPIImpl model = new OpenAPIImpl();
+            model.setOpenapi("3.0.0");
+            model.setInfo(new InfoImpl().title("Cr\u00e8me br\u00fbl\u00e9e \uD83C\uDF70"));
+            String json = OpenApiSerializer.serialize(model, Format.JSON);
+
+            Assert.assertEquals(1, recorder.getInvocations(Phase.SERIALIZE));
+            // Bytes, not characters
+            Assert.assertEquals(json.getBytes(StandardCharsets.UTF_8).length, recorder.getCount(Counter.BYTES_SERIALIZED));
+            Assert.assertNotEquals(json.length(), recorder.getCount(Counter.BYTES_SERIALIZED));
+            Assert.assertEquals(0, recorder.getInvocations(Phase.SCAN));
+        } finally {
+            Instrumentation.removeListener(recorder);
+        }
+    }
+
+    @Test
+    public void testRecorder() {
+        InstrumentationRecorder recorder = new InstrumentationRecorder();
+        recorder.phaseCompleted(Phase.FILTER, TimeUnit.MILLISECONDS.toNanos(3), 100);
+        recorder.phaseCompleted(Phase.FILTER, TimeUnit.MILLISECONDS.toNanos(2), -1);
+        recorder.counted(Counter.OPERATIONS, 4);
+
+        Assert.assertEquals(2, recorder.getInvocations(Phase.FILTER));
+        Assert.assertEquals(5, recorder.getTime(Phase.FILTER, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(100, recorder.getAllocatedBytes(Phase.FILTER));
+        Assert.assertEquals(4, recorder.getCount(Counter.OPERATIONS));
+
+        recorder.reset();
+        Assert.assertEquals(0, recorder.getInvocations(Phase.FILTER));
+        Assert.assertEquals(0, recorder.getCount(Counter.OPERATIONS));
+    }
+
+}
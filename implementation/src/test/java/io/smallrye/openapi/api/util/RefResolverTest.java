@@ -0,0 +1,117 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.api.util;
+
+import java.io.IOException;
+import java.text.ParseException;
+
+import org.eclipse.microprofile.openapi.models.media.Schema;
+import org.eclipse.microprofile.openapi.models.parameters.Parameter;
+import org.eclipse.microprofile.openapi.models.responses.APIResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.smallrye.openapi.api.models.OpenAPIImpl;
+import io.smallrye.openapi.api.models.media.SchemaImpl;
+import io.smallrye.openapi.runtime.io.OpenApiParser;
+
+public class RefResolverTest {
+
+    private static OpenAPIImpl load() throws IOException, ParseException {
+        return OpenApiParser.parse(RefResolverTest.class.getResource("_refs/refs.json"));
+    }
+
+    /**
+     * Test method for {@link RefResolver#resolve(String)}.
+     */
+    @Test
+    public void testResolve() throws IOException, ParseException {
+        OpenAPIImpl model = load();
+        RefResolver resolver = new RefResolver(model);
+
+        Schema pet = model.getComponents().getSchemas().get("Pet");
+        Assert.assertSame(pet, resolver.resolve("#/components/schemas/Pet"));
+        Assert.assertSame(pet.getProperties().get("tags").getItems(),
+                resolver.resolve("#/components/schemas/Pet/properties/tags/items"));
+        Assert.assertSame(model.getComponents().getSchemas().get("a/b~c"),
+                resolver.resolve("#/components/schemas/a~1b~0c"));
+        Assert.assertNotNull(resolver.resolve("#/components/parameters/id", Parameter.class));
+        Assert.assertNotNull(resolver.resolve("#/paths/~1pets~1{id}/get/responses/default", APIResponse.class));
+        Assert.assertNotNull(resolver.resolve("#/paths/~1pets~1{id}/get/parameters/0", Parameter.class));
+        Assert.assertSame(model, resolver.resolve("#"));
+
+        Assert.assertNull(resolver.resolve("#/components/schemas/Missing"));
+        Assert.assertNull(resolver.resolve("#/components/schemas/Pet", Parameter.class));
+        Assert.assertNull(resolver.resolve("other.json#/components/schemas/Pet"));
+    }
+
+    /**
+     * Test method for {@link RefResolver#invalidate(String)}.
+     */
+    @Test
+    public void testInvalidate() throws IOException, ParseException {
+        OpenAPIImpl model = load();
+        RefResolver resolver = new RefResolver(model);
+        Assert.assertNotNull(resolver.resolve("#/components/schemas/Pet/properties/name"));
+
+        Schema replacement = new SchemaImpl();
+        replacement.addProperty("nickname", new SchemaImpl());
+        model.getComponents().getSchemas().put("Pet", replacement);
+        model.getComponents().getSchemas().remove("Tag");
+        resolver.invalidate("/components/schemas/Pet");
+        resolver.invalidate("#/components/schemas/Tag");
+
+        Assert.assertSame(replacement, resolver.resolve("#/components/schemas/Pet"));
+        Assert.assertNotNull(resolver.resolve("#/components/schemas/Pet/properties/nickname"));
+        Assert.assertNull(resolver.resolve("#/components/schemas/Pet/properties/name"));
+        Assert.assertNull(resolver.resolve("#/components/schemas/Pet/properties/tags/items"));
+        Assert.assertNull(resolver.resolve("#/components/schemas/Tag"));
+        // Siblings are untouched
+        Assert.assertNotNull(resolver.resolve("#/components/schemas/a~1b~0c"));
+    }
+
+    /**
+     * Test method for {@link RefResolver#resolveReference(String)}.
+     */
+    @Test
+    public void testResolveReference() throws IOException, ParseException {
+        OpenAPIImpl model = load();
+        RefResolver resolver = new RefResolver(model);
+        Assert.assertSame(model.getComponents().getParameters().get("id"),
+                resolver.resolveReference("#/paths/~1pets~1{id}/get/parameters/0"));
+        Assert.assertSame(model.getComponents().getSchemas().get("Tag"),
+                resolver.resolveReference("#/components/schemas/Pet/properties/tags/items"));
+        Assert.assertNull(resolver.resolveReference("#/components/schemas/Missing"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCyclicReferences() throws IOException, ParseException {
+        OpenAPIImpl model = load();
+        model.getComponents().getSchemas().get("Tag").setRef("#/components/schemas/Alias");
+        model.getComponents().addSchema("Alias", new SchemaImpl().ref("#/components/schemas/Tag"));
+        new RefResolver(model).resolveReference("#/components/schemas/Pet/properties/tags/items");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCyclicModel() throws IOException, ParseException {
+        OpenAPIImpl model = load();
+        Schema pet = model.getComponents().getSchemas().get("Pet");
+        pet.getProperties().get("tags").setItems(pet);
+        new RefResolver(model);
+    }
+
+}
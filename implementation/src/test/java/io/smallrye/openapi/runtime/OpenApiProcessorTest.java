@@ -0,0 +1,187 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime;
+
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.smallrye.openapi.api.OpenApiConfig;
+import io.smallrye.openapi.api.OpenApiConstants;
+import io.smallrye.openapi.api.OpenApiDocument;
+import io.smallrye.openapi.api.models.OpenAPIImpl;
+import io.smallrye.openapi.runtime.scanner.TestConfig;
+
+/**
+ * Tests for {@link OpenApiProcessor}.
+ */
+public class OpenApiProcessorTest {
+
+    private static final String STATIC_FILE =
+            "openapi: 3.0.1\n" +
+            "info:\n" +
+            "  title: Static\n" +
+            "  version: '1.0'\n" +
+            "paths:\n" +
+            "  /static:\n" +
+            "    get:\n" +
+            "      operationId: getStatic\n";
+
+    private static final String PREGENERATED_FILE =
+            "openapi: 3.0.1\n" +
+            "info:\n" +
+            "  title: Pregenerated\n" +
+            "  version: '1.0'\n" +
+            "paths:\n" +
+            "  /generated:\n" +
+            "    get:\n" +
+            "      operationId: getGenerated\n";
+
+    @After
+    public void reset() {
+        OpenApiDocument.INSTANCE.reset();
+    }
+
+    /**
+     * Fragments are merged into the static file in file name order, whatever their directory.
+     */
+    @Test
+    public void testFragmentOrder() {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "fragments.jar")
+                .addAsResource(new StringAsset(STATIC_FILE), "META-INF/openapi.yaml")
+                .addAsResource(new StringAsset(fragment("b", "second")), "META-INF/openapi/b.yaml")
+                .addAsResource(new StringAsset(fragment("a", "first")), "META-INF/openapi/a.yaml");
+
+        OpenAPIImpl model = OpenApiProcessor.modelFromStaticFile(config(), archive);
+        Assert.assertEquals("Static", model.getInfo().getTitle());
+        // The last fragment wins
+        Assert.assertEquals("second", model.getInfo().getDescription());
+        Assert.assertNotNull(model.getPaths().get("/static"));
+        Assert.assertNotNull(model.getPaths().get("/a"));
+        Assert.assertNotNull(model.getPaths().get("/b"));
+    }
+
+    /**
+     * Fragments are merged even if there is no static file.
+     */
+    @Test
+    public void testFragmentsOnly() {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "fragments.jar")
+                .addAsResource(new StringAsset(fragment("a", "first")), "META-INF/openapi/a.json.txt")
+                .addAsResource(new StringAsset(fragment("b", "second")), "META-INF/openapi/b.yml");
+
+        OpenAPIImpl model = OpenApiProcessor.modelFromStaticFile(config(), archive);
+        Assert.assertEquals("second", model.getInfo().getDescription());
+        Assert.assertNull(model.getPaths().get("/a"));
+        Assert.assertNotNull(model.getPaths().get("/b"));
+
+        Assert.assertNull(OpenApiProcessor.modelFromStaticFile(config(),
+                ShrinkWrap.create(JavaArchive.class, "empty.jar")));
+    }
+
+    /**
+     * A fragment that another file references is only inlined where it is referenced,
+     * not merged a second time.
+     */
+    @Test
+    public void testReferencedFragmentIsNotMerged() {
+        String referencing =
+                "paths:\n" +
+                "  /a:\n" +
+                "    $ref: 'shared.yaml#/paths/~1shared'\n";
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "fragments.jar")
+                .addAsResource(new StringAsset(STATIC_FILE), "META-INF/openapi.yaml")
+                .addAsResource(new StringAsset(referencing), "META-INF/openapi/a.yaml")
+                .addAsResource(new StringAsset(fragment("shared", "shared")), "META-INF/openapi/shared.yaml");
+
+        OpenAPIImpl model = OpenApiProcessor.modelFromStaticFile(config(), archive);
+        Assert.assertEquals("getShared", model.getPaths().get("/a").getGET().getOperationId());
+        Assert.assertNull(model.getPaths().get("/shared"));
+        Assert.assertNull(model.getInfo().getDescription());
+    }
+
+    /**
+     * A pre-generated document in the deployment does not change what the other entry
+     * points return, and takes precedence over their models once it is set on the document.
+     */
+    @Test
+    public void testPregeneratedFile() {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "pregenerated.jar")
+                .addAsResource(new StringAsset(STATIC_FILE), "META-INF/openapi.yaml")
+                .addAsResource(new StringAsset(PREGENERATED_FILE), OpenApiConstants.PREGENERATED_YAML);
+
+        OpenApiConfig config = config();
+        Assert.assertEquals("Static", OpenApiProcessor.modelFromStaticFile(config, archive).getInfo().getTitle());
+        Assert.assertNotNull(OpenApiProcessor.modelFromAnnotations(config, archive));
+
+        OpenAPI model = initialize(config, archive);
+        Assert.assertEquals("Pregenerated", model.getInfo().getTitle());
+        Assert.assertNotNull(model.getPaths().get("/generated"));
+        Assert.assertNull(model.getPaths().get("/static"));
+    }
+
+    /**
+     * The pre-generated document is ignored if it is disabled in the config.
+     */
+    @Test
+    public void testPregeneratedFileDisabled() {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "pregenerated.jar")
+                .addAsResource(new StringAsset(STATIC_FILE), "META-INF/openapi.yaml")
+                .addAsResource(new StringAsset(PREGENERATED_FILE), OpenApiConstants.PREGENERATED_YAML);
+
+        OpenApiConfig config = new OpenApiConfig(new TestConfig().with(OpenApiConstants.PREGENERATED_DISABLE, "true"));
+        Assert.assertNull(OpenApiProcessor.modelFromPregeneratedFile(config, archive));
+
+        OpenAPI model = initialize(config, archive);
+        Assert.assertEquals("Static", model.getInfo().getTitle());
+        Assert.assertNotNull(model.getPaths().get("/static"));
+        Assert.assertNull(model.getPaths().get("/generated"));
+    }
+
+    /**
+     * Initializes the document from the given deployment the way the TCK runner does.
+     * @param config
+     * @param archive
+     */
+    private static OpenAPI initialize(OpenApiConfig config, JavaArchive archive) {
+        OpenApiDocument.INSTANCE.reset();
+        OpenApiDocument.INSTANCE.config(config);
+        OpenApiDocument.INSTANCE.modelFromStaticFile(OpenApiProcessor.modelFromStaticFile(config, archive));
+        OpenApiDocument.INSTANCE.modelFromAnnotations(OpenApiProcessor.modelFromAnnotations(config, archive));
+        OpenApiDocument.INSTANCE.modelFromPregenerated(OpenApiProcessor.modelFromPregeneratedFile(config, archive));
+        OpenApiDocument.INSTANCE.initialize();
+        return OpenApiDocument.INSTANCE.get();
+    }
+
+    private static String fragment(String name, String description) {
+        return "info:\n" +
+               "  description: " + description + "\n" +
+               "paths:\n" +
+               "  /" + name + ":\n" +
+               "    get:\n" +
+               "      operationId: get" + Character.toUpperCase(name.charAt(0)) + name.substring(1) + "\n";
+    }
+
+    private static OpenApiConfig config() {
+        return new OpenApiConfig(new TestConfig());
+    }
+
+}
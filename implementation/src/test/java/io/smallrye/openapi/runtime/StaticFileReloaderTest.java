@@ -0,0 +1,94 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.smallrye.openapi.api.OpenApiConfig;
+import io.smallrye.openapi.api.OpenApiConstants;
+import io.smallrye.openapi.api.OpenApiDocument;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer.Format;
+import io.smallrye.openapi.runtime.scanner.TestConfig;
+
+public class StaticFileReloaderTest {
+
+    private static final long TIMEOUT_MILLIS = 30000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void reset() {
+        OpenApiDocument.INSTANCE.reset();
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String title() {
+        return OpenApiDocument.INSTANCE.get().getInfo().getTitle();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("Timed out waiting for the reloader", System.currentTimeMillis() < deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void testReload() throws IOException, InterruptedException {
+        Path file = folder.getRoot().toPath().resolve("openapi.yaml");
+        write(file, "openapi: 3.0.1\ninfo:\n  title: One\n  version: '1'\n");
+        OpenApiConfig config = new OpenApiConfig(new TestConfig().with(OpenApiConstants.STATIC_FILE_WATCH, file.toString()));
+        List<Exception> failures = new CopyOnWriteArrayList<>();
+
+        OpenApiDocument.INSTANCE.config(config);
+        OpenApiDocument.INSTANCE.initialize();
+        try (StaticFileReloader reloader = new StaticFileReloader(config, null, null, failures::add)) {
+            reloader.start();
+            // The document built from the file is published, already rendered
+            Assert.assertEquals("One", title());
+            String json = new String(OpenApiDocument.INSTANCE.getRendered(Format.JSON.getMimeType()), StandardCharsets.UTF_8);
+            Assert.assertTrue(json.contains("\"One\""));
+            Assert.assertNotNull(OpenApiDocument.INSTANCE.getRendered(Format.YAML.getMimeType()));
+
+            write(file, "openapi: 3.0.1\ninfo:\n  title: Two\n  version: '1'\n");
+            await(() -> "Two".equals(title()));
+
+            // A broken edit is reported, and the current document stays in place
+            write(file, "openapi: 3.0.1\ninfo: [\n");
+            await(() -> !failures.isEmpty());
+            Assert.assertEquals("Two", title());
+        }
+    }
+
+}
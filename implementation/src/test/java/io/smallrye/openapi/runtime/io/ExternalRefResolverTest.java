@@ -0,0 +1,93 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.io;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.IOUtils;
+import org.json.JSONException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import io.smallrye.openapi.api.models.OpenAPIImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.smallrye.openapi.runtime.io.OpenApiSerializer.Format;
+
+public class ExternalRefResolverTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test method for {@link ExternalRefResolver#resolve(URI)}.
+     */
+    @Test
+    public void testResolveFromFilesystem() throws IOException, URISyntaxException, JSONException {
+        URI root = ExternalRefResolverTest.class.getResource("_refs/root.yaml").toURI();
+        String expected = IOUtils.toString(ExternalRefResolverTest.class.getResource("_refs/resolved.json"), "UTF-8");
+
+        ExternalRefResolver resolver = new ExternalRefResolver(null);
+        OpenAPIImpl model = OpenApiParser.parse(resolver.resolve(root));
+
+        JSONAssert.assertEquals(expected, OpenApiSerializer.serialize(model, Format.JSON), true);
+        // Each document is only read once, even though pet.yaml is referenced three times
+        Assert.assertEquals(3, resolver.locations().size());
+    }
+
+    /**
+     * Test method for {@link ExternalRefResolver#resolve(URI)}.
+     */
+    @Test
+    public void testResolvedTreeIsACopy() throws URISyntaxException {
+        URI root = ExternalRefResolverTest.class.getResource("_refs/root.yaml").toURI();
+        ExternalRefResolver resolver = new ExternalRefResolver(null);
+        ObjectNode first = (ObjectNode) resolver.resolve(root);
+        first.removeAll();
+        Assert.assertNotEquals(0, resolver.resolve(root).size());
+    }
+
+    /**
+     * Test method for {@link ExternalRefResolver#resolve(URI)}.
+     */
+    @Test
+    public void testFailedDocumentIsReadAgain() throws IOException {
+        Path root = folder.getRoot().toPath().resolve("root.json");
+        Files.write(root, "{\"openapi\": \"3.0.1\", \"info\": {\"$ref\": \"info.json\"}}".getBytes(StandardCharsets.UTF_8));
+        ExternalRefResolver resolver = new ExternalRefResolver(null);
+        try {
+            resolver.resolve(root.toUri());
+            Assert.fail("info.json does not exist yet");
+        } catch (RuntimeException e) {
+            // Expected
+        }
+
+        Files.write(root.resolveSibling("info.json"), "{\"title\": \"Pets\"}".getBytes(StandardCharsets.UTF_8));
+        JsonNode resolved = resolver.resolve(root.toUri());
+        Assert.assertEquals("Pets", resolved.get("info").get("title").asText());
+    }
+
+}
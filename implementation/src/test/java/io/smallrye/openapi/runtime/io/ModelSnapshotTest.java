@@ -0,0 +1,64 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.text.ParseException;
+
+import org.eclipse.microprofile.openapi.models.PathItem;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.smallrye.openapi.api.models.OpenAPIImpl;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer.Format;
+
+public class ModelSnapshotTest {
+
+    private static OpenAPIImpl roundTrip(OpenAPIImpl model) throws IOException {
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        ModelSnapshot.write(model, snapshot);
+        return ModelSnapshot.read(new ByteArrayInputStream(snapshot.toByteArray()));
+    }
+
+    /**
+     * Test method for {@link ModelSnapshot#read(java.io.InputStream)}.
+     */
+    @Test
+    public void testRoundTrip() throws IOException, ParseException {
+        OpenAPIImpl model = OpenApiParser.parse(ModelSnapshotTest.class.getResource("_everything.json"));
+        OpenAPIImpl read = roundTrip(model);
+        Assert.assertEquals(OpenApiSerializer.serialize(model, Format.JSON), OpenApiSerializer.serialize(read, Format.JSON));
+    }
+
+    /**
+     * Test method for {@link ModelSnapshot#read(java.io.InputStream)}.
+     */
+    @Test
+    public void testSharedObjects() throws IOException, ParseException {
+        OpenAPIImpl model = OpenApiParser.parse(ModelSnapshotTest.class.getResource("_anchors/anchors.yaml"));
+        PathItem pets = roundTrip(model).getPaths().get("/pets");
+        Assert.assertSame(pets.getGET().getResponses().get("200"), pets.getPOST().getResponses().get("200"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotASnapshot() throws IOException {
+        ModelSnapshot.read(new ByteArrayInputStream("{}".getBytes("UTF-8")));
+    }
+
+}
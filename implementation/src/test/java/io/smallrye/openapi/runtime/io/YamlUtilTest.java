@@ -0,0 +1,190 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.eclipse.microprofile.openapi.OASFilter;
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+import org.eclipse.microprofile.openapi.models.PathItem;
+import org.eclipse.microprofile.openapi.models.media.Schema;
+import org.eclipse.microprofile.openapi.models.responses.APIResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import io.smallrye.openapi.api.models.OpenAPIImpl;
+import io.smallrye.openapi.api.util.FilterUtil;
+import io.smallrye.openapi.api.util.MergeUtil;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer.Format;
+
+public class YamlUtilTest {
+
+    /**
+     * Test method for {@link YamlUtil#readTree(InputStream)}.
+     */
+    @Test
+    public void testAliasesAreShared() throws IOException, ParseException {
+        JsonNode tree;
+        try (InputStream stream = YamlUtilTest.class.getResourceAsStream("_anchors/anchors.yaml")) {
+            tree = YamlUtil.readTree(stream);
+        }
+        Assert.assertSame(tree.at("/paths/~1pets/get/responses/200"), tree.at("/paths/~1pets/post/responses/200"));
+
+        OpenAPIImpl model = OpenApiParser.parse(tree);
+        PathItem pets = model.getPaths().get("/pets");
+        Assert.assertSame(pets.getGET().getResponses().get("200"), pets.getPOST().getResponses().get("200"));
+        Schema pet = pets.getPOST().getRequestBody().getContent().get("application/json").getSchema();
+        Assert.assertSame(pet, pets.getGET().getResponses().get("200").getContent().get("application/json")
+                .getSchema().getItems());
+    }
+
+    /**
+     * Test method for {@link OpenApiSerializer#serialize(org.eclipse.microprofile.openapi.models.OpenAPI, Format, Map)}.
+     */
+    @Test
+    public void testAnchorsAreWritten() throws IOException, ParseException {
+        Map<JsonNode, String> anchorNames = new IdentityHashMap<>();
+        JsonNode tree;
+        try (InputStream stream = YamlUtilTest.class.getResourceAsStream("_anchors/anchors.yaml")) {
+            tree = YamlUtil.readTree(stream, anchorNames);
+        }
+        Map<Object, String> modelAnchorNames = new IdentityHashMap<>();
+        OpenAPIImpl model = OpenApiParser.parse(tree, anchorNames, modelAnchorNames);
+        String yaml = OpenApiSerializer.serialize(model, Format.YAML, modelAnchorNames);
+        // The anchor names that were read are kept
+        Assert.assertTrue(yaml, yaml.contains("&petList"));
+        Assert.assertTrue(yaml, yaml.contains("*petList"));
+        Assert.assertTrue(yaml, yaml.matches("(?s).*&pet\\s.*"));
+        Assert.assertTrue(yaml, yaml.matches("(?s).*\\*pet\\s.*"));
+
+        OpenAPIImpl reparsed = OpenApiParser.parse(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)),
+                Format.YAML);
+        PathItem pets = reparsed.getPaths().get("/pets");
+        Assert.assertSame(pets.getGET().getResponses().get("200"), pets.getPOST().getResponses().get("200"));
+
+        // Without names, the anchors are named after where they first appear
+        yaml = OpenApiSerializer.serialize(model, Format.YAML, true);
+        Assert.assertFalse(yaml, yaml.contains("&petList"));
+        Assert.assertTrue(yaml, yaml.contains("&200"));
+    }
+
+    /**
+     * An alias-shared model stays shared when another model is merged into it, so the
+     * merged content shows wherever the alias is used.
+     */
+    @Test
+    public void testSharedModelsAreMergedOnce() throws IOException, ParseException {
+        OpenAPIImpl model = OpenApiParser.parse(YamlUtilTest.class.getResource("_anchors/anchors.yaml"));
+        String yaml =
+                "paths:\n" +
+                "  /pets:\n" +
+                "    post:\n" +
+                "      requestBody:\n" +
+                "        content:\n" +
+                "          application/json:\n" +
+                "            schema:\n" +
+                "              description: A pet.\n";
+        OpenAPIImpl annotations = OpenApiParser.parse(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)),
+                Format.YAML);
+
+        OpenAPI merged = MergeUtil.mergeObjects(model, annotations);
+        PathItem pets = merged.getPaths().get("/pets");
+        Schema items = pets.getGET().getResponses().get("200").getContent().get("application/json").getSchema().getItems();
+        Assert.assertEquals("A pet.", items.getDescription());
+    }
+
+    /**
+     * An alias-shared model is passed to a filter once, however many places it appears in.
+     */
+    @Test
+    public void testSharedModelsAreFilteredOnce() throws IOException, ParseException {
+        OpenAPIImpl model = OpenApiParser.parse(YamlUtilTest.class.getResource("_anchors/anchors.yaml"));
+        FilterUtil.applyFilter(new OASFilter() {
+            @Override
+            public Schema filterSchema(Schema schema) {
+                if (schema.getProperties() != null) {
+                    schema.setDescription(schema.getDescription() == null ? "Pet" : schema.getDescription() + ", again");
+                }
+                return schema;
+            }
+
+            @Override
+            public APIResponse filterAPIResponse(APIResponse response) {
+                response.setDescription(response.getDescription() + " Filtered.");
+                return response;
+            }
+        }, model);
+
+        PathItem pets = model.getPaths().get("/pets");
+        Assert.assertEquals("The pets. Filtered.", pets.getPOST().getResponses().get("200").getDescription());
+        Assert.assertEquals("Pet", pets.getPOST().getRequestBody().getContent().get("application/json").getSchema()
+                .getDescription());
+    }
+
+    /**
+     * Test method for {@link YamlUtil#writeTree(JsonNode, com.fasterxml.jackson.dataformat.yaml.YAMLFactory)}.
+     */
+    @Test
+    public void testAnchorNamesAreDerived() throws IOException {
+        ObjectNode shared = JsonUtil.objectNode().put("type", "string");
+        ObjectNode tree = JsonUtil.objectNode();
+        tree.set("name", shared);
+        tree.set("alias", shared);
+        String yaml = YamlUtil.writeTree(tree, new YAMLFactory());
+        Assert.assertTrue(yaml, yaml.contains("&name"));
+        Assert.assertTrue(yaml, yaml.contains("*name"));
+    }
+
+    /**
+     * Test method for {@link YamlUtil#readTree(InputStream)}.
+     */
+    @Test
+    public void testRecursiveAliasIsRejected() throws IOException {
+        String yaml = "a: &a\n  child: *a\n";
+        try {
+            YamlUtil.readTree(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)));
+            Assert.fail("Expected the recursive alias to be rejected");
+        } catch (JsonParseException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("*a"));
+        }
+
+        // As is an alias of an anchor that was not read
+        try {
+            YamlUtil.readTree(new ByteArrayInputStream("a: *missing\n".getBytes(StandardCharsets.UTF_8)));
+            Assert.fail("Expected the unknown alias to be rejected");
+        } catch (JsonParseException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("*missing"));
+        }
+
+        // An alias of a complete sibling is fine
+        yaml = "a: &a\n  type: string\nb:\n  child: *a\n";
+        JsonNode tree = YamlUtil.readTree(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)));
+        Assert.assertSame(tree.get("a"), tree.at("/b/child"));
+    }
+
+}
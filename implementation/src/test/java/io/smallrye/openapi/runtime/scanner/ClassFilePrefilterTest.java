@@ -0,0 +1,132 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexView;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.smallrye.openapi.api.OpenApiConfig;
+import io.smallrye.openapi.api.OpenApiConstants;
+
+import io.smallrye.openapi.runtime.scanner.IncrementalAnnotationScannerTest.Customer;
+import io.smallrye.openapi.runtime.scanner.IncrementalAnnotationScannerTest.CustomerResource;
+import io.smallrye.openapi.runtime.scanner.IncrementalAnnotationScannerTest.Order;
+import io.smallrye.openapi.runtime.scanner.IncrementalAnnotationScannerTest.OrderResource;
+import io.smallrye.openapi.runtime.scanner.IndexPrunerTest.OrderPage;
+import io.smallrye.openapi.runtime.scanner.IndexPrunerTest.OrderPageResource;
+import io.smallrye.openapi.runtime.scanner.IndexPrunerTest.Page;
+
+public class ClassFilePrefilterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Returns the location of the class file of the given class, counting how many times it is opened.
+     * @param clazz
+     * @param opened
+     */
+    private static ClassFilePrefilter.ClassFileLocation location(Class<?> clazz, Map<Class<?>, AtomicInteger> opened) {
+        return () -> {
+            opened.computeIfAbsent(clazz, c -> new AtomicInteger()).incrementAndGet();
+            return new ByteArrayInputStream(Indexes.classFile(clazz));
+        };
+    }
+
+    @Test
+    public void testReferencedClassesAreIndexed() throws IOException {
+        Map<Class<?>, AtomicInteger> opened = new ConcurrentHashMap<>();
+        ClassFilePrefilter prefilter = new ClassFilePrefilter();
+        Assert.assertTrue(prefilter.accept(Indexes.classFile(OrderResource.class), location(OrderResource.class, opened)));
+        Assert.assertFalse(prefilter.accept(Indexes.classFile(Order.class), location(Order.class, opened)));
+        Assert.assertFalse(prefilter.accept(Indexes.classFile(Customer.class), location(Customer.class, opened)));
+        // The held back classes are not read again until they are needed
+        Assert.assertTrue(opened.isEmpty());
+
+        Index referenced = prefilter.indexReferenced(Indexes.index(OrderResource.class));
+
+        // Order is used by the resource, Customer is not
+        Assert.assertNotNull(referenced.getClassByName(DotName.createSimple(Order.class.getName())));
+        Assert.assertNull(referenced.getClassByName(DotName.createSimple(Customer.class.getName())));
+        // Only what is indexed is read again, once
+        Assert.assertEquals(1, opened.get(Order.class).get());
+        Assert.assertNull(opened.get(Customer.class));
+        Assert.assertNull(opened.get(OrderResource.class));
+    }
+
+    @Test
+    public void testTypeArgumentsOfSuperTypesAreIndexed() throws IOException {
+        Map<Class<?>, AtomicInteger> opened = new ConcurrentHashMap<>();
+        ClassFilePrefilter prefilter = new ClassFilePrefilter();
+        Assert.assertTrue(prefilter.accept(Indexes.classFile(OrderPageResource.class), location(OrderPageResource.class, opened)));
+        for (Class<?> clazz : new Class<?>[] { OrderPage.class, Page.class, Order.class, Customer.class }) {
+            Assert.assertFalse(prefilter.accept(Indexes.classFile(clazz), location(clazz, opened)));
+        }
+
+        Index referenced = prefilter.indexReferenced(Indexes.index(OrderPageResource.class));
+
+        // Order is only referenced as the type argument of the superclass of OrderPage
+        Assert.assertNotNull(referenced.getClassByName(DotName.createSimple(OrderPage.class.getName())));
+        Assert.assertNotNull(referenced.getClassByName(DotName.createSimple(Page.class.getName())));
+        Assert.assertNotNull(referenced.getClassByName(DotName.createSimple(Order.class.getName())));
+        Assert.assertNull(referenced.getClassByName(DotName.createSimple(Customer.class.getName())));
+    }
+
+    @Test
+    public void testHeldBackClassesAreReadFromTheArchive() throws IOException {
+        // Order is in a JAR nested in a JAR that is not on disk, Customer in a JAR on disk
+        JavaArchive nested = ShrinkWrap.create(JavaArchive.class, "nested.jar").addClass(Order.class);
+        JavaArchive streamed = ShrinkWrap.create(JavaArchive.class, "streamed.jar");
+        streamed.add(nested, "/", ZipExporter.class);
+        File onDisk = new File(folder.getRoot(), "disk.jar");
+        ShrinkWrap.create(JavaArchive.class, "disk.jar").addClass(Customer.class).as(ZipExporter.class).exportTo(onDisk);
+        WebArchive war = ShrinkWrap.create(WebArchive.class, "prefilter.war")
+                .addClasses(OrderResource.class, CustomerResource.class)
+                .addAsLibrary(streamed)
+                .addAsLibrary(onDisk);
+
+        OpenApiConfig config = new OpenApiConfig(new TestConfig().with(OpenApiConstants.SCAN_PREFILTER, "true"));
+        IndexView index = new ArchiveIndexer(config).index(war);
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(OrderResource.class.getName())));
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(Order.class.getName())));
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(Customer.class.getName())));
+    }
+
+    @Test
+    public void testNotAClassFile() {
+        Assert.assertTrue(new ClassFilePrefilter().accept(new byte[] { 1, 2, 3 }, () -> {
+            throw new IOException("Not expected to be read again");
+        }));
+    }
+
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexView;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.smallrye.openapi.api.OpenApiConfig;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer.Format;
+
+public class IncrementalAnnotationScannerTest {
+
+    @Test
+    public void testUnchangedResourcesAreReused() throws IOException {
+        Index index = Indexes.index(OrderResource.class, CustomerResource.class, Order.class, Customer.class);
+        String full = OpenApiSerializer.serialize(new OpenApiAnnotationScanner(index, null).scan(), Format.JSON);
+
+        IncrementalAnnotationScanner scanner = new IncrementalAnnotationScanner(new OpenApiConfig(new TestConfig()));
+        String first = OpenApiSerializer.serialize(scanner.scan(index), Format.JSON);
+        Assert.assertEquals(2, scanner.getScanned());
+        Assert.assertEquals(0, scanner.getReused());
+        Assert.assertEquals(full, first);
+
+        // Nothing changed, so nothing is scanned again and the result is the same
+        String second = OpenApiSerializer.serialize(scanner.scan(Indexes.index(OrderResource.class, CustomerResource.class,
+                Order.class, Customer.class)), Format.JSON);
+        Assert.assertEquals(0, scanner.getScanned());
+        Assert.assertEquals(2, scanner.getReused());
+        Assert.assertEquals(full, second);
+
+        // A class referenced by one resource is gone, only that resource is scanned again
+        scanner.scan(Indexes.index(OrderResource.class, CustomerResource.class, Order.class));
+        Assert.assertEquals(1, scanner.getScanned());
+        Assert.assertEquals(1, scanner.getReused());
+    }
+
+    @Test
+    public void testDataObjectChange() throws IOException {
+        OpenApiConfig config = new OpenApiConfig(new TestConfig());
+        IncrementalAnnotationScanner scanner = new IncrementalAnnotationScanner(config);
+        scanner.scan(deployment(Indexes.classFile(Order.class)));
+        Assert.assertEquals(2, scanner.getScanned());
+
+        // Only the data object changed, so the resource that does not use it is not scanned again
+        WebArchive changed = deployment(renamed(Indexes.classFile(Order.class), "quantity", "quantitz"));
+        String incremental = OpenApiSerializer.serialize(scanner.scan(changed), Format.JSON);
+        Assert.assertEquals(1, scanner.getScanned());
+        Assert.assertEquals(1, scanner.getReused());
+        Assert.assertTrue(incremental.contains("quantitz"));
+        Assert.assertEquals(OpenApiSerializer.serialize(new OpenApiAnnotationScanner(config, changed).scan(), Format.JSON), incremental);
+    }
+
+    @Test
+    public void testOnlyChangedClassesAreIndexedAgain() throws IOException {
+        ArchiveIndexer indexer = new ArchiveIndexer(new OpenApiConfig(new TestConfig()), true);
+        IndexView first = indexer.index(deployment(Indexes.classFile(Order.class)));
+        IndexView second = indexer.index(deployment(renamed(Indexes.classFile(Order.class), "quantity", "quantitz")));
+
+        // Classes of the archive itself
+        DotName resource = DotName.createSimple(CustomerResource.class.getName());
+        Assert.assertSame(first.getClassByName(resource), second.getClassByName(resource));
+        DotName order = DotName.createSimple(Order.class.getName());
+        Assert.assertNotSame(first.getClassByName(order), second.getClassByName(order));
+        Assert.assertNotNull(second.getClassByName(order).field("quantitz"));
+        // Classes of a dependency JAR
+        DotName customer = DotName.createSimple(Customer.class.getName());
+        Assert.assertSame(first.getClassByName(customer), second.getClassByName(customer));
+
+        // Classes that are gone are forgotten
+        WebArchive without = ShrinkWrap.create(WebArchive.class, "incremental.war").addClasses(OrderResource.class);
+        Assert.assertNull(indexer.index(without).getClassByName(resource));
+    }
+
+    /**
+     * A deployment with the given version of the Order class, and the Customer class in a library.
+     * @param orderClassFile
+     */
+    private static WebArchive deployment(byte[] orderClassFile) {
+        JavaArchive library = ShrinkWrap.create(JavaArchive.class, "customers.jar").addClass(Customer.class);
+        return ShrinkWrap.create(WebArchive.class, "incremental.war")
+                .addClasses(OrderResource.class, CustomerResource.class)
+                .add(new ByteArrayAsset(orderClassFile), "/WEB-INF/classes/" + Order.class.getName().replace('.', '/') + ".class")
+                .addAsLibrary(library);
+    }
+
+    /**
+     * Renames a member in the constant pool of a class file, which is a change the scanner sees.
+     * The names must have the same length, so that the class file stays valid.
+     * @param classFile
+     * @param name
+     * @param newName
+     */
+    private static byte[] renamed(byte[] classFile, String name, String newName) {
+        byte[] from = name.getBytes(StandardCharsets.UTF_8);
+        byte[] to = newName.getBytes(StandardCharsets.UTF_8);
+        byte[] result = classFile.clone();
+        for (int i = 0; i + from.length <= result.length; i++) {
+            int j = 0;
+            while (j < from.length && result[i + j] == from[j]) {
+                j++;
+            }
+            if (j == from.length) {
+                System.arraycopy(to, 0, result, i, to.length);
+            }
+        }
+        return result;
+    }
+
+    @Path("/orders")
+    static class OrderResource {
+        @GET
+        @Produces("application/json")
+        public List<Order> getOrders() {
+            return null;
+        }
+
+        @POST
+        @Produces("application/json")
+        public Order createOrder(Order order) {
+            return order;
+        }
+    }
+
+    @Path("/customers")
+    static class CustomerResource {
+        @GET
+        @Produces("application/json")
+        public Customer getCustomer() {
+            return null;
+        }
+    }
+
+    static class Order {
+        public String id;
+        public int quantity;
+    }
+
+    static class Customer {
+        public String name;
+    }
+
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IndexCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test method for {@link IndexCache#key(File)}.
+     */
+    @Test
+    public void testFileKey() throws IOException {
+        File jar = folder.newFile("lib.jar");
+        writeJar(jar, "one");
+        jar.setLastModified(1000);
+        String key = IndexCache.key(jar);
+        Assert.assertEquals(key, IndexCache.key(jar));
+
+        // Rebuilt to the same size and modification time, but with other content
+        long length = jar.length();
+        writeJar(jar, "two");
+        jar.setLastModified(1000);
+        Assert.assertEquals(length, jar.length());
+        Assert.assertNotEquals(key, IndexCache.key(jar));
+    }
+
+    private static void writeJar(File jar, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ZipEntry entry = new ZipEntry("content.txt");
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(bytes.length);
+        entry.setCrc(crc.getValue());
+        entry.setTime(0);
+        try (ZipOutputStream stream = new ZipOutputStream(new FileOutputStream(jar))) {
+            stream.putNextEntry(entry);
+            stream.write(bytes);
+            stream.closeEntry();
+        }
+    }
+
+    /**
+     * Test method for {@link IndexCache#get(String)}.
+     */
+    @Test
+    public void testPutAndGet() throws IOException {
+        IndexCache cache = new IndexCache(folder.getRoot().toPath(), Long.MAX_VALUE);
+        String key = IndexCache.key(new byte[] { 1, 2, 3 });
+        Assert.assertEquals(key, IndexCache.key(new byte[] { 1, 2, 3 }));
+        Assert.assertNotEquals(key, IndexCache.key(new byte[] { 1, 2, 4 }));
+
+        Assert.assertNull(cache.get(key));
+        cache.put(key, Indexes.index(MapStandin.class));
+        Index cached = cache.get(key);
+        Assert.assertNotNull(cached);
+        Assert.assertNotNull(cached.getClassByName(DotName.createSimple(MapStandin.class.getName())));
+
+        // A second cache on the same directory (e.g. another JVM) sees the entry too
+        Assert.assertNotNull(new IndexCache(folder.getRoot().toPath(), Long.MAX_VALUE).get(key));
+    }
+
+    /**
+     * Test method for {@link IndexCache#put(String, Index)}.
+     */
+    @Test
+    public void testEviction() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        IndexCache cache = new IndexCache(dir, Long.MAX_VALUE);
+        cache.put("old", Indexes.index(MapStandin.class));
+        cache.put("used", Indexes.index(CollectionStandin.class));
+        long entrySize = Files.size(dir.resolve("old.idx"));
+        Files.setLastModifiedTime(dir.resolve("old.idx"), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(dir.resolve("used.idx"), FileTime.fromMillis(2000));
+        // A hit makes the entry the most recently used one
+        Assert.assertNotNull(cache.get("used"));
+
+        cache = new IndexCache(dir, entrySize * 2 + 1);
+        cache.put("new", Indexes.index(MapStandin.class));
+
+        Assert.assertNull(cache.get("old"));
+        Assert.assertNotNull(cache.get("used"));
+        Assert.assertNotNull(cache.get("new"));
+    }
+
+}
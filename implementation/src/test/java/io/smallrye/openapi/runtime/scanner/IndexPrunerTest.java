@@ -0,0 +1,85 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.smallrye.openapi.runtime.io.OpenApiSerializer;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer.Format;
+import io.smallrye.openapi.runtime.scanner.IncrementalAnnotationScannerTest.Customer;
+import io.smallrye.openapi.runtime.scanner.IncrementalAnnotationScannerTest.Order;
+import io.smallrye.openapi.runtime.scanner.IncrementalAnnotationScannerTest.OrderResource;
+
+public class IndexPrunerTest {
+
+    @Test
+    public void testUnreachableClassesArePruned() throws IOException {
+        Index index = Indexes.index(OrderResource.class, Order.class, Customer.class);
+        Index pruned = IndexPruner.prune(index);
+
+        Assert.assertNotNull(pruned.getClassByName(DotName.createSimple(OrderResource.class.getName())));
+        Assert.assertNotNull(pruned.getClassByName(DotName.createSimple(Order.class.getName())));
+        Assert.assertNull(pruned.getClassByName(DotName.createSimple(Customer.class.getName())));
+
+        // The scan does not change
+        Assert.assertEquals(OpenApiSerializer.serialize(new OpenApiAnnotationScanner(index, null).scan(), Format.JSON),
+                OpenApiSerializer.serialize(new OpenApiAnnotationScanner(pruned, null).scan(), Format.JSON));
+    }
+
+    @Test
+    public void testTypeArgumentsOfSuperTypesAreKept() throws IOException {
+        Index index = Indexes.index(OrderPageResource.class, OrderPage.class, Page.class, Order.class, Customer.class);
+        Index pruned = IndexPruner.prune(index);
+
+        // Order is only referenced as the type argument of the superclass of OrderPage
+        Assert.assertNotNull(pruned.getClassByName(DotName.createSimple(OrderPage.class.getName())));
+        Assert.assertNotNull(pruned.getClassByName(DotName.createSimple(Page.class.getName())));
+        Assert.assertNotNull(pruned.getClassByName(DotName.createSimple(Order.class.getName())));
+        Assert.assertNull(pruned.getClassByName(DotName.createSimple(Customer.class.getName())));
+
+        Assert.assertEquals(OpenApiSerializer.serialize(new OpenApiAnnotationScanner(index, null).scan(), Format.JSON),
+                OpenApiSerializer.serialize(new OpenApiAnnotationScanner(pruned, null).scan(), Format.JSON));
+    }
+
+    @Path("/pages")
+    static class OrderPageResource {
+        @GET
+        @Produces("application/json")
+        public OrderPage getOrders() {
+            return null;
+        }
+    }
+
+    static class Page<T> {
+        public List<T> items;
+        public int total;
+    }
+
+    static class OrderPage extends Page<Order> {
+    }
+
+}
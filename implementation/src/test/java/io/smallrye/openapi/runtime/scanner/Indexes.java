@@ -0,0 +1,67 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+
+/**
+ * Indexes test classes, read from the class path.
+ */
+public class Indexes {
+
+    private Indexes() {
+    }
+
+    /**
+     * Returns an index of the given classes.
+     * @param classes
+     */
+    public static Index index(Class<?>... classes) throws IOException {
+        Indexer indexer = new Indexer();
+        for (Class<?> clazz : classes) {
+            try (InputStream stream = openClassFile(clazz)) {
+                indexer.index(stream);
+            }
+        }
+        return indexer.complete();
+    }
+
+    /**
+     * Returns the content of the class file of the given class.
+     * @param clazz
+     */
+    public static byte[] classFile(Class<?> clazz) throws IOException {
+        try (InputStream stream = openClassFile(clazz)) {
+            return IOUtils.toByteArray(stream);
+        }
+    }
+
+    private static InputStream openClassFile(Class<?> clazz) throws IOException {
+        String resource = clazz.getName().replace('.', '/') + ".class";
+        InputStream stream = clazz.getClassLoader().getResourceAsStream(resource);
+        if (stream == null) {
+            throw new IOException("Class file not found: " + resource);
+        }
+        return stream;
+    }
+
+}
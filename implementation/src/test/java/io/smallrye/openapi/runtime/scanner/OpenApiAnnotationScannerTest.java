@@ -16,14 +16,53 @@
 
 package io.smallrye.openapi.runtime.scanner;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Application;
+
+import org.eclipse.microprofile.openapi.OASConfig;
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.smallrye.openapi.api.OpenApiConfig;
+import io.smallrye.openapi.api.OpenApiConstants;
+import io.smallrye.openapi.api.OpenApiDocumentRegistry;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer.Format;
 
 /**
  * @author eric.wittmann@gmail.com
  */
 public class OpenApiAnnotationScannerTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     /**
      * Test method for {@link OpenApiAnnotationScanner#makePath(java.lang.String[])}.
      */
@@ -48,4 +87,349 @@ public class OpenApiAnnotationScannerTest {
         Assert.assertEquals("/bookings/{id}", path);
     }
 
+    /**
+     * Test method for {@link OpenApiAnnotationScanner#archiveToIndex(OpenApiConfig, org.jboss.shrinkwrap.api.Archive)}.
+     */
+    @Test
+    public void testPrebuiltIndex() throws IOException {
+        ByteArrayOutputStream idx = new ByteArrayOutputStream();
+        new IndexWriter(idx).write(Indexes.index(Prebuilt.class));
+
+        // Prebuilt is only known through the index, Indexed only through its class file
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "prebuilt.jar")
+                .addClass(Indexed.class)
+                .add(new ByteArrayAsset(idx.toByteArray()), "META-INF/jandex.idx");
+
+        IndexView index = OpenApiAnnotationScanner.archiveToIndex(new OpenApiConfig(new TestConfig()), archive);
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(Prebuilt.class.getName())));
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(Indexed.class.getName())));
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(MapStandin.class.getName())));
+
+        // Excludes apply to the prebuilt index as well
+        TestConfig config = new TestConfig().with(OASConfig.SCAN_EXCLUDE_CLASSES, Prebuilt.class.getName());
+        index = OpenApiAnnotationScanner.archiveToIndex(new OpenApiConfig(config), archive);
+        Assert.assertNull(index.getClassByName(DotName.createSimple(Prebuilt.class.getName())));
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(Indexed.class.getName())));
+    }
+
+    /**
+     * Test method for {@link ArchiveIndexer#index(IndexView)}.
+     */
+    @Test
+    public void testExternalIndex() throws IOException {
+        Index external = Indexes.index(Indexed.class, Prebuilt.class);
+
+        IndexView index = new ArchiveIndexer(new OpenApiConfig(new TestConfig())).index(external);
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(Prebuilt.class.getName())));
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(CollectionStandin.class.getName())));
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(MapStandin.class.getName())));
+
+        // Excludes are applied as a view over the given index
+        TestConfig config = new TestConfig().with(OASConfig.SCAN_EXCLUDE_CLASSES, Prebuilt.class.getName());
+        index = new ArchiveIndexer(new OpenApiConfig(config)).index(external);
+        Assert.assertNull(index.getClassByName(DotName.createSimple(Prebuilt.class.getName())));
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(Indexed.class.getName())));
+        Assert.assertNotNull(external.getClassByName(DotName.createSimple(Prebuilt.class.getName())));
+    }
+
+    /**
+     * Test method for {@link ArchiveIndexer#index(org.jboss.shrinkwrap.api.Archive)}.
+     */
+    @Test
+    public void testNestedJarsWithCache() throws IOException {
+        JavaArchive inner = ShrinkWrap.create(JavaArchive.class, "inner.jar").addClass(Indexed.class);
+        JavaArchive outer = ShrinkWrap.create(JavaArchive.class, "outer.jar").addClass(Prebuilt.class);
+        outer.add(inner, "/", ZipExporter.class);
+        WebArchive war = ShrinkWrap.create(WebArchive.class, "nested.war").addAsLibrary(outer);
+
+        DotName prebuilt = DotName.createSimple(Prebuilt.class.getName());
+        DotName indexed = DotName.createSimple(Indexed.class.getName());
+        String cacheDir = folder.getRoot().getAbsolutePath();
+        for (int run = 0; run < 2; run++) {
+            // The first run fills the cache, the second one reads from it
+            TestConfig config = new TestConfig()
+                    .with(OpenApiConstants.INDEX_CACHE_DIR, cacheDir)
+                    .with(OpenApiConstants.SCAN_DEPENDENCIES_JARS, "outer.jar");
+            IndexView index = new ArchiveIndexer(new OpenApiConfig(config)).index(war);
+            Assert.assertNotNull(index.getClassByName(prebuilt));
+            Assert.assertNull(index.getClassByName(indexed));
+
+            config = new TestConfig()
+                    .with(OpenApiConstants.INDEX_CACHE_DIR, cacheDir)
+                    .with(OpenApiConstants.SCAN_DEPENDENCIES_JARS, "outer.jar,inner.jar");
+            index = new ArchiveIndexer(new OpenApiConfig(config)).index(war);
+            Assert.assertNotNull(index.getClassByName(prebuilt));
+            Assert.assertNotNull(index.getClassByName(indexed));
+        }
+    }
+
+    /**
+     * The archive is indexed on a pool of the configured size.
+     */
+    @Test
+    public void testIndexParallelism() {
+        JavaArchive inner = ShrinkWrap.create(JavaArchive.class, "inner.jar").addClass(Indexed.class);
+        WebArchive war = ShrinkWrap.create(WebArchive.class, "parallelism.war").addClass(Prebuilt.class).addAsLibrary(inner);
+
+        TestConfig config = new TestConfig().with(OpenApiConstants.INDEX_PARALLELISM, "1");
+        IndexView index = new ArchiveIndexer(new OpenApiConfig(config)).index(war);
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(Prebuilt.class.getName())));
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(Indexed.class.getName())));
+
+        try {
+            new ArchiveIndexer(new OpenApiConfig(new TestConfig().with(OpenApiConstants.INDEX_PARALLELISM, "0")));
+            Assert.fail("Expected the parallelism to be rejected");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("0"));
+        }
+    }
+
+    /**
+     * Test method for {@link OpenApiAnnotationScanner#scan()}.
+     */
+    @Test
+    public void testScanIsDeterministic() throws IOException {
+        // Resource classes are scanned concurrently: neither their paths and media types nor the
+        // names of the schemas they share may depend on which one is scanned first
+        Index index = Indexes.index(WidgetResource.class, GadgetResource.class, PartResource.class,
+                CatalogResource.class, Widget.class, Gadget.class, Part.class);
+
+        String expected = OpenApiSerializer.serialize(new OpenApiAnnotationScanner(index, null).scan(), Format.JSON);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(expected, OpenApiSerializer.serialize(new OpenApiAnnotationScanner(index, null).scan(),
+                    Format.JSON));
+        }
+
+        OpenAPI model = new OpenApiAnnotationScanner(index, null).scan();
+        Assert.assertNotNull(model.getPaths().get("/widgets").getPOST().getRequestBody().getContent().get("application/xml"));
+        Assert.assertNotNull(model.getPaths().get("/gadgets").getGET().getResponses().get("200").getContent().get("text/plain"));
+        Assert.assertNotNull(model.getPaths().get("/parts/{id}").getGET().getResponses().get("200").getContent()
+                .get("application/json"));
+    }
+
+    /**
+     * Test method for {@link OpenApiAnnotationScanner#scanPerApplication(OpenApiConfig)}.
+     */
+    @Test
+    public void testScanPerApplication() throws IOException {
+        IndexView index = Indexes.index(Api.class, ProductResource.class, Product.class);
+        OpenApiDocumentRegistry registry = new OpenApiAnnotationScanner(index, null).scanPerApplication(config());
+        Assert.assertEquals(1, registry.size());
+        OpenAPI api = registry.get(Api.class);
+        Assert.assertNotNull(api.getPaths().get("/api/products"));
+        Assert.assertNotNull(api.getComponents().getSchemas().get("Product"));
+    }
+
+    /**
+     * Two Applications in the same package, each configured with its resources.
+     */
+    @Test
+    public void testScanPerApplicationConfigured() throws IOException {
+        IndexView index = Indexes.index(PublicApp.class, AdminApp.class, ProductResource.class, Product.class,
+                UserResource.class, User.class);
+        OpenApiConfig config = new OpenApiConfig(new TestConfig()
+                .with(OpenApiConstants.APPLICATION_RESOURCES_PREFIX + PublicApp.class.getName(), ProductResource.class.getName())
+                .with(OpenApiConstants.APPLICATION_RESOURCES_PREFIX + AdminApp.class.getName(), UserResource.class.getName()));
+
+        OpenApiDocumentRegistry registry = new OpenApiAnnotationScanner(index, null).scanPerApplication(config);
+        Assert.assertEquals(2, registry.size());
+
+        OpenAPI publicApi = registry.get(PublicApp.class);
+        Assert.assertEquals(1, publicApi.getPaths().size());
+        Assert.assertNotNull(publicApi.getPaths().get("/public/products"));
+        Assert.assertNotNull(publicApi.getComponents().getSchemas().get("Product"));
+        Assert.assertNull(publicApi.getComponents().getSchemas().get("User"));
+
+        OpenAPI adminApi = registry.get(AdminApp.class);
+        Assert.assertEquals(1, adminApi.getPaths().size());
+        Assert.assertNotNull(adminApi.getPaths().get("/admin/users"));
+        Assert.assertNotNull(adminApi.getComponents().getSchemas().get("User"));
+        Assert.assertNull(adminApi.getComponents().getSchemas().get("Product"));
+    }
+
+    /**
+     * The resources not configured for any Application go to the one without configured
+     * resources.
+     */
+    @Test
+    public void testScanPerApplicationPartlyConfigured() throws IOException {
+        IndexView index = Indexes.index(PublicApp.class, AdminApp.class, ProductResource.class, Product.class,
+                UserResource.class, User.class);
+        OpenApiConfig config = new OpenApiConfig(new TestConfig()
+                .with(OpenApiConstants.APPLICATION_RESOURCES_PREFIX + AdminApp.class.getName(), UserResource.class.getName()));
+
+        OpenApiDocumentRegistry registry = new OpenApiAnnotationScanner(index, null).scanPerApplication(config);
+        Assert.assertEquals(1, registry.get(PublicApp.class).getPaths().size());
+        Assert.assertNotNull(registry.get(PublicApp.class).getPaths().get("/public/products"));
+        Assert.assertEquals(1, registry.get(AdminApp.class).getPaths().size());
+        Assert.assertNotNull(registry.get(AdminApp.class).getPaths().get("/admin/users"));
+    }
+
+    /**
+     * Two Applications in the same package without configured resources cannot be told apart.
+     */
+    @Test
+    public void testScanPerApplicationAmbiguous() throws IOException {
+        IndexView index = Indexes.index(PublicApp.class, AdminApp.class, ProductResource.class, Product.class);
+        try {
+            new OpenApiAnnotationScanner(index, null).scanPerApplication(config());
+            Assert.fail("Expected the scan to fail");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains(ProductResource.class.getName()));
+            Assert.assertTrue(e.getMessage().contains(PublicApp.class.getName()));
+            Assert.assertTrue(e.getMessage().contains(AdminApp.class.getName()));
+        }
+
+        OpenApiConfig config = new OpenApiConfig(new TestConfig()
+                .with(OpenApiConstants.APPLICATION_RESOURCES_PREFIX + PublicApp.class.getName(), ProductResource.class.getName())
+                .with(OpenApiConstants.APPLICATION_RESOURCES_PREFIX + AdminApp.class.getName(), ProductResource.class.getName()));
+        try {
+            new OpenApiAnnotationScanner(index, null).scanPerApplication(config);
+            Assert.fail("Expected the scan to fail");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains(ProductResource.class.getName()));
+        }
+    }
+
+    /**
+     * Test method for {@link OpenApiAnnotationScanner#isListed(String, java.util.Set)}.
+     */
+    @Test
+    public void testIsListed() {
+        Set<String> listed = new HashSet<>(Arrays.asList("com.acme.admin", "com.acme.api.ProductResource"));
+        Assert.assertTrue(OpenApiAnnotationScanner.isListed("com.acme.admin.UserResource", listed));
+        Assert.assertTrue(OpenApiAnnotationScanner.isListed("com.acme.admin.users.UserResource", listed));
+        Assert.assertTrue(OpenApiAnnotationScanner.isListed("com.acme.api.ProductResource", listed));
+        Assert.assertFalse(OpenApiAnnotationScanner.isListed("com.acme.api.OrderResource", listed));
+        Assert.assertFalse(OpenApiAnnotationScanner.isListed("com.acme.administration.UserResource", listed));
+    }
+
+    /**
+     * Test method for {@link OpenApiAnnotationScanner#commonPackageSegments(String, String)}.
+     */
+    @Test
+    public void testCommonPackageSegments() {
+        Assert.assertEquals(3, OpenApiAnnotationScanner.commonPackageSegments("com.acme.admin", "com.acme.admin"));
+        Assert.assertEquals(3, OpenApiAnnotationScanner.commonPackageSegments("com.acme.admin.users", "com.acme.admin"));
+        Assert.assertEquals(2, OpenApiAnnotationScanner.commonPackageSegments("com.acme.admin", "com.acme.api"));
+        Assert.assertEquals(0, OpenApiAnnotationScanner.commonPackageSegments("org.acme", "com.acme"));
+    }
+
+    @ApplicationPath("/api")
+    static class Api extends Application {
+    }
+
+    @Path("/widgets")
+    @Produces("application/json")
+    static class WidgetResource {
+        @GET
+        public Widget get() {
+            return null;
+        }
+
+        @POST
+        @Consumes("application/xml")
+        public Gadget post(Widget widget) {
+            return null;
+        }
+    }
+
+    @Path("/gadgets")
+    static class GadgetResource {
+        @GET
+        @Produces("text/plain")
+        public Gadget get() {
+            return null;
+        }
+
+        @PUT
+        @Consumes("application/json")
+        public void put(Part part) {
+        }
+    }
+
+    @Path("/parts")
+    @Consumes("application/json")
+    static class PartResource {
+        @GET
+        @Path("{id}")
+        @Produces("application/json")
+        public Part get(@PathParam("id") String id) {
+            return null;
+        }
+
+        @POST
+        public Part post(Gadget gadget) {
+            return null;
+        }
+    }
+
+    @Path("/catalog")
+    @Produces("application/yaml")
+    static class CatalogResource {
+        @GET
+        public List<Gadget> list() {
+            return null;
+        }
+    }
+
+    static class Widget {
+        public Part part;
+        public String name;
+    }
+
+    static class Gadget {
+        public Widget widget;
+        public List<Part> parts;
+    }
+
+    static class Part {
+        public int number;
+    }
+
+    @ApplicationPath("/public")
+    static class PublicApp extends Application {
+    }
+
+    @ApplicationPath("/admin")
+    static class AdminApp extends Application {
+    }
+
+    @Path("/products")
+    @Produces("application/json")
+    static class ProductResource {
+        @GET
+        public Product get() {
+            return null;
+        }
+    }
+
+    @Path("/users")
+    @Produces("application/json")
+    static class UserResource {
+        @GET
+        @Path("{name}")
+        public User get(@PathParam("name") String name) {
+            return null;
+        }
+    }
+
+    static class Product {
+        public String name;
+    }
+
+    static class User {
+        public String name;
+    }
+
+    static class Indexed {
+    }
+
+    static class Prebuilt {
+    }
+
+    private static OpenApiConfig config() {
+        return new OpenApiConfig(new TestConfig());
+    }
+
 }
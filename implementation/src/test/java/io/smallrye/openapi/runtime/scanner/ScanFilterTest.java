@@ -0,0 +1,108 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ScanFilterTest {
+
+    private static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+
+    private static final Set<String> NONE = Collections.emptySet();
+
+    /**
+     * Test method for {@link ScanFilter#acceptPath(String)}.
+     */
+    @Test
+    public void testAcceptAll() {
+        ScanFilter filter = ScanFilter.compile(NONE, NONE, NONE, NONE);
+        Assert.assertTrue(filter.acceptPath("/com/acme/Foo.class"));
+        Assert.assertTrue(filter.acceptClassName("Foo"));
+    }
+
+    /**
+     * Test method for {@link ScanFilter#acceptPath(String)}.
+     */
+    @Test
+    public void testPackages() {
+        ScanFilter filter = ScanFilter.compile(NONE, set("com.acme", "org/example/api"), NONE, set("com.acme.internal"));
+        Assert.assertTrue(filter.acceptPath("/WEB-INF/classes/com/acme/Foo.class"));
+        Assert.assertTrue(filter.acceptPath("com/acme/rest/Foo.class"));
+        Assert.assertTrue(filter.acceptPath("/org/example/api/Bar.class"));
+        Assert.assertTrue(filter.acceptClassName("com.acme.Foo$Inner"));
+        Assert.assertFalse(filter.acceptPath("/com/acmex/Foo.class"));
+        Assert.assertFalse(filter.acceptPath("/com/Foo.class"));
+        Assert.assertFalse(filter.acceptPath("/com/acme/internal/Foo.class"));
+        Assert.assertFalse(filter.acceptClassName("com.acme.internal.deep.Foo"));
+        Assert.assertFalse(filter.acceptClassName("Foo"));
+    }
+
+    /**
+     * Test method for {@link ScanFilter#acceptClassName(String)}.
+     */
+    @Test
+    public void testClasses() {
+        ScanFilter filter = ScanFilter.compile(set("com.acme.Foo", "com.acme.Bar"), set("org.example"),
+                set("org.example.Excluded"), NONE);
+        Assert.assertTrue(filter.acceptClassName("com.acme.Foo"));
+        Assert.assertTrue(filter.acceptPath("/com/acme/Bar.class"));
+        Assert.assertTrue(filter.acceptPath("/org/example/Baz.class"));
+        Assert.assertFalse(filter.acceptClassName("com.acme.Baz"));
+        Assert.assertFalse(filter.acceptClassName("com.acme.Fo"));
+        Assert.assertFalse(filter.acceptPath("/org/example/Excluded.class"));
+    }
+
+    /**
+     * Test method for {@link ScanFilter#acceptPath(String)}.
+     */
+    @Test
+    public void testPatterns() {
+        ScanFilter filter = ScanFilter.compile(set("com.acme.*Resource", "^org\\.example\\..*Api$"), set("net.?x"),
+                NONE, set("com.acme.test*"));
+        Assert.assertTrue(filter.acceptPath("/com/acme/PetResource.class"));
+        Assert.assertTrue(filter.acceptPath("/com/acme/v2/PetResource.class"));
+        Assert.assertTrue(filter.acceptClassName("org.example.sub.PetApi"));
+        Assert.assertTrue(filter.acceptPath("/net/ax/Foo.class"));
+        Assert.assertFalse(filter.acceptPath("/net/abx/Foo.class"));
+        Assert.assertFalse(filter.acceptPath("/com/acme/PetResourceImpl.class"));
+        Assert.assertFalse(filter.acceptPath("/com/acme/testing/PetResource.class"));
+    }
+
+    /**
+     * Test method for {@link ScanFilter#acceptPath(String)}.
+     */
+    @Test
+    public void testRegexIsNotRewritten() {
+        // Regular expressions are used as written: '/' never appears in the names they are matched
+        // against, so "[^/]" matches any character, including the '.' of a package
+        ScanFilter filter = ScanFilter.compile(set("^com\\.acme\\.[^/]*Api$"), NONE, NONE, NONE);
+        Assert.assertTrue(filter.acceptPath("/com/acme/PetApi.class"));
+        Assert.assertTrue(filter.acceptClassName("com.acme.PetApi"));
+        Assert.assertTrue(filter.acceptClassName("com.acme.v2.PetApi"));
+        Assert.assertTrue(filter.acceptPath("/com/acme/v2/PetApi.class"));
+        Assert.assertFalse(filter.acceptPath("/com/acme/v2/PetResource.class"));
+    }
+
+}
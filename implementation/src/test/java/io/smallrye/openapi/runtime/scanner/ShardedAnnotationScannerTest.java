@@ -0,0 +1,179 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexWriter;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.smallrye.openapi.api.OpenApiConfig;
+import io.smallrye.openapi.api.OpenApiConstants;
+import io.smallrye.openapi.api.models.OpenAPIImpl;
+import io.smallrye.openapi.runtime.io.ModelSnapshot;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer.Format;
+import io.smallrye.openapi.runtime.scanner.IncrementalAnnotationScannerTest.Customer;
+import io.smallrye.openapi.runtime.scanner.IncrementalAnnotationScannerTest.CustomerResource;
+import io.smallrye.openapi.runtime.scanner.IncrementalAnnotationScannerTest.Order;
+import io.smallrye.openapi.runtime.scanner.IncrementalAnnotationScannerTest.OrderResource;
+
+public class ShardedAnnotationScannerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test method for {@link ShardedAnnotationScanner#merge(List)}.
+     */
+    @Test
+    public void testMergedShardsMatchFullScan() throws IOException {
+        Index index = Indexes.index(OrderResource.class, CustomerResource.class, Order.class, Customer.class);
+        OpenAPIImpl full = new OpenApiAnnotationScanner(index, null).scan();
+
+        List<OpenAPIImpl> partials = new ArrayList<>();
+        for (int shard = 0; shard < 2; shard++) {
+            OpenAPIImpl partial = new OpenApiAnnotationScanner(index, null).scanShard(shard, 2);
+            Assert.assertEquals(1, partial.getPaths().size());
+            partials.add(partial);
+        }
+        OpenAPIImpl merged = ShardedAnnotationScanner.merge(partials);
+
+        Assert.assertEquals(OpenApiSerializer.serialize(full, Format.JSON), OpenApiSerializer.serialize(merged, Format.JSON));
+    }
+
+    /**
+     * Test method for {@link ShardWorker#main(String[])}.
+     */
+    @Test
+    public void testWorker() throws IOException {
+        Index index = Indexes.index(OrderResource.class, CustomerResource.class, Order.class, Customer.class);
+        File indexFile = folder.newFile("index.idx");
+        try (OutputStream stream = Files.newOutputStream(indexFile.toPath())) {
+            new IndexWriter(stream).write(index);
+        }
+        File output = new File(folder.getRoot(), "shard-0.bin");
+        File schemaFile = new File(folder.getRoot(), "shard-0.schemas");
+        ShardWorker.main(new String[] { indexFile.getPath(), "0", "2", output.getPath(), schemaFile.getPath() });
+
+        // The snapshot reads back as the model of the shard
+        OpenApiAnnotationScanner scanner = new OpenApiAnnotationScanner(index, null);
+        OpenAPIImpl expected = scanner.scanShard(0, 2);
+        OpenAPIImpl model;
+        try (InputStream stream = Files.newInputStream(output.toPath())) {
+            model = ModelSnapshot.read(stream);
+        }
+        Assert.assertEquals(OpenApiSerializer.serialize(expected, Format.JSON), OpenApiSerializer.serialize(model, Format.JSON));
+
+        Properties schemas = new Properties();
+        try (InputStream stream = Files.newInputStream(schemaFile.toPath())) {
+            schemas.load(stream);
+        }
+        Map<String, DotName> expectedSchemas = scanner.getSchemaClasses();
+        Assert.assertFalse(expectedSchemas.isEmpty());
+        Assert.assertEquals(expectedSchemas.size(), schemas.size());
+        for (Map.Entry<String, DotName> entry : expectedSchemas.entrySet()) {
+            Assert.assertEquals(entry.getValue().toString(), schemas.getProperty(entry.getKey()));
+        }
+    }
+
+    /**
+     * Test method for {@link ShardedAnnotationScanner#scan(org.jboss.jandex.IndexView)}.
+     */
+    @Test
+    public void testScanInWorkerProcesses() throws IOException {
+        Index index = Indexes.index(OrderResource.class, CustomerResource.class, Order.class, Customer.class);
+        OpenAPIImpl full = new OpenApiAnnotationScanner(index, null).scan();
+
+        ShardedAnnotationScanner scanner = new ShardedAnnotationScanner(new OpenApiConfig(new TestConfig()), 2,
+                System.getProperty("java.class.path"), Collections.<String>emptyList());
+        OpenAPIImpl merged = scanner.scan(index);
+
+        Assert.assertEquals(OpenApiSerializer.serialize(full, Format.JSON), OpenApiSerializer.serialize(merged, Format.JSON));
+    }
+
+    /**
+     * Test method for {@link ShardedAnnotationScanner#scan(org.jboss.jandex.IndexView)}.
+     */
+    @Test
+    public void testWorkerFailure() throws IOException {
+        Index index = Indexes.index(OrderResource.class, Order.class);
+        // The workers cannot even find their main class
+        ShardedAnnotationScanner scanner = new ShardedAnnotationScanner(new OpenApiConfig(new TestConfig()), 1,
+                folder.newFolder("empty").getPath(), Collections.<String>emptyList());
+        try {
+            scanner.scan(index);
+            Assert.fail("Expected the scan to fail");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("failed with exit code"));
+        }
+    }
+
+    /**
+     * Test method for {@link ShardedAnnotationScanner#checkSchemaNames(List)}.
+     */
+    @Test
+    public void testConflictingSchemaNames() {
+        Map<String, String> first = Collections.singletonMap("Item", "com.acme.orders.Item");
+        Map<String, String> same = Collections.singletonMap("Item", "com.acme.orders.Item");
+        Map<String, String> other = Collections.singletonMap("Item", "com.acme.catalog.Item");
+
+        // The same class may be named by several shards
+        ShardedAnnotationScanner.checkSchemaNames(Arrays.asList(first, same));
+        try {
+            ShardedAnnotationScanner.checkSchemaNames(Arrays.asList(first, same, other));
+            Assert.fail("Expected the schema names to conflict");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("com.acme.catalog.Item"));
+        }
+    }
+
+    /**
+     * Test method for {@link ShardedAnnotationScanner#shardIndex(org.jboss.jandex.IndexView)}.
+     */
+    @Test
+    public void testPruneIsHonoured() throws IOException {
+        // Customer is not referenced by any resource class
+        Index index = Indexes.index(OrderResource.class, Order.class, Customer.class);
+        DotName customer = DotName.createSimple(Customer.class.getName());
+
+        ShardedAnnotationScanner scanner = new ShardedAnnotationScanner(new OpenApiConfig(new TestConfig()), 2, "",
+                Collections.<String>emptyList());
+        Assert.assertNotNull(scanner.shardIndex(index).getClassByName(customer));
+
+        scanner = new ShardedAnnotationScanner(new OpenApiConfig(new TestConfig().with(OpenApiConstants.SCAN_PRUNE, "true")), 2,
+                "", Collections.<String>emptyList());
+        Assert.assertNull(scanner.shardIndex(index).getClassByName(customer));
+        Assert.assertNotNull(scanner.shardIndex(index).getClassByName(DotName.createSimple(Order.class.getName())));
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.spi.ConfigSource;
+
+/**
+ * A minimal, map based {@link Config} for tests.
+ */
+public class TestConfig implements Config {
+
+    private final Map<String, String> properties = new HashMap<>();
+
+    /**
+     * Sets a property.
+     * @param name
+     * @param value
+     */
+    public TestConfig with(String name, String value) {
+        properties.put(name, value);
+        return this;
+    }
+
+    @Override
+    public <T> T getValue(String propertyName, Class<T> propertyType) {
+        return getOptionalValue(propertyName, propertyType).orElseThrow(() -> new NoSuchElementException(propertyName));
+    }
+
+    @Override
+    public <T> Optional<T> getOptionalValue(String propertyName, Class<T> propertyType) {
+        String value = properties.get(propertyName);
+        if (value == null) {
+            return Optional.empty();
+        }
+        if (propertyType == Boolean.class) {
+            return Optional.of(propertyType.cast(Boolean.valueOf(value)));
+        }
+        if (propertyType == Integer.class) {
+            return Optional.of(propertyType.cast(Integer.valueOf(value)));
+        }
+        if (propertyType == Long.class) {
+            return Optional.of(propertyType.cast(Long.valueOf(value)));
+        }
+        return Optional.of(propertyType.cast(value));
+    }
+
+    @Override
+    public Iterable<String> getPropertyNames() {
+        return properties.keySet();
+    }
+
+    @Override
+    public Iterable<ConfigSource> getConfigSources() {
+        return Collections.emptyList();
+    }
+
+}
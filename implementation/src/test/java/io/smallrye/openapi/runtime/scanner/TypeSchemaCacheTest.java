@@ -0,0 +1,94 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.scanner;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.openapi.models.media.Schema;
+import org.eclipse.microprofile.openapi.models.media.Schema.SchemaType;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.ParameterizedType;
+import org.jboss.jandex.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.smallrye.openapi.api.models.media.SchemaImpl;
+
+public class TypeSchemaCacheTest {
+
+    private static final DotName LIST = DotName.createSimple("java.util.List");
+
+    private static Type listOf(String className) {
+        Type argument = Type.create(DotName.createSimple(className), Type.Kind.CLASS);
+        return ParameterizedType.create(LIST, new Type[] { argument }, null);
+    }
+
+    @Test
+    public void testStructuralKeys() {
+        TypeSchemaCache cache = new TypeSchemaCache();
+        AtomicInteger generated = new AtomicInteger();
+
+        Schema orders = cache.get(listOf("com.acme.Order"), t -> {
+            generated.incrementAndGet();
+            return new SchemaImpl().type(SchemaType.ARRAY).items(new SchemaImpl().ref("Order"));
+        });
+        // An equal but distinct type instance is a hit, and gets a copy of the schema
+        Schema orders2 = cache.get(listOf("com.acme.Order"), t -> {
+            generated.incrementAndGet();
+            return new SchemaImpl();
+        });
+        Assert.assertEquals(1, generated.get());
+        Assert.assertNotSame(orders, orders2);
+        Assert.assertNotSame(orders.getItems(), orders2.getItems());
+        Assert.assertEquals(SchemaType.ARRAY, orders2.getType());
+        Assert.assertEquals(orders.getItems().getRef(), orders2.getItems().getRef());
+
+        // Changing one copy does not change the others
+        orders2.setDescription("Changed");
+        Assert.assertNull(orders.getDescription());
+        Assert.assertNull(cache.get(listOf("com.acme.Order"), t -> null).getDescription());
+
+        // Different type arguments are different keys
+        Schema customers = cache.get(listOf("com.acme.Customer"), t -> {
+            generated.incrementAndGet();
+            return new SchemaImpl();
+        });
+        Assert.assertNotSame(orders, customers);
+        Assert.assertEquals(2, generated.get());
+
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testNullSchemaIsCached() {
+        TypeSchemaCache cache = new TypeSchemaCache();
+        AtomicInteger generated = new AtomicInteger();
+
+        Assert.assertNull(cache.get(listOf("com.acme.Order"), t -> {
+            generated.incrementAndGet();
+            return null;
+        }));
+        Assert.assertNull(cache.get(listOf("com.acme.Order"), t -> {
+            generated.incrementAndGet();
+            return null;
+        }));
+        Assert.assertEquals(1, generated.get());
+        Assert.assertEquals(1, cache.getHits());
+    }
+
+}
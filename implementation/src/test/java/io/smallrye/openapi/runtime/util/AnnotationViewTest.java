@@ -0,0 +1,162 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.PathParam;
+
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.eclipse.microprofile.openapi.annotations.tags.Tags;
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.MethodInfo;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.smallrye.openapi.api.OpenApiConstants;
+import io.smallrye.openapi.runtime.scanner.Indexes;
+
+public class AnnotationViewTest {
+
+    private static ClassInfo classInfo(Class<?> clazz) throws IOException {
+        return Indexes.index(clazz).getClassByName(DotName.createSimple(clazz.getName()));
+    }
+
+    private static List<String> values(List<AnnotationInstance> annotations, String property) {
+        List<String> values = new ArrayList<>();
+        for (AnnotationInstance annotation : annotations) {
+            values.add(annotation.value(property).asString());
+        }
+        return values;
+    }
+
+    /**
+     * Test method for {@link AnnotationView#of(ClassInfo)}.
+     */
+    @Test
+    public void testClassAnnotations() throws IOException {
+        AnnotationView view = AnnotationView.of(classInfo(Annotated.class));
+        Assert.assertTrue(view.has(OpenApiConstants.DOTNAME_TAG));
+        Assert.assertEquals("class", view.get(OpenApiConstants.DOTNAME_TAG).value("name").asString());
+        Assert.assertEquals(1, view.getAll(OpenApiConstants.DOTNAME_TAG).size());
+
+        // Field, method and parameter annotations are not part of the class view
+        Assert.assertFalse(view.has(OpenApiConstants.DOTNAME_SCHEMA));
+        Assert.assertFalse(view.has(OpenApiConstants.DOTNAME_OPERATION));
+        Assert.assertFalse(view.has(OpenApiConstants.DOTNAME_PARAMETER));
+        Assert.assertNull(view.get(OpenApiConstants.DOTNAME_SCHEMA));
+        Assert.assertTrue(view.getAll(OpenApiConstants.DOTNAME_SCHEMA).isEmpty());
+        Assert.assertNull(view.get(null));
+        Assert.assertTrue(view.getParameterAnnotations(0).isEmpty());
+    }
+
+    /**
+     * Test method for {@link AnnotationView#getRepeatable(DotName, DotName)}.
+     */
+    @Test
+    public void testRepeatableAnnotations() throws IOException {
+        AnnotationView classView = AnnotationView.of(classInfo(Annotated.class));
+        List<AnnotationInstance> tags = classView.getRepeatable(OpenApiConstants.DOTNAME_TAG, OpenApiConstants.DOTNAME_TAGS);
+        // The single annotation first, then the ones wrapped in the container
+        Assert.assertEquals(3, tags.size());
+        Assert.assertEquals("class", tags.get(0).value("name").asString());
+        Assert.assertEquals("one", tags.get(1).value("name").asString());
+        Assert.assertEquals("two", tags.get(2).value("name").asString());
+        // The list returned may be modified
+        tags.clear();
+        Assert.assertEquals(3, classView.getRepeatable(OpenApiConstants.DOTNAME_TAG, OpenApiConstants.DOTNAME_TAGS).size());
+        Assert.assertEquals(1, classView.getRepeatable(OpenApiConstants.DOTNAME_TAG, null).size());
+
+        AnnotationView methodView = AnnotationView.of(method(classInfo(Annotated.class), "method"));
+        List<AnnotationInstance> responses = methodView.getRepeatable(OpenApiConstants.DOTNAME_API_RESPONSE,
+                OpenApiConstants.DOTNAME_API_RESPONSES);
+        Assert.assertEquals(3, responses.size());
+        Assert.assertTrue(values(responses, "responseCode").contains("200"));
+        Assert.assertTrue(values(responses, "responseCode").contains("404"));
+        Assert.assertTrue(values(responses, "responseCode").contains("500"));
+    }
+
+    /**
+     * Test method for {@link AnnotationView#of(MethodInfo)}.
+     */
+    @Test
+    public void testMethodAnnotations() throws IOException {
+        AnnotationView view = AnnotationView.of(method(classInfo(Annotated.class), "method"));
+        Assert.assertEquals("method", view.get(OpenApiConstants.DOTNAME_OPERATION).value("summary").asString());
+        // Class and field annotations are not part of the method view
+        Assert.assertFalse(view.has(OpenApiConstants.DOTNAME_TAG));
+        Assert.assertFalse(view.has(OpenApiConstants.DOTNAME_SCHEMA));
+        // The annotations of the parameters are, by name as well
+        Assert.assertEquals(2, view.getAll(OpenApiConstants.DOTNAME_PARAMETER).size());
+        Assert.assertTrue(view.has(OpenApiConstants.DOTNAME_PATH_PARAM));
+    }
+
+    /**
+     * Test method for {@link AnnotationView#getParameterAnnotation(int, DotName)}.
+     */
+    @Test
+    public void testParameterAnnotations() throws IOException {
+        AnnotationView view = AnnotationView.of(method(classInfo(Annotated.class), "method"));
+        Assert.assertEquals(2, view.getParameterAnnotations(0).size());
+        Assert.assertEquals("first", view.getParameterAnnotation(0, OpenApiConstants.DOTNAME_PARAMETER).value("name").asString());
+        Assert.assertEquals("id", view.getParameterAnnotation(0, OpenApiConstants.DOTNAME_PATH_PARAM).value().asString());
+
+        Assert.assertTrue(view.getParameterAnnotations(1).isEmpty());
+        Assert.assertNull(view.getParameterAnnotation(1, OpenApiConstants.DOTNAME_PARAMETER));
+
+        Assert.assertEquals("third", view.getParameterAnnotation(2, OpenApiConstants.DOTNAME_PARAMETER).value("name").asString());
+        Assert.assertNull(view.getParameterAnnotation(2, OpenApiConstants.DOTNAME_PATH_PARAM));
+
+        // Out of range positions have no annotations
+        Assert.assertTrue(view.getParameterAnnotations(-1).isEmpty());
+        Assert.assertTrue(view.getParameterAnnotations(3).isEmpty());
+        Assert.assertNull(view.getParameterAnnotation(3, OpenApiConstants.DOTNAME_PARAMETER));
+    }
+
+    private static MethodInfo method(ClassInfo clazz, String name) {
+        for (MethodInfo method : clazz.methods()) {
+            if (method.name().equals(name)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    @Tag(name = "class")
+    @Tags({ @Tag(name = "one"), @Tag(name = "two") })
+    static class Annotated {
+        @Schema(description = "field")
+        public String field;
+
+        @Operation(summary = "method")
+        @APIResponse(responseCode = "200")
+        @APIResponses({ @APIResponse(responseCode = "404"), @APIResponse(responseCode = "500") })
+        public void method(@Parameter(name = "first") @PathParam("id") String first, String second,
+                @Parameter(name = "third") String third) {
+        }
+    }
+
+}
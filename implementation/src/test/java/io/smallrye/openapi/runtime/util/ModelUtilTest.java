@@ -0,0 +1,35 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ModelUtilTest {
+
+    /**
+     * Test method for {@link ModelUtil#nameFromRef(String)}.
+     */
+    @Test
+    public void testNameFromRef() {
+        Assert.assertEquals("Pet", ModelUtil.nameFromRef("#/components/schemas/Pet"));
+        Assert.assertEquals("Pet", ModelUtil.nameFromRef("#/components/schemas/Pet/"));
+        Assert.assertEquals("Pet", ModelUtil.nameFromRef("Pet"));
+        Assert.assertEquals("", ModelUtil.nameFromRef(""));
+    }
+
+}
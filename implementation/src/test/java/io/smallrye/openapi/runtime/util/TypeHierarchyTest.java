@@ -0,0 +1,82 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.runtime.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.jandex.DotName;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.smallrye.openapi.runtime.scanner.Indexes;
+
+public class TypeHierarchyTest {
+
+    private static DotName name(Class<?> clazz) {
+        return DotName.createSimple(clazz.getName());
+    }
+
+    @Test
+    public void testIndexedClasses() throws IOException {
+        TypeHierarchy hierarchy = new TypeHierarchy(Indexes.index(Tags.class, SortedTags.class, Sorter.class));
+        Assert.assertTrue(hierarchy.isA(name(SortedTags.class), name(Tags.class)));
+        Assert.assertTrue(hierarchy.isA(name(SortedTags.class), name(Collection.class)));
+        Assert.assertTrue(hierarchy.isA(name(SortedTags.class), name(Iterable.class)));
+        Assert.assertFalse(hierarchy.isA(name(SortedTags.class), name(Map.class)));
+        Assert.assertTrue(hierarchy.isA(name(Sorter.class), name(Comparator.class)));
+        Assert.assertFalse(hierarchy.isA(name(Tags.class), name(SortedTags.class)));
+    }
+
+    @Test
+    public void testJdkClasses() throws IOException {
+        TypeHierarchy hierarchy = new TypeHierarchy(Indexes.index());
+        Assert.assertTrue(hierarchy.isA(name(List.class), name(Collection.class)));
+        Assert.assertTrue(hierarchy.isA(name(HashMap.class), name(Map.class)));
+        Assert.assertTrue(hierarchy.isA(name(Collection.class), name(Collection.class)));
+        Assert.assertFalse(hierarchy.isA(name(HashMap.class), name(Collection.class)));
+        Assert.assertFalse(hierarchy.isA(name(String.class), name(Collection.class)));
+    }
+
+    @Test
+    public void testSupertypesAreComputedOnce() throws IOException {
+        TypeHierarchy hierarchy = new TypeHierarchy(Indexes.index(Tags.class, SortedTags.class));
+        Assert.assertSame(hierarchy.supertypes(name(SortedTags.class)), hierarchy.supertypes(name(SortedTags.class)));
+        Assert.assertTrue(hierarchy.supertypes(name(SortedTags.class)).containsAll(hierarchy.supertypes(name(Tags.class))));
+    }
+
+    @SuppressWarnings("serial")
+    static class Tags extends ArrayList<String> {
+    }
+
+    @SuppressWarnings("serial")
+    static class SortedTags extends Tags {
+    }
+
+    static class Sorter implements Comparator<String> {
+        @Override
+        public int compare(String o1, String o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+}
@@ -0,0 +1,308 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.mavenplugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+import org.jboss.jandex.IndexView;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.importer.ExplodedImporter;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import io.smallrye.openapi.api.OpenApiConfig;
+import io.smallrye.openapi.api.OpenApiConstants;
+import io.smallrye.openapi.api.util.MergeUtil;
+import io.smallrye.openapi.runtime.OpenApiProcessor;
+import io.smallrye.openapi.runtime.io.ModelSnapshot;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer;
+import io.smallrye.openapi.runtime.io.OpenApiSerializer.Format;
+import io.smallrye.openapi.runtime.scanner.ArchiveIndexer;
+import io.smallrye.openapi.runtime.scanner.ShardedAnnotationScanner;
+
+/**
+ * Generates the OpenAPI document of the project at build time, so that the deployment
+ * does not have to run the model reader, read the static files and scan the annotations
+ * when it starts.  The document is written to META-INF/openapi-generated.json (and/or
+ * .yaml, and/or a .bin model snapshot), which is picked up at runtime by
+ * {@link OpenApiProcessor#modelFromPregeneratedFile(OpenApiConfig, org.jboss.shrinkwrap.api.Archive)}.
+ * The filter and the configured servers are still applied at runtime.
+ *
+ * <pre>
+ * &lt;plugin&gt;
+ *   &lt;groupId&gt;io.smallrye&lt;/groupId&gt;
+ *   &lt;artifactId&gt;smallrye-open-api-maven-plugin&lt;/artifactId&gt;
+ *   &lt;executions&gt;
+ *     &lt;execution&gt;
+ *       &lt;goals&gt;&lt;goal&gt;generate&lt;/goal&gt;&lt;/goals&gt;
+ *     &lt;/execution&gt;
+ *   &lt;/executions&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ */
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.PROCESS_CLASSES, requiresDependencyResolution = ResolutionScope.RUNTIME, threadSafe = true)
+public class GenerateMojo extends AbstractMojo {
+
+    private static final String GENERATED_NAME = "openapi-generated";
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    /**
+     * The directory holding the compiled classes (and resources) to generate the document from.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
+    private File classesDirectory;
+
+    /**
+     * The directory the document is written to.  It should end up as META-INF in the deployment.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}/META-INF", required = true)
+    private File outputDirectory;
+
+    @Parameter(property = "openapi.json", defaultValue = "true")
+    private boolean json;
+
+    @Parameter(property = "openapi.yaml", defaultValue = "false")
+    private boolean yaml;
+
+    /**
+     * Whether to also write a binary model snapshot, which is the fastest to read at runtime.
+     */
+    @Parameter(property = "openapi.snapshot", defaultValue = "false")
+    private boolean snapshot;
+
+    /**
+     * MicroProfile config properties (e.g. mp.openapi.scan.exclude.packages), which override
+     * those of the project's META-INF/microprofile-config.properties.
+     */
+    @Parameter
+    private Map<String, String> properties = new HashMap<>();
+
+    @Parameter(property = "openapi.skip", defaultValue = "false")
+    private boolean skip;
+
+    /**
+     * The number of worker processes to scan the annotations in.  Only worth it for very
+     * large deployments, see {@link ShardedAnnotationScanner}.
+     */
+    @Parameter(property = "openapi.shards", defaultValue = "1")
+    private int shards;
+
+    /**
+     * Options of the worker JVMs when scanning in more than one shard (e.g. -Xmx2g).
+     */
+    @Parameter
+    private List<String> shardJvmOptions = new ArrayList<>();
+
+    @Parameter(defaultValue = "${plugin.artifacts}", readonly = true, required = true)
+    private List<Artifact> pluginArtifacts;
+
+    /**
+     * @see org.apache.maven.plugin.Mojo#execute()
+     */
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping OpenAPI document generation");
+            return;
+        }
+        if (!classesDirectory.isDirectory()) {
+            getLog().info("No classes to generate the OpenAPI document from");
+            return;
+        }
+
+        WebArchive archive = createArchive();
+        ClassLoader originalLoader = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader loader = createClassLoader()) {
+            Thread.currentThread().setContextClassLoader(loader);
+            OpenApiConfig config = new OpenApiConfig(createConfig(loader));
+
+            OpenAPI model = OpenApiProcessor.modelFromReader(config, loader);
+            model = MergeUtil.mergeObjects(model, OpenApiProcessor.modelFromStaticFile(config, archive));
+            model = MergeUtil.mergeObjects(model, modelFromAnnotations(config, archive));
+            if (model == null) {
+                getLog().info("No OpenAPI document to generate");
+            }
+            write(model);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to generate the OpenAPI document", e);
+        } finally {
+            Thread.currentThread().setContextClassLoader(originalLoader);
+        }
+    }
+
+    /**
+     * Scans the annotations, in worker processes if more than one shard is configured.
+     * @param config
+     * @param archive
+     */
+    private OpenAPI modelFromAnnotations(OpenApiConfig config, WebArchive archive) {
+        if (shards <= 1) {
+            return OpenApiProcessor.modelFromAnnotations(config, archive);
+        }
+        if (config.scanDisable()) {
+            return null;
+        }
+        IndexView index = new ArchiveIndexer(config).index(archive);
+        getLog().info("Scanning the OpenAPI annotations in " + shards + " worker processes");
+        return new ShardedAnnotationScanner(config, shards, pluginClassPath(), shardJvmOptions).scan(index);
+    }
+
+    /**
+     * Returns the class path of this plugin, which the shard workers run with.
+     */
+    private String pluginClassPath() {
+        StringBuilder classPath = new StringBuilder();
+        for (Artifact artifact : pluginArtifacts) {
+            if (artifact.getFile() != null) {
+                if (classPath.length() > 0) {
+                    classPath.append(File.pathSeparatorChar);
+                }
+                classPath.append(artifact.getFile().getAbsolutePath());
+            }
+        }
+        return classPath.toString();
+    }
+
+    /**
+     * Creates a web archive of the classes and the runtime dependencies, as they would be
+     * deployed.
+     */
+    private WebArchive createArchive() {
+        WebArchive archive = ShrinkWrap.create(WebArchive.class, project.getArtifactId() + ".war");
+        archive.merge(ShrinkWrap.create(ExplodedImporter.class).importDirectory(classesDirectory).as(JavaArchive.class),
+                OpenApiConstants.WEB_ARCHIVE_CLASS_PREFIX);
+        for (File dependency : dependencies()) {
+            if (dependency.isFile()) {
+                archive.addAsLibrary(dependency);
+            }
+        }
+        return archive;
+    }
+
+    /**
+     * Creates a class loader for the classes and the runtime dependencies, to load the
+     * {@link org.eclipse.microprofile.openapi.OASModelReader} and the config from.
+     * @throws MojoExecutionException
+     */
+    private URLClassLoader createClassLoader() throws MojoExecutionException {
+        List<URL> urls = new ArrayList<>();
+        try {
+            urls.add(classesDirectory.toURI().toURL());
+            for (File dependency : dependencies()) {
+                urls.add(dependency.toURI().toURL());
+            }
+        } catch (MalformedURLException e) {
+            throw new MojoExecutionException("Invalid class path entry", e);
+        }
+        return new URLClassLoader(urls.toArray(new URL[urls.size()]), getClass().getClassLoader());
+    }
+
+    /**
+     * Creates the MicroProfile config of the project, with the plugin's properties on top.
+     * @param loader
+     */
+    private Config createConfig(ClassLoader loader) {
+        Map<String, String> overrides = new HashMap<>(properties);
+        // The output of a previous build must not be mistaken for the document to generate
+        overrides.put(OpenApiConstants.PREGENERATED_DISABLE, Boolean.TRUE.toString());
+        return new SmallRyeConfigBuilder()
+                .forClassLoader(loader)
+                .addDefaultSources()
+                .withSources(new PropertiesConfigSource(overrides, "smallrye-open-api-maven-plugin", 500))
+                .build();
+    }
+
+    private List<File> dependencies() {
+        List<File> files = new ArrayList<>();
+        for (Artifact artifact : project.getArtifacts()) {
+            if (artifact.getFile() != null && artifact.getArtifactHandler().isAddedToClasspath()) {
+                files.add(artifact.getFile());
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Writes the model in each of the requested forms.  The forms that are not written (all
+     * of them if there is no model) are deleted first: the runtime prefers the snapshot, then
+     * the JSON document, so one left over from a previous build would be served instead.
+     * @param model may be null
+     * @throws IOException
+     */
+    private void write(OpenAPI model) throws IOException {
+        deleteUnlessWritten(model != null && json, GENERATED_NAME + ".json");
+        deleteUnlessWritten(model != null && yaml, GENERATED_NAME + ".yaml");
+        deleteUnlessWritten(model != null && snapshot, GENERATED_NAME + ".bin");
+        if (model == null) {
+            return;
+        }
+        Files.createDirectories(outputDirectory.toPath());
+        if (json) {
+            write(OpenApiSerializer.serialize(model, Format.JSON), GENERATED_NAME + ".json");
+        }
+        if (yaml) {
+            write(OpenApiSerializer.serialize(model, Format.YAML), GENERATED_NAME + ".yaml");
+        }
+        if (snapshot) {
+            File file = new File(outputDirectory, GENERATED_NAME + ".bin");
+            try (OutputStream stream = new FileOutputStream(file)) {
+                ModelSnapshot.write(model, stream);
+            }
+            getLog().info("Wrote " + file);
+        }
+    }
+
+    private void deleteUnlessWritten(boolean written, String fileName) throws IOException {
+        File file = new File(outputDirectory, fileName);
+        if (!written && Files.deleteIfExists(file.toPath())) {
+            getLog().info("Deleted " + file);
+        }
+    }
+
+    private void write(String document, String fileName) throws IOException {
+        File file = new File(outputDirectory, fileName);
+        Files.write(file.toPath(), document.getBytes(StandardCharsets.UTF_8));
+        getLog().info("Wrote " + file);
+    }
+
+}
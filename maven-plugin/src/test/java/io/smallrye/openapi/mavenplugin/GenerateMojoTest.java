@@ -0,0 +1,130 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.smallrye.openapi.mavenplugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.microprofile.openapi.OASConfig;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GenerateMojoTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File classes;
+    private File output;
+
+    /**
+     * Compiles the project: a classes directory holding a single resource class.
+     * @throws IOException
+     */
+    @Before
+    public void createClasses() throws IOException {
+        classes = folder.newFolder("classes");
+        output = new File(classes, "META-INF");
+        String resource = GreetingResource.class.getName().replace('.', '/') + ".class";
+        File classFile = new File(classes, resource);
+        Files.createDirectories(classFile.getParentFile().toPath());
+        try (InputStream stream = getClass().getClassLoader().getResourceAsStream(resource)) {
+            Files.copy(stream, classFile.toPath());
+        }
+    }
+
+    /**
+     * Test method for {@link GenerateMojo#execute()}.
+     */
+    @Test
+    public void testGenerate() throws Exception {
+        mojo(true, true, false).execute();
+
+        String json = new String(Files.readAllBytes(new File(output, "openapi-generated.json").toPath()), StandardCharsets.UTF_8);
+        Assert.assertTrue(json.contains("\"/greetings\""));
+        Assert.assertTrue(new File(output, "openapi-generated.yaml").isFile());
+        Assert.assertFalse(new File(output, "openapi-generated.bin").exists());
+    }
+
+    /**
+     * Test method for {@link GenerateMojo#execute()}.
+     */
+    @Test
+    public void testStaleDocumentsAreDeleted() throws Exception {
+        mojo(true, true, true).execute();
+        Assert.assertTrue(new File(output, "openapi-generated.bin").isFile());
+
+        // The snapshot of the previous build would otherwise be served instead of the JSON document
+        mojo(true, false, false).execute();
+        Assert.assertTrue(new File(output, "openapi-generated.json").isFile());
+        Assert.assertFalse(new File(output, "openapi-generated.yaml").exists());
+        Assert.assertFalse(new File(output, "openapi-generated.bin").exists());
+
+        // No document at all
+        GenerateMojo mojo = mojo(true, false, false);
+        set(mojo, "properties", Collections.singletonMap(OASConfig.SCAN_DISABLE, "true"));
+        mojo.execute();
+        Assert.assertFalse(new File(output, "openapi-generated.json").exists());
+    }
+
+    private GenerateMojo mojo(boolean json, boolean yaml, boolean snapshot) throws ReflectiveOperationException {
+        GenerateMojo mojo = new GenerateMojo();
+        set(mojo, "project", new MavenProject());
+        set(mojo, "classesDirectory", classes);
+        set(mojo, "outputDirectory", output);
+        set(mojo, "json", json);
+        set(mojo, "yaml", yaml);
+        set(mojo, "snapshot", snapshot);
+        set(mojo, "shards", 1);
+        return mojo;
+    }
+
+    /**
+     * Sets a parameter of the mojo, as Maven does.
+     * @param mojo
+     * @param name
+     * @param value
+     */
+    private static void set(GenerateMojo mojo, String name, Object value) throws ReflectiveOperationException {
+        Field field = GenerateMojo.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+
+    @Path("/greetings")
+    public static class GreetingResource {
+        @GET
+        @Produces("text/plain")
+        public String greet() {
+            return "Hello";
+        }
+    }
+
+}
@@ -83,9 +83,11 @@ public class TckTestRunner extends ParentRunner<ProxiedTckTest> {
             // Reset and then initialize the OpenApiDocument for this test.
             OpenApiDocument.INSTANCE.reset();
             OpenApiDocument.INSTANCE.config(config);
-            OpenApiDocument.INSTANCE.modelFromStaticFile(OpenApiProcessor.modelFromStaticFile(config, archive));
-            OpenApiDocument.INSTANCE.modelFromAnnotations(OpenApiProcessor.modelFromAnnotations(config, archive));
-            OpenApiDocument.INSTANCE.modelFromReader(OpenApiProcessor.modelFromReader(config, getContextClassLoader()));
+            // Suppliers, so that nothing is read or scanned if there is a pregenerated document
+            OpenApiDocument.INSTANCE.modelFromStaticFile(() -> OpenApiProcessor.modelFromStaticFile(config, archive));
+            OpenApiDocument.INSTANCE.modelFromAnnotations(() -> OpenApiProcessor.modelFromAnnotations(config, archive));
+            OpenApiDocument.INSTANCE.modelFromReader(() -> OpenApiProcessor.modelFromReader(config, getContextClassLoader()));
+            OpenApiDocument.INSTANCE.modelFromPregenerated(OpenApiProcessor.modelFromPregeneratedFile(config, archive));
             OpenApiDocument.INSTANCE.filter(OpenApiProcessor.getFilter(config, getContextClassLoader()));
             OpenApiDocument.INSTANCE.initialize();
             